@@ -311,6 +311,11 @@ public final class Settings {
 	 */
 	public final Setting<Double> costHeuristic = new Setting<>(3.563);
 
+	/**
+	 * A GoalComposite with at least this many goals puts them in a spatial index, instead of checking every one of them for every node
+	 */
+	public final Setting<Integer> goalIndexThreshold = new Setting<>(32);
+
 	// a bunch of obscure internal A* settings that you probably don't want to change
 	/**
 	 * The maximum number of times it will fetch outside loaded or cached chunks before assuming that pathing has reached the end of the known area, and should therefore stop.
@@ -412,6 +417,137 @@ public final class Settings {
 	 */
 	public final Setting<Float> pathingMapLoadFactor = new Setting<>(0.75f);
 
+	/**
+	 * Store pathing nodes in parallel primitive arrays indexed by int ids instead of allocating one PathNode object per position
+	 * <p>
+	 * Produces far less garbage on long searches, compare the "nodes per second" and "garbage collections" lines printed after each search with this on and off
+	 */
+	public final Setting<Boolean> usePrimitiveNodeStore = new Setting<>(false);
+
+	/**
+	 * Which open set the A* uses: "binary" (binary heap), "pairing" (pairing heap, cheapest decrease-key), "radix" (radix heap over quantized costs) or "linkedlist"
+	 * <p>
+	 * Only applies when usePrimitiveNodeStore is off, the primitive node store always uses its own binary heap
+	 */
+	public final Setting<String> openSetType = new Setting<>("binary");
+
+	/**
+	 * Ignore openSetType and cycle through the binary, pairing and radix open sets on each path calculation, logging the running nodes per second and peak open set size of each
+	 */
+	public final Setting<Boolean> openSetComparison = new Setting<>(false);
+
+	/**
+	 * Log how each path calculation went as a debug message: cache hit rates, garbage collections, bytes allocated and so on. Only shows up with chatDebug on
+	 */
+	public final Setting<Boolean> searchStatistics = new Setting<>(false);
+
+	/**
+	 * Reuse the node map, open set and other big allocations of the previous path calculation instead of allocating and regrowing them for every segment
+	 * <p>
+	 * The number of bytes allocated during each search is printed afterwards, compare with this on and off
+	 */
+	public final Setting<Boolean> reuseSearchArena = new Setting<>(true);
+
+	/**
+	 * Search from the goal back towards the player on a second thread at the same time as the normal search, and stitch the two together where they meet
+	 * <p>
+	 * Only for goals that are a single block (or a GoalXZ over a loaded or cached column), anything else uses the normal search. Doesn't work with usePrimitiveNodeStore.
+	 */
+	public final Setting<Boolean> bidirectionalSearch = new Setting<>(false);
+
+	/**
+	 * Keep the search tree (D* Lite, searching back from the goal) between calculations to the same goal, so that replanning after blocks change under the path only redoes the part of the search around them
+	 * <p>
+	 * Only for goals that are a single block (or a GoalXZ over a loaded column) in loaded chunks. Falls back to normal A* if it can't find a path in time.
+	 */
+	public final Setting<Boolean> incrementalReplanning = new Setting<>(false);
+
+	/**
+	 * Put traverse and ascend moves in the open set with a lower bound on their cost, and only calculate the real cost (including mining) once they come out of it. Most of them never do.
+	 */
+	public final Setting<Boolean> lazyEdgeEvaluation = new Setting<>(false);
+
+	/**
+	 * Split each search over this many threads (hash distributed A*), each owning a share of the positions. 1 is the normal single threaded search.
+	 * <p>
+	 * Doesn't work with usePrimitiveNodeStore, and isn't used for bidirectionalSearch, incrementalReplanning or hierarchicalPathing.
+	 */
+	public final Setting<Integer> parallelSearchThreads = new Setting<>(1);
+
+	/**
+	 * Cycle each search through 1 up to parallelSearchThreads threads, and log how many nodes per second each thread count got so far
+	 */
+	public final Setting<Boolean> parallelSearchBenchmark = new Setting<>(false);
+
+	/**
+	 * Run normal A*, weighted A* (w=1.5 and w=3) and greedy best first at the same time on separate threads, and use the first path to the goal that's within portfolioSuboptimalityBound (or the one that gets the closest, if none of
+	 * them get there)
+	 * <p>
+	 * Isn't used for bidirectionalSearch, incrementalReplanning or hierarchicalPathing. Takes priority over parallelSearchThreads.
+	 */
+	public final Setting<Boolean> portfolioSearch = new Setting<>(false);
+
+	/**
+	 * Portfolio search only goes with a weighted variant's path to the goal if it costs at most this many times the least any path could cost, going by how far normal A* has gotten. Otherwise normal A* gets until the primary
+	 * timeout to finish, and the cheapest weighted path is only used if it doesn't.
+	 */
+	public final Setting<Double> portfolioSuboptimalityBound = new Setting<>(1.5);
+
+	/**
+	 * Tighten the heuristic with distances to and from landmarks (one per region), worked out over the cached world in the background and saved next to it
+	 * <p>
+	 * Helps the most in hilly or cave-heavy terrain where the straight line distance is way off. Only for goals at a single place, and isn't used for bidirectionalSearch, incrementalReplanning or hierarchicalPathing.
+	 */
+	public final Setting<Boolean> landmarkHeuristic = new Setting<>(false);
+
+	/**
+	 * Remember how far from the goal each expanded node turned out to be, and use that as the heuristic next time a segment is calculated to the same goal
+	 * <p>
+	 * Stops later segments from exploring the same dead ends over and over. Forgotten when the goal changes, and around blocks and chunks that change. Isn't used for bidirectionalSearch, incrementalReplanning or
+	 * hierarchicalPathing, and portfolioSearch, parallelSearchThreads and usePrimitiveNodeStore searches use what was learned but don't add to it.
+	 * <p>
+	 * Only learns from searches without any favoring (backtrackCostFavoringCoefficient at 1 and no mob avoidance), costs that were favored aren't what it really costs to get to the goal.
+	 */
+	public final Setting<Boolean> learnCostToGo = new Setting<>(false);
+
+	/**
+	 * For goals further away than hierarchicalWaypointDistance, plan a corridor of chunks to the goal from the cache first, and only path block by block to the next waypoint along it
+	 */
+	public final Setting<Boolean> hierarchicalPathing = new Setting<>(false);
+
+	/**
+	 * How far ahead along the chunk corridor each waypoint is, in blocks
+	 */
+	public final Setting<Integer> hierarchicalWaypointDistance = new Setting<>(256);
+
+	/**
+	 * Look up the parts of canWalkThrough, canWalkOn and avoidWalkingInto that only depend on the block state in a table instead of working them out every time
+	 * <p>
+	 * Movements considered per second are printed after each search, compare with this on and off
+	 */
+	public final Setting<Boolean> usePassabilityTable = new Setting<>(true);
+
+	/**
+	 * Copy each 16x16x16 section a search touches into a plain array the first time, with passability remembered per block, so that repeated neighbor lookups don't go through the chunk palette again
+	 * <p>
+	 * Only for searches (which get their own copy of the loaded chunks), and only with usePassabilityTable on. Costs about 20KiB per section touched.
+	 */
+	public final Setting<Boolean> useSectionCache = new Setting<>(false);
+
+	/**
+	 * Share the block lookups around each node between all the moves out of it, along with whether each of those blocks can be walked through, walked on or broken
+	 * <p>
+	 * Only for searches. Block lookups per node, and how many of them actually went to the world, are printed after each search, compare with this on and off.
+	 */
+	public final Setting<Boolean> useNeighborhoodCache = new Setting<>(false);
+
+	/**
+	 * Remember where falls down each column end up for the rest of the search, instead of scanning down the column again for every neighbor that descends into it
+	 * <p>
+	 * Only for searches. The hit rate is printed after each search.
+	 */
+	public final Setting<Boolean> useFallCache = new Setting<>(false);
+
 	/**
 	 * How far are you allowed to fall onto solid ground (without a water bucket)? 3 won't deal any damage. But if you just want to get down the mountain quickly and you have Feather Falling IV, you might set it a bit higher, like 4 or 5.
 	 */
@@ -483,6 +619,26 @@ public final class Settings {
 	 */
 	public final Setting<Boolean> chunkCaching = new Setting<>(true);
 
+	/**
+	 * How many threads pack newly loaded chunks into the cache. Takes effect the next time a world is loaded.
+	 */
+	public final Setting<Integer> chunkPackerThreads = new Setting<>(2);
+
+	/**
+	 * If more chunks than this are waiting to be packed, the main thread packs the oldest one itself each time it queues another, instead of letting the queue keep growing
+	 */
+	public final Setting<Integer> chunkPackerQueueLimit = new Setting<>(2048);
+
+	/**
+	 * When the server changes blocks in a loaded chunk, patch just those blocks into the cache right away, instead of the cache being out of date until the chunk is packed again
+	 */
+	public final Setting<Boolean> incrementalCacheUpdates = new Setting<>(true);
+
+	/**
+	 * When packing a chunk that's already cached, only pack the sections that changed since then, going by a hash of each section's palette and block storage. Chunks where nothing changed aren't packed at all.
+	 */
+	public final Setting<Boolean> skipUnchangedSections = new Setting<>(true);
+
 	/**
 	 * On save, delete from RAM any cached regions that are more than 1024 blocks away from the player
 	 * <p>
@@ -494,6 +650,18 @@ public final class Settings {
 	 */
 	public final Setting<Boolean> pruneRegionsFromRAM = new Setting<>(true);
 
+	/**
+	 * While pathing, load the cached regions around us, around the search's best path so far and towards the goal from disk on a background thread, so that searches find them already in memory
+	 */
+	public final Setting<Boolean> prefetchRegions = new Setting<>(true);
+
+	/**
+	 * Roughly how many MiB of heap the cached regions in memory can take up before the least recently used ones are saved and dropped from RAM. 0 for no limit.
+	 * <p>
+	 * Regions a search has looked at in the last 30 seconds, and the one we're in, are never dropped for this, so it can go over if it's set really low.
+	 */
+	public final Setting<Integer> cachedRegionMemoryBudget = new Setting<>(512);
+
 	/**
 	 * Remember the contents of containers (chests, echests, furnaces)
 	 * <p>
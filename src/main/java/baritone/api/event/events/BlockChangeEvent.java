@@ -0,0 +1,58 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.api.event.events;
+
+import java.util.List;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Called after the server changes blocks in a loaded chunk, either one block at a time or a batch of them in the same chunk.
+ */
+public final class BlockChangeEvent {
+
+	/**
+	 * The chunk the blocks are in
+	 */
+	private final int chunkX;
+	private final int chunkZ;
+
+	/**
+	 * The positions of the blocks that changed
+	 */
+	private final List<BlockPos> positions;
+
+	public BlockChangeEvent(int chunkX, int chunkZ, List<BlockPos> positions) {
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+		this.positions = positions;
+	}
+
+	/**
+	 * @return The Chunk X position.
+	 */
+	public int getChunkX() {
+		return chunkX;
+	}
+
+	/**
+	 * @return The Chunk Z position.
+	 */
+	public int getChunkZ() {
+		return chunkZ;
+	}
+
+	/**
+	 * @return The positions of the blocks that changed, all in this chunk
+	 */
+	public List<BlockPos> getPositions() {
+		return positions;
+	}
+}
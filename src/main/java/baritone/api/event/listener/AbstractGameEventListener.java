@@ -10,6 +10,7 @@
 
 package baritone.api.event.listener;
 
+import baritone.api.event.events.BlockChangeEvent;
 import baritone.api.event.events.BlockInteractEvent;
 import baritone.api.event.events.ChatEvent;
 import baritone.api.event.events.ChunkEvent;
@@ -40,6 +41,10 @@ public interface AbstractGameEventListener extends IGameEventListener {
 	default void onChunkEvent(ChunkEvent event) {
 	}
 
+	@Override
+	default void onBlockChange(BlockChangeEvent event) {
+	}
+
 	@Override
 	default void onPathEvent(PathEvent event) {
 	}
@@ -10,6 +10,7 @@
 
 package baritone.api.event.listener;
 
+import baritone.api.event.events.BlockChangeEvent;
 import baritone.api.event.events.BlockInteractEvent;
 import baritone.api.event.events.ChatEvent;
 import baritone.api.event.events.ChunkEvent;
@@ -49,6 +50,13 @@ public interface IGameEventListener {
 	 */
 	void onChunkEvent(ChunkEvent event);
 
+	/**
+	 * Runs after the server changes blocks in a chunk that's already loaded, with a block update or chunk delta packet.
+	 *
+	 * @param event The event
+	 */
+	void onBlockChange(BlockChangeEvent event);
+
 	/**
 	 * When the pathfinder's state changes
 	 *
@@ -11,6 +11,7 @@
 package baritone.api.pathing.goals;
 
 import java.util.Arrays;
+import baritone.api.BaritoneAPI;
 
 /**
  * A composite of many goals, any one of which satisfies the composite. For example, a GoalComposite of block goals for every oak log in loaded chunks would result in it pathing to the easiest oak log to get to
@@ -24,8 +25,14 @@ public class GoalComposite implements Goal {
 	 */
 	private final Goal[] goals;
 
+	/**
+	 * Only non null if there are at least {@link baritone.api.Settings#goalIndexThreshold} goals
+	 */
+	private final GoalIndex index;
+
 	public GoalComposite(Goal... goals) {
 		this.goals = goals;
+		this.index = goals.length >= BaritoneAPI.getSettings().goalIndexThreshold.value ? new GoalIndex(goals) : null;
 	}
 
 	public Goal[] goals() {
@@ -34,6 +41,8 @@ public class GoalComposite implements Goal {
 
 	@Override
 	public double heuristic(int x, int y, int z) {
+		if (index != null)
+			return index.heuristic(x, y, z);
 		double min = Double.MAX_VALUE;
 		for (Goal g : goals) {
 			// TODO technically this isn't admissible...?
@@ -44,6 +53,8 @@ public class GoalComposite implements Goal {
 
 	@Override
 	public boolean isInGoal(int x, int y, int z) {
+		if (index != null)
+			return index.isInGoal(x, y, z);
 		for (Goal goal : goals) {
 			if (goal.isInGoal(x, y, z))
 				return true;
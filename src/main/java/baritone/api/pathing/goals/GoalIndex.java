@@ -0,0 +1,273 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.api.pathing.goals;
+
+import java.util.ArrayList;
+import java.util.List;
+import baritone.api.BaritoneAPI;
+import baritone.api.utils.interfaces.IGoalRenderPos;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * A k-d tree over the X and Z of a bunch of goals, so that the lowest heuristic and whether any of them is satisfied can be found without asking every single one. Used by {@link GoalComposite} once it has enough goals.
+ * <p>
+ * This only works for goals whose heuristic is at least the {@link GoalXZ} distance to their position, and that are only ever satisfied within a known distance of their position. That's {@link GoalBlock}, {@link GoalTwoBlocks},
+ * {@link GoalGetToBlock}, {@link GoalNear} and {@link GoalXZ} exactly. A subclass of one of them could break either of those, so it's only indexed if it says it doesn't by implementing {@link Indexable}. Any other goal is just
+ * checked every time, like before.
+ */
+public final class GoalIndex {
+
+	/**
+	 * Goals per leaf, below this it's faster to just check them all
+	 */
+	private static final int LEAF_SIZE = 8;
+
+	/**
+	 * Indexed goals, in tree order, along with their X, Z and how far away (on X and Z) they can be satisfied
+	 */
+	private final Goal[] goals;
+	private final int[] goalX;
+	private final int[] goalZ;
+	private final int[] goalRadius;
+
+	/**
+	 * Goals that couldn't be indexed
+	 */
+	private final Goal[] rest;
+
+	/**
+	 * Per node: the range of goals under it, the index of the second child (the first is always the next node), or -1 for a leaf, the bounding box of the goals under it, and the largest radius under it
+	 */
+	private final int[] nodeStart;
+	private final int[] nodeEnd;
+	private final int[] nodeRight;
+	private final int[] minX;
+	private final int[] maxX;
+	private final int[] minZ;
+	private final int[] maxZ;
+	private final int[] maxRadius;
+	private int numNodes;
+
+	/**
+	 * {@link baritone.api.Settings#costHeuristic} when this was built, composite goals don't live long enough for it to change under them
+	 */
+	private final double costHeuristic;
+
+	/**
+	 * For subclasses of {@link GoalBlock}, {@link GoalTwoBlocks}, {@link GoalGetToBlock}, {@link GoalNear} and {@link GoalXZ} that only ever add to the heuristic and narrow down isInGoal on X and Z (a different range of Y is
+	 * fine), so they can be indexed like the goal they extend
+	 */
+	public interface Indexable {}
+
+	public GoalIndex(Goal[] all) {
+		this(all, BaritoneAPI.getSettings().costHeuristic.value);
+	}
+
+	GoalIndex(Goal[] all, double costHeuristic) {
+		this.costHeuristic = costHeuristic;
+		List<Goal> indexable = new ArrayList<>();
+		List<Goal> other = new ArrayList<>();
+		for (Goal goal : all) {
+			(radius(goal) >= 0 ? indexable : other).add(goal);
+		}
+		int n = indexable.size();
+		goals = indexable.toArray(new Goal[0]);
+		rest = other.toArray(new Goal[0]);
+		goalX = new int[n];
+		goalZ = new int[n];
+		goalRadius = new int[n];
+		for (int i = 0; i < n; i++) {
+			Goal goal = goals[i];
+			if (goal instanceof GoalXZ) {
+				goalX[i] = ((GoalXZ) goal).getX();
+				goalZ[i] = ((GoalXZ) goal).getZ();
+			} else {
+				BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
+				goalX[i] = pos.getX();
+				goalZ[i] = pos.getZ();
+			}
+			goalRadius[i] = radius(goal);
+		}
+		int capacity = Math.max(1, 4 * n / LEAF_SIZE + 1);
+		nodeStart = new int[capacity];
+		nodeEnd = new int[capacity];
+		nodeRight = new int[capacity];
+		minX = new int[capacity];
+		maxX = new int[capacity];
+		minZ = new int[capacity];
+		maxZ = new int[capacity];
+		maxRadius = new int[capacity];
+		if (n > 0) {
+			build(0, n);
+		}
+	}
+
+	/**
+	 * @return How far away on X or Z this goal can be satisfied, or -1 if it can't be indexed
+	 */
+	private static int radius(Goal goal) {
+		Class<? extends Goal> type = goal.getClass();
+		if (!(goal instanceof Indexable) && type != GoalNear.class && type != GoalGetToBlock.class && type != GoalBlock.class && type != GoalTwoBlocks.class && type != GoalXZ.class)
+			return -1;
+		if (goal instanceof GoalNear)
+			return (int) Math.ceil(Math.sqrt(((GoalNear) goal).getRangeSq()));
+		if (goal instanceof GoalGetToBlock)
+			return 1;
+		if (goal instanceof GoalBlock || goal instanceof GoalTwoBlocks || goal instanceof GoalXZ)
+			return 0;
+		return -1;
+	}
+
+	private int build(int start, int end) {
+		int node = numNodes++;
+		nodeStart[node] = start;
+		nodeEnd[node] = end;
+		int lowX = Integer.MAX_VALUE, highX = Integer.MIN_VALUE, lowZ = Integer.MAX_VALUE, highZ = Integer.MIN_VALUE, radius = 0;
+		for (int i = start; i < end; i++) {
+			lowX = Math.min(lowX, goalX[i]);
+			highX = Math.max(highX, goalX[i]);
+			lowZ = Math.min(lowZ, goalZ[i]);
+			highZ = Math.max(highZ, goalZ[i]);
+			radius = Math.max(radius, goalRadius[i]);
+		}
+		minX[node] = lowX;
+		maxX[node] = highX;
+		minZ[node] = lowZ;
+		maxZ[node] = highZ;
+		maxRadius[node] = radius;
+		if (end - start <= LEAF_SIZE || lowX == highX && lowZ == highZ) {
+			nodeRight[node] = -1;
+			return node;
+		}
+		// split the wider side down the middle
+		int mid = (start + end) >>> 1;
+		select(start, end - 1, mid, highX - lowX >= highZ - lowZ ? goalX : goalZ);
+		build(start, mid);
+		nodeRight[node] = build(mid, end);
+		return node;
+	}
+
+	/**
+	 * Quickselect, so that everything before k is at most the value at k and everything after it is at least that, on the given axis
+	 */
+	private void select(int lo, int hi, int k, int[] axis) {
+		while (lo < hi) {
+			int pivot = axis[(lo + hi) >>> 1];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (axis[i] < pivot) {
+					i++;
+				}
+				while (axis[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(i++, j--);
+				}
+			}
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void swap(int a, int b) {
+		Goal goal = goals[a];
+		goals[a] = goals[b];
+		goals[b] = goal;
+		int tmp = goalX[a];
+		goalX[a] = goalX[b];
+		goalX[b] = tmp;
+		tmp = goalZ[a];
+		goalZ[a] = goalZ[b];
+		goalZ[b] = tmp;
+		tmp = goalRadius[a];
+		goalRadius[a] = goalRadius[b];
+		goalRadius[b] = tmp;
+	}
+
+	/**
+	 * @return The same as the minimum heuristic of every goal, just without asking every goal
+	 */
+	public double heuristic(int x, int y, int z) {
+		double best = Double.MAX_VALUE;
+		for (Goal goal : rest) {
+			best = Math.min(best, goal.heuristic(x, y, z));
+		}
+		if (numNodes == 0)
+			return best;
+		return nearest(0, x, y, z, best);
+	}
+
+	private double nearest(int node, int x, int y, int z, double best) {
+		if (lowerBound(node, x, z) >= best)
+			return best; // nothing in here could possibly beat it
+		int right = nodeRight[node];
+		if (right == -1) {
+			for (int i = nodeStart[node]; i < nodeEnd[node]; i++) {
+				best = Math.min(best, goals[i].heuristic(x, y, z));
+			}
+			return best;
+		}
+		int left = node + 1;
+		// closer side first so that the other side is more likely to get skipped
+		if (lowerBound(left, x, z) <= lowerBound(right, x, z)) {
+			best = nearest(left, x, y, z, best);
+			return nearest(right, x, y, z, best);
+		}
+		best = nearest(right, x, y, z, best);
+		return nearest(left, x, y, z, best);
+	}
+
+	private double lowerBound(int node, int x, int z) {
+		int xDiff = x < minX[node] ? minX[node] - x : x > maxX[node] ? x - maxX[node] : 0;
+		int zDiff = z < minZ[node] ? minZ[node] - z : z > maxZ[node] ? z - maxZ[node] : 0;
+		return xDiff == 0 && zDiff == 0 ? 0 : GoalXZ.calculate(xDiff, zDiff, costHeuristic);
+	}
+
+	/**
+	 * @return Whether any of the goals is satisfied here
+	 */
+	public boolean isInGoal(int x, int y, int z) {
+		for (Goal goal : rest) {
+			if (goal.isInGoal(x, y, z))
+				return true;
+		}
+		return numNodes != 0 && contains(0, x, y, z);
+	}
+
+	private boolean contains(int node, int x, int y, int z) {
+		int radius = maxRadius[node];
+		if (x < minX[node] - radius || x > maxX[node] + radius || z < minZ[node] - radius || z > maxZ[node] + radius)
+			return false;
+		int right = nodeRight[node];
+		if (right == -1) {
+			for (int i = nodeStart[node]; i < nodeEnd[node]; i++) {
+				if (Math.abs(x - goalX[i]) <= goalRadius[i] && Math.abs(z - goalZ[i]) <= goalRadius[i] && goals[i].isInGoal(x, y, z))
+					return true;
+			}
+			return false;
+		}
+		return contains(node + 1, x, y, z) || contains(right, x, y, z);
+	}
+
+	/**
+	 * @return How many of the goals are in the tree, the rest are checked one by one
+	 */
+	public int numIndexed() {
+		return goals.length;
+	}
+}
@@ -28,6 +28,10 @@ public class GoalNear implements Goal, IGoalRenderPos {
 		rangeSq = range * range;
 	}
 
+	int getRangeSq() {
+		return rangeSq;
+	}
+
 	@Override
 	public BlockPos getGoalPos() {
 		return new BlockPos(x, y, z);
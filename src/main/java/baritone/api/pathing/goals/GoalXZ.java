@@ -26,6 +26,13 @@ public class GoalXZ implements Goal {
 	private static final double SQRT_2 = Math.sqrt(2);
 
 	public static double calculate(double xDiff, double zDiff) {
+		return calculate(xDiff, zDiff, BaritoneAPI.getSettings().costHeuristic.value);
+	}
+
+	/**
+	 * @param costHeuristic What {@link baritone.api.Settings#costHeuristic} would be
+	 */
+	public static double calculate(double xDiff, double zDiff, double costHeuristic) {
 		//This is a combination of pythagorean and manhattan distance
 		//It takes into account the fact that pathing can either walk diagonally or forwards
 
@@ -43,7 +50,7 @@ public class GoalXZ implements Goal {
 			diagonal = z;
 		}
 		diagonal *= SQRT_2;
-		return (diagonal + straight) * BaritoneAPI.getSettings().costHeuristic.value; // big TODO tune
+		return (diagonal + straight) * costHeuristic; // big TODO tune
 	}
 
 	public static GoalXZ fromDirection(Vec3d origin, float yaw, double distance) {
@@ -17,11 +17,14 @@ import java.util.Optional;
 import java.util.concurrent.LinkedBlockingQueue;
 import baritone.Baritone;
 import baritone.api.behavior.IPathingBehavior;
+import baritone.api.event.events.BlockChangeEvent;
+import baritone.api.event.events.ChunkEvent;
 import baritone.api.event.events.PathEvent;
 import baritone.api.event.events.PlayerUpdateEvent;
 import baritone.api.event.events.RenderEvent;
 import baritone.api.event.events.SprintStateEvent;
 import baritone.api.event.events.TickEvent;
+import baritone.api.event.events.type.EventState;
 import baritone.api.pathing.calc.IPath;
 import baritone.api.pathing.goals.Goal;
 import baritone.api.pathing.goals.GoalXZ;
@@ -30,8 +33,18 @@ import baritone.api.utils.BetterBlockPos;
 import baritone.api.utils.Helper;
 import baritone.api.utils.PathCalculationResult;
 import baritone.api.utils.interfaces.IGoalRenderPos;
+import baritone.cache.WorldData;
 import baritone.pathing.calc.AStarPathFinder;
 import baritone.pathing.calc.AbstractNodeCostSearch;
+import baritone.pathing.calc.BidirectionalAStarPathFinder;
+import baritone.pathing.calc.CostToGoCache;
+import baritone.pathing.calc.DStarLitePathFinder;
+import baritone.pathing.calc.DStarLiteTree;
+import baritone.pathing.calc.HierarchicalPathFinder;
+import baritone.pathing.calc.LandmarkGoal;
+import baritone.pathing.calc.ParallelAStarPathFinder;
+import baritone.pathing.calc.PortfolioPathFinder;
+import baritone.pathing.calc.SearchArena;
 import baritone.pathing.movement.CalculationContext;
 import baritone.pathing.movement.MovementHelper;
 import baritone.pathing.path.PathExecutor;
@@ -42,7 +55,7 @@ import net.minecraft.util.math.BlockPos;
 
 public final class PathingBehavior extends Behavior implements IPathingBehavior, Helper {
 
-	private static AbstractNodeCostSearch createPathfinder(BlockPos start, Goal goal, IPath previous, CalculationContext context) {
+	private static AbstractNodeCostSearch createPathfinder(BlockPos start, Goal goal, IPath previous, CalculationContext context, SearchArena arena, DStarLiteTree incrementalTree, CostToGoCache costToGo) {
 		Goal transformed = goal;
 		if (Baritone.settings().simplifyUnloadedYCoord.value && goal instanceof IGoalRenderPos) {
 			BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
@@ -51,7 +64,50 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
 			}
 		}
 		Favoring favoring = new Favoring(context.getBaritone().getPlayerContext(), previous, context);
-		return new AStarPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context);
+		if (Baritone.settings().hierarchicalPathing.value) {
+			BlockPos goalPos = HierarchicalPathFinder.goalPosition(transformed);
+			if (goalPos != null)
+				return new HierarchicalPathFinder(start.getX(), start.getY(), start.getZ(), transformed, goalPos, favoring, context, arena);
+		}
+		if (Baritone.settings().incrementalReplanning.value) {
+			BetterBlockPos goalPos = BidirectionalAStarPathFinder.backwardStart(transformed, context);
+			if (goalPos != null && context.isLoaded(goalPos.x, goalPos.z))
+				return new DStarLitePathFinder(start.getX(), start.getY(), start.getZ(), transformed, goalPos, incrementalTree, favoring, context, arena);
+		}
+		if (Baritone.settings().bidirectionalSearch.value && !Baritone.settings().usePrimitiveNodeStore.value) {
+			BetterBlockPos backwardStart = BidirectionalAStarPathFinder.backwardStart(transformed, context);
+			if (backwardStart != null) {
+				// the backward search gets its own context, made here because it has to be made on the main thread
+				return new BidirectionalAStarPathFinder(start.getX(), start.getY(), start.getZ(), transformed, backwardStart, favoring, context, new CalculationContext(context.getBaritone(), true));
+			}
+		}
+		if (Baritone.settings().landmarkHeuristic.value) {
+			transformed = LandmarkGoal.wrap(transformed, start, context);
+		}
+		if (Baritone.settings().learnCostToGo.value) {
+			transformed = costToGo.wrap(transformed, context.world, favoring);
+		}
+		if (Baritone.settings().portfolioSearch.value && context.getClass() == CalculationContext.class) {
+			CalculationContext[] contexts = new CalculationContext[PortfolioPathFinder.SIZE];
+			contexts[0] = context;
+			for (int i = 1; i < contexts.length; i++) {
+				contexts[i] = new CalculationContext(context.getBaritone(), true);
+			}
+			return new PortfolioPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, contexts, arena);
+		}
+		if (Baritone.settings().parallelSearchThreads.value > 1 && !Baritone.settings().usePrimitiveNodeStore.value && context.getClass() == CalculationContext.class) {
+			int workers = ParallelAStarPathFinder.nextWorkerCount();
+			if (workers > 1 || Baritone.settings().parallelSearchBenchmark.value) {
+				// one context per worker, all made here on the main thread
+				CalculationContext[] contexts = new CalculationContext[workers];
+				contexts[0] = context;
+				for (int i = 1; i < workers; i++) {
+					contexts[i] = new CalculationContext(context.getBaritone(), true);
+				}
+				return new ParallelAStarPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, contexts);
+			}
+		}
+		return new AStarPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context, arena);
 	}
 
 	private PathExecutor current;
@@ -73,12 +129,38 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
 
 	private final Object pathPlanLock = new Object();
 
+	/**
+	 * Node map, open set and friends reused by each segment calculation of this Baritone, see {@link SearchArena}
+	 */
+	private final SearchArena searchArena = new SearchArena();
+
+	/**
+	 * Kept between calculations so that replanning to the same goal after blocks change doesn't start from scratch, see {@link DStarLiteTree}
+	 */
+	private final DStarLiteTree incrementalTree = new DStarLiteTree();
+
+	/**
+	 * What the searches learned about how far it is to the goal, for the next segment to the same goal, see {@link CostToGoCache}
+	 */
+	private final CostToGoCache costToGo = new CostToGoCache();
+
 	private boolean lastAutoJump;
 
 	private BetterBlockPos expectedSegmentStart;
 
 	private final LinkedBlockingQueue<PathEvent> toDispatch = new LinkedBlockingQueue<>();
 
+	private static final int PREFETCH_INTERVAL_TICKS = 20;
+
+	/**
+	 * Regions more than 1024 blocks away get pruned from memory on save, so there's no point going further than that
+	 */
+	private static final int PREFETCH_DISTANCE = 1024;
+
+	private static final int PREFETCH_RADIUS = 128;
+
+	private int ticksSincePrefetch;
+
 	public PathingBehavior(Baritone baritone) {
 		super(baritone);
 	}
@@ -144,8 +226,13 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
 			primaryTimeout = Baritone.settings().planAheadPrimaryTimeoutMS.value;
 			failureTimeout = Baritone.settings().planAheadFailureTimeoutMS.value;
 		}
-		AbstractNodeCostSearch pathfinder = createPathfinder(start, goal, current == null ? null : current.getPath(), context);
-		if (!Objects.equals(pathfinder.getGoal(), goal)) { // will return the exact same object if simplification didn't happen
+		AbstractNodeCostSearch pathfinder = createPathfinder(start, goal, current == null ? null : current.getPath(), context, searchArena, incrementalTree, costToGo);
+		Goal searchGoal = CostToGoCache.unwrap(pathfinder.getGoal());
+		if (searchGoal instanceof LandmarkGoal) {
+			logDebug("Using " + ((LandmarkGoal) searchGoal).getNumLandmarks() + " landmarks for the heuristic");
+			searchGoal = ((LandmarkGoal) searchGoal).getGoal();
+		}
+		if (!Objects.equals(searchGoal, goal)) { // will return the exact same object if simplification didn't happen
 			logDebug("Simplifying " + goal.getClass() + " to GoalXZ due to distance");
 		}
 		inProgress = pathfinder;
@@ -265,6 +352,19 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
 		}
 	}
 
+	@Override
+	public void onChunkEvent(ChunkEvent event) {
+		if (event.getState() == EventState.POST && (event.getType() == ChunkEvent.Type.POPULATE_FULL || event.getType() == ChunkEvent.Type.POPULATE_PARTIAL)) {
+			costToGo.chunkChanged(event.getX(), event.getZ());
+		}
+	}
+
+	@Override
+	public void onBlockChange(BlockChangeEvent event) {
+		incrementalTree.blocksChanged(event.getPositions());
+		costToGo.blocksChanged(event.getPositions());
+	}
+
 	@Override
 	public void onRenderPass(RenderEvent event) {
 		PathRenderer.render(event, this);
@@ -282,6 +382,36 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
 		baritone.getPathingControlManager().preTick();
 		tickPath();
 		dispatchEvents();
+		if (++ticksSincePrefetch >= PREFETCH_INTERVAL_TICKS) {
+			ticksSincePrefetch = 0;
+			prefetchRegions();
+		}
+	}
+
+	/**
+	 * Gets the cached regions we're about to need loading in the background: the ones around us, around where the search in progress has got to so far, and in a straight line towards the goal. Only as far as regions are kept in
+	 * memory, anything further would just get pruned again.
+	 */
+	private void prefetchRegions() {
+		WorldData worldData = baritone.getWorldProvider().getCurrentWorld();
+		if (worldData == null || goal == null || !Baritone.settings().prefetchRegions.value)
+			return;
+		BetterBlockPos feet = ctx.playerFeet();
+		worldData.cache.prefetch(feet.x, feet.z, PREFETCH_RADIUS);
+		AbstractNodeCostSearch search = inProgress;
+		if (search != null) {
+			search.bestPathSoFar().ifPresent(path -> worldData.cache.prefetch(path.getDest().x, path.getDest().z, PREFETCH_RADIUS));
+		}
+		BlockPos goalPos = HierarchicalPathFinder.goalPosition(goal);
+		if (goalPos != null) {
+			double dx = goalPos.getX() - feet.x;
+			double dz = goalPos.getZ() - feet.z;
+			double dist = Math.sqrt(dx * dx + dz * dz);
+			for (int along = 512; along <= PREFETCH_DISTANCE && along < dist + 512; along += 512) {
+				double fraction = Math.min(along / dist, 1);
+				worldData.cache.prefetch(feet.x + (int) (dx * fraction), feet.z + (int) (dz * fraction), PREFETCH_RADIUS);
+			}
+		}
 	}
 
 	/**
@@ -339,6 +469,14 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
 		return context;
 	}
 
+	public DStarLiteTree secretInternalGetIncrementalTree() {
+		return incrementalTree;
+	}
+
+	public CostToGoCache secretInternalGetCostToGoCache() {
+		return costToGo;
+	}
+
 	// just cancel the current path
 	private void secretInternalSegmentCancel() {
 		queuePathEvent(PathEvent.CANCELED);
@@ -0,0 +1,134 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import java.util.Arrays;
+import java.util.List;
+import baritone.api.utils.BlockUtils;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+/**
+ * The blocks a region's cached chunks refer to by number, for the overview, the special blocks, and on disk, so that getting one back is indexing an array instead of going through its name.
+ * <p>
+ * Numbered by block, not by state, since on disk each one is just the block's name: every state of a block is stored as its default state, the same as it would be after a reload. Numbering states would give the same name
+ * a new number every time a region is loaded and a non default state is packed again, until there are too many to save.
+ * <p>
+ * Numbers are only ever added, never moved or reused, so chunks still on disk in terms of an earlier save stay valid. Adding is synchronized, getting isn't, states are filled in before the array with them in it is published.
+ */
+final class BlockStatePalette {
+
+	private volatile BlockState[] states = new BlockState[64];
+
+	private volatile String[] names = new String[64];
+
+	private int size;
+
+	/**
+	 * The first number each block got, guarded by this
+	 */
+	private final Reference2IntOpenHashMap<Block> ids = new Reference2IntOpenHashMap<>();
+
+	/**
+	 * Whether some block has more than one number, which only happens in a palette saved before they were numbered by block. Guarded by this.
+	 */
+	private boolean duplicates;
+
+	BlockStatePalette() {
+		ids.defaultReturnValue(-1);
+	}
+
+	/**
+	 * @param names The names from a region file, in order. Names that aren't blocks (anymore) get a {@code null} state, and chunks that use them fail to decode like any other corrupted chunk.
+	 */
+	static BlockStatePalette fromNames(List<String> names) {
+		BlockStatePalette palette = new BlockStatePalette();
+		for (String name : names) {
+			Block block = BlockUtils.stringToBlockNullable(name);
+			palette.add(block == null ? null : block.getDefaultState(), name);
+		}
+		return palette;
+	}
+
+	/**
+	 * @return The number for this state's block, added if it doesn't have one yet
+	 */
+	synchronized int idOf(BlockState state) {
+		Block block = state.getBlock();
+		int id = ids.getInt(block);
+		if (id < 0) {
+			id = add(block.getDefaultState(), BlockUtils.blockToString(block));
+		}
+		return id;
+	}
+
+	/**
+	 * @return The number for each of these states' blocks, see {@link #idOf}
+	 */
+	synchronized short[] idsOf(BlockState[] states) {
+		short[] result = new short[states.length];
+		for (int i = 0; i < states.length; i++) {
+			result[i] = (short) idOf(states[i]);
+		}
+		return result;
+	}
+
+	private synchronized int add(BlockState state, String name) {
+		BlockState[] states = this.states;
+		String[] names = this.names;
+		if (size == states.length) {
+			states = Arrays.copyOf(states, size << 1);
+			names = Arrays.copyOf(names, size << 1);
+		}
+		states[size] = state;
+		names[size] = name;
+		// only publish once it's filled in
+		this.names = names;
+		this.states = states;
+		if (state != null) {
+			if (ids.containsKey(state.getBlock())) {
+				duplicates = true;
+			} else {
+				ids.put(state.getBlock(), size);
+			}
+		}
+		return size++;
+	}
+
+	/**
+	 * @return The default state of the block with this number, {@code null} if its name wasn't a block when it was loaded
+	 */
+	BlockState get(int id) {
+		return states[id];
+	}
+
+	/**
+	 * @return The name of the block with this number
+	 */
+	String name(int id) {
+		return names[id];
+	}
+
+	/**
+	 * @return All of the names, in order, as they're saved to disk
+	 */
+	synchronized List<String> names() {
+		return Arrays.asList(Arrays.copyOf(names, size));
+	}
+
+	/**
+	 * @return Whether some block has more than one number, see {@link #duplicates}. A region with a palette like this should be saved with a fresh one, or it'll never stop growing.
+	 */
+	synchronized boolean hasDuplicates() {
+		return duplicates;
+	}
+}
@@ -10,18 +10,24 @@
 
 package baritone.cache;
 
+import static baritone.utils.BlockStateInterface.getFromChunk;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import com.google.common.collect.ImmutableSet;
 import baritone.api.utils.BlockUtils;
 import baritone.utils.pathing.PathingBlockType;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.WorldChunk;
 
 /**
  * @author Brady
@@ -47,6 +53,11 @@ public final class CachedChunk {
 	 */
 	public static final int SIZE_IN_BYTES = SIZE / 8;
 
+	/**
+	 * A section fingerprint that doesn't match anything, for sections that have to be packed again next time no matter what
+	 */
+	public static final long UNKNOWN_SECTION = 0;
+
 	/**
 	 * Returns the raw bit index of the specified position
 	 *
@@ -60,15 +71,11 @@ public final class CachedChunk {
 	}
 
 	/**
-	 * Validates the size of an input {@link BitSet} containing the raw packed chunk data. Sizes that exceed {@link CachedChunk#SIZE} are considered invalid, and thus, an exception will be thrown.
-	 *
-	 * @param data The raw data
-	 * @throws IllegalArgumentException if the bitset size exceeds the maximum size
+	 * Where the word with this bit index is in its section
 	 */
-	private static void validateSize(BitSet data) {
-		if (data.size() > SIZE)
-			throw new IllegalArgumentException("BitSet of invalid length provided");
-	}
+	private static final int WORD_MASK = PackedSection.WORDS - 1;
+
+	private static final PathingBlockType[] TYPES_BY_BITS = { PathingBlockType.AIR, PathingBlockType.AVOID, PathingBlockType.WATER, PathingBlockType.SOLID };
 
 	/**
 	 * The chunk x coordinate
@@ -81,42 +88,236 @@ public final class CachedChunk {
 	public final int z;
 
 	/**
-	 * The actual raw data of this packed chunk.
+	 * The actual raw data of this packed chunk, bottom to top.
 	 * <p>
-	 * Each block is expressed as 2 bits giving a total of 16 KiB
+	 * Each block is expressed as 2 bits, 1 KiB per section, except that sections can be shared, see {@link PackedSection}
 	 */
-	private final BitSet data;
+	private final PackedSection[] sections;
 
-	private final Int2ObjectOpenHashMap<String> special;
+	/**
+	 * The special blocks, sorted, one int each: the position packed into the top 16 bits (y << 8 | z << 4 | x) and its number in {@link #palette} in the bottom 16
+	 */
+	private final int[] special;
 
 	/**
-	 * The block names of each surface level block for generating an overview
+	 * What the numbers in {@link #overview} and {@link #special} refer to, shared with the rest of the region
 	 */
-	private final BlockState[] overview;
+	private final BlockStatePalette palette;
 
-	private final int[] heightMap;
+	/**
+	 * The {@link #palette} number of each surface level block for generating an overview
+	 */
+	private final short[] overview;
 
-	private final Map<String, List<BlockPos>> specialBlockLocations;
+	/**
+	 * Unsigned
+	 */
+	private final byte[] heightMap;
 
 	public final long cacheTimestamp;
 
-	CachedChunk(int x, int z, BitSet data, BlockState[] overview, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp) {
-		validateSize(data);
+	/**
+	 * The {@link ChunkPacker#fingerprints} of the loaded chunk's sections when this was packed, or null if they aren't known (it came from disk)
+	 */
+	private final long[] sectionFingerprints;
 
+	CachedChunk(int x, int z, PackedSection[] sections, BlockStatePalette palette, short[] overview, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp) {
+		this(x, z, sections, palette, overview, specialBlockLocations, cacheTimestamp, null);
+	}
+
+	CachedChunk(int x, int z, PackedSection[] sections, BlockStatePalette palette, short[] overview, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp, long[] sectionFingerprints) {
+		this(x, z, sections, palette, overview, new byte[256], packSpecial(specialBlockLocations, palette), cacheTimestamp, sectionFingerprints);
+		calculateHeightMap();
+	}
+
+	private CachedChunk(int x, int z, PackedSection[] sections, BlockStatePalette palette, short[] overview, byte[] heightMap, int[] special, long cacheTimestamp, long[] sectionFingerprints) {
+		if (sections.length != 16)
+			throw new IllegalArgumentException("Wrong number of sections " + sections.length);
 		this.x = x;
 		this.z = z;
-		this.data = data;
+		this.sections = sections;
+		this.palette = palette;
 		this.overview = overview;
-		heightMap = new int[256];
-		this.specialBlockLocations = specialBlockLocations;
+		this.heightMap = heightMap;
+		this.special = special;
 		this.cacheTimestamp = cacheTimestamp;
-		if (specialBlockLocations.isEmpty()) {
-			special = null;
-		} else {
-			special = new Int2ObjectOpenHashMap<>();
-			setSpecial();
+		this.sectionFingerprints = sectionFingerprints;
+	}
+
+	private static int[] packSpecial(Map<String, List<BlockPos>> specialBlockLocations, BlockStatePalette palette) {
+		int count = 0;
+		for (List<BlockPos> positions : specialBlockLocations.values()) {
+			count += positions.size();
 		}
-		calculateHeightMap();
+		if (count == 0)
+			return null;
+		int[] special = new int[count];
+		int i = 0;
+		for (Map.Entry<String, List<BlockPos>> entry : specialBlockLocations.entrySet()) {
+			int id = palette.idOf(BlockUtils.stringToBlockRequired(entry.getKey()).getDefaultState());
+			for (BlockPos pos : entry.getValue()) {
+				special[i++] = specialPosition(pos.getX(), pos.getY(), pos.getZ()) << 16 | id;
+			}
+		}
+		// sorted as signed ints, which still keeps each position's entries together and in order among themselves
+		Arrays.sort(special);
+		return special;
+	}
+
+	private static int specialPosition(int x, int y, int z) {
+		return y << 8 | z << 4 | x;
+	}
+
+	/**
+	 * @return The palette number of the special block here, -1 if there isn't one
+	 */
+	private int specialId(int x, int y, int z) {
+		if (special == null)
+			return -1;
+		int position = specialPosition(x, y, z);
+		int i = Arrays.binarySearch(special, position << 16);
+		if (i < 0) {
+			i = -i - 1;
+		}
+		if (i < special.length && special[i] >>> 16 == position)
+			return special[i] & 0xffff;
+		return -1;
+	}
+
+	/**
+	 * Packs just these blocks again from the loaded chunk, instead of the whole thing. Also repacks the blocks next to each one, since whether water counts as usable depends on whether what's next to it is flowing, and then fixes
+	 * up the height map and overview of every column that was touched.
+	 * <p>
+	 * Searches read cached chunks without locking anything, so this doesn't change this chunk, it returns a patched copy to put in its place. The sections that were touched lose their fingerprints, so they're packed in
+	 * full next time in case anything else in them changed without being patched.
+	 *
+	 * @param chunk     The loaded chunk, which already has the changes
+	 * @param positions The positions that changed, only the low 4 bits of x and z are used
+	 * @return The patched copy
+	 */
+	CachedChunk patched(WorldChunk chunk, Collection<BlockPos> positions) {
+		PackedSection[] sections = this.sections.clone();
+		long[][] modified = new long[16][];
+		short[] overview = this.overview.clone();
+		byte[] heightMap = this.heightMap.clone();
+		Map<String, List<BlockPos>> specialBlockLocations = null; // only unpacked if a special block changes
+		long[] sectionFingerprints = this.sectionFingerprints == null ? null : this.sectionFingerprints.clone();
+		boolean[] columns = new boolean[256];
+		for (BlockPos pos : positions) {
+			int x = pos.getX() & 15;
+			int y = pos.getY();
+			int z = pos.getZ() & 15;
+			if (y < 0 || y >= 256) {
+				continue;
+			}
+			if (sectionFingerprints != null) {
+				sectionFingerprints[y >> 4] = UNKNOWN_SECTION;
+			}
+			repack(sections, modified, chunk, x, y, z, columns);
+			if (x != 15) {
+				repack(sections, modified, chunk, x + 1, y, z, columns);
+			}
+			if (x != 0) {
+				repack(sections, modified, chunk, x - 1, y, z, columns);
+			}
+			if (z != 15) {
+				repack(sections, modified, chunk, x, y, z + 1, columns);
+			}
+			if (z != 0) {
+				repack(sections, modified, chunk, x, y, z - 1, columns);
+			}
+
+			int oldId = specialId(x, y, z);
+			String oldName = oldId < 0 ? null : palette.name(oldId);
+			Block block = getFromChunk(chunk, x, y, z).getBlock();
+			String newName = BLOCKS_TO_KEEP_TRACK_OF.contains(block) ? BlockUtils.blockToString(block) : null;
+			if (Objects.equals(oldName, newName)) {
+				continue;
+			}
+			if (specialBlockLocations == null) {
+				specialBlockLocations = getRelativeBlocks();
+			}
+			BlockPos relative = new BlockPos(x, y, z);
+			if (oldName != null) {
+				List<BlockPos> list = specialBlockLocations.get(oldName);
+				list.remove(relative);
+				if (list.isEmpty()) {
+					specialBlockLocations.remove(oldName);
+				}
+			}
+			if (newName != null) {
+				specialBlockLocations.computeIfAbsent(newName, b -> new ArrayList<>()).add(relative);
+			}
+		}
+		for (int section = 0; section < 16; section++) {
+			if (modified[section] != null) {
+				sections[section] = PackedSection.of(modified[section], 0);
+			}
+		}
+		for (int column = 0; column < 256; column++) {
+			if (!columns[column]) {
+				continue;
+			}
+			int x = column & 15;
+			int z = column >> 4;
+			// the same as calculateHeightMap and the overview in ChunkPacker.pack, for just this column
+			heightMap[column] = 0;
+			BlockState top = Blocks.AIR.getDefaultState();
+			for (int y = 255; y >= 0; y--) {
+				if (bits(sections, getPositionIndex(x, y, z)) != 0) {
+					heightMap[column] = (byte) y;
+					top = getFromChunk(chunk, x, y, z);
+					break;
+				}
+			}
+			overview[column] = (short) palette.idOf(top);
+		}
+		int[] special = specialBlockLocations == null ? this.special : packSpecial(specialBlockLocations, palette);
+		return new CachedChunk(this.x, this.z, sections, palette, overview, heightMap, special, System.currentTimeMillis(), sectionFingerprints);
+	}
+
+	private static void repack(PackedSection[] sections, long[][] modified, WorldChunk chunk, int x, int y, int z, boolean[] columns) {
+		int section = y >> 4;
+		if (modified[section] == null) {
+			// sections are shared, so never modify one in place
+			modified[section] = sections[section].words.clone();
+		}
+		long[] words = modified[section];
+		int index = getPositionIndex(x, y, z);
+		int word = index >> 6 & WORD_MASK;
+		long bits = ChunkPacker.getPathingBlockType(getFromChunk(chunk, x, y, z), chunk, x, y, z).getWordBits();
+		words[word] = words[word] & ~(3L << (index & 63)) | bits << (index & 63);
+		columns[z << 4 | x] = true;
+	}
+
+	/**
+	 * @return Whether this has the same pathing types and heights as {@code other}, which is all that {@link ChunkGraph} and so the landmark tables look at
+	 */
+	boolean sameContents(CachedChunk other) {
+		return Arrays.equals(heightMap, other.heightMap) && Arrays.equals(sections, other.sections);
+	}
+
+	/**
+	 * @return The same chunk, cached again at this time
+	 */
+	CachedChunk refreshed(long cacheTimestamp) {
+		return new CachedChunk(x, z, sections, palette, overview, heightMap, special, cacheTimestamp, sectionFingerprints);
+	}
+
+	/**
+	 * @param section     The section index, 0 to 15
+	 * @param fingerprint The loaded section's fingerprint now
+	 * @return Whether that section is the same as when this was packed, so what's here for it can be used as is
+	 */
+	boolean sectionUnchanged(int section, long fingerprint) {
+		return sectionFingerprints != null && sectionFingerprints[section] != UNKNOWN_SECTION && sectionFingerprints[section] == fingerprint;
+	}
+
+	/**
+	 * @param section The section index, 0 to 15
+	 */
+	PackedSection getSection(int section) {
+		return sections[section];
 	}
 
 	private void calculateHeightMap() {
@@ -124,10 +325,9 @@ public final class CachedChunk {
 			for (int x = 0; x < 16; x++) {
 				int index = z << 4 | x;
 				heightMap[index] = 0;
-				for (int y = 256; y >= 0; y--) {
-					int i = getPositionIndex(x, y, z);
-					if (data.get(i) || data.get(i + 1)) {
-						heightMap[index] = y;
+				for (int y = 255; y >= 0; y--) {
+					if (bits(sections, getPositionIndex(x, y, z)) != 0) {
+						heightMap[index] = (byte) y;
 						break;
 					}
 				}
@@ -136,11 +336,18 @@ public final class CachedChunk {
 	}
 
 	public ArrayList<BlockPos> getAbsoluteBlocks(String blockType) {
-		if (specialBlockLocations.get(blockType) == null)
+		if (special == null)
 			return null;
-		ArrayList<BlockPos> res = new ArrayList<>();
-		for (BlockPos pos : specialBlockLocations.get(blockType)) {
-			res.add(new BlockPos(pos.getX() + x * 16, pos.getY(), pos.getZ() + z * 16));
+		ArrayList<BlockPos> res = null;
+		for (int entry : special) {
+			if (!palette.name(entry & 0xffff).equals(blockType)) {
+				continue;
+			}
+			if (res == null) {
+				res = new ArrayList<>();
+			}
+			int position = entry >>> 16;
+			res.add(new BlockPos((position & 15) + x * 16, position >> 8, (position >> 4 & 15) + z * 16));
 		}
 		return res;
 	}
@@ -149,17 +356,15 @@ public final class CachedChunk {
 		int index = getPositionIndex(x, y, z);
 		PathingBlockType type = getType(index);
 		int internalPos = z << 4 | x;
-		if (heightMap[internalPos] == y && type != PathingBlockType.AVOID)
+		if ((heightMap[internalPos] & 0xff) == y && type != PathingBlockType.AVOID)
 			// we have this exact block, it's a surface block
 			/*
 			 * System.out.println("Saying that " + x + "," + y + "," + z + " is " + state); if (!Minecraft.getInstance().world.getBlockState(new BlockPos(x + this.x * 16, y, z + this.z * 16)).getBlock().equals(state.getBlock())) { throw new IllegalStateException("failed " + Minecraft.getInstance().world.getBlockState(new BlockPos(x + this.x * 16, y, z + this.z * 16)).getBlock() + " " + state.getBlock() + " " + (x + this.x * 16) + " " + y + " " + (z + this.z * 16)); }
 			 */
-			return overview[internalPos];
-		if (special != null) {
-			String str = special.get(index);
-			if (str != null)
-				return BlockUtils.stringToBlockRequired(str).getDefaultState();
-		}
+			return palette.get(overview[internalPos] & 0xffff);
+		int id = specialId(x, y, z);
+		if (id >= 0)
+			return palette.get(id);
 
 		if (type == PathingBlockType.SOLID) {
 			if (y == 127 && dimension == -1)
@@ -174,30 +379,111 @@ public final class CachedChunk {
 		return ChunkPacker.pathingTypeToBlock(type, dimension);
 	}
 
-	public BlockState[] getOverview() {
-		return overview;
+	/**
+	 * @param x The chunk relative x
+	 * @param z The chunk relative z
+	 * @return The y of the highest cached block that isn't air in this column, 0 if there is none
+	 */
+	public int getHeight(int x, int z) {
+		return heightMap[z << 4 | x] & 0xff;
 	}
 
+	/**
+	 * @return The pathing type of a chunk relative position, without turning it back into a block state like {@link #getBlock(int, int, int, int)}
+	 */
+	public PathingBlockType getPathingType(int x, int y, int z) {
+		return getType(getPositionIndex(x, y, z));
+	}
+
+	/**
+	 * @return The {@link #getPalette() palette} number of the surface block in this column, indexed z << 4 | x
+	 */
+	int getOverviewId(int column) {
+		return overview[column] & 0xffff;
+	}
+
+	BlockStatePalette getPalette() {
+		return palette;
+	}
+
+	/**
+	 * @return The special blocks by name, unpacked into a new map that's fine to modify
+	 */
 	public Map<String, List<BlockPos>> getRelativeBlocks() {
-		return specialBlockLocations;
+		Map<String, List<BlockPos>> locations = new HashMap<>();
+		if (special != null) {
+			for (int entry : special) {
+				int position = entry >>> 16;
+				locations.computeIfAbsent(palette.name(entry & 0xffff), b -> new ArrayList<>()).add(new BlockPos(position & 15, position >> 8, position >> 4 & 15));
+			}
+		}
+		return locations;
 	}
 
 	private PathingBlockType getType(int index) {
-		return PathingBlockType.fromBits(data.get(index), data.get(index + 1));
+		return TYPES_BY_BITS[bits(sections, index)];
 	}
 
-	private void setSpecial() {
-		for (Map.Entry<String, List<BlockPos>> entry : specialBlockLocations.entrySet()) {
-			for (BlockPos pos : entry.getValue()) {
-				special.put(getPositionIndex(pos.getX(), pos.getY(), pos.getZ()), entry.getKey());
+	private static int bits(PackedSection[] sections, int index) {
+		// index is always even, so both bits are always in the same word
+		return (int) (sections[index >> 13].words[index >> 6 & WORD_MASK] >>> (index & 63)) & 3;
+	}
+
+	/**
+	 * @param counted Sections that were already counted for another chunk, anything shared is only counted once. Sections counted here are added to it.
+	 * @return Roughly how many bytes of heap this takes up
+	 */
+	long heapBytes(Set<PackedSection> counted) {
+		long bytes = 64 // this
+				+ 16 + 16 * 4 // sections
+				+ 16 + 256 * 2 // overview
+				+ 16 + 256 // height map
+				+ (special == null ? 0 : 16 + special.length * 4) + (sectionFingerprints == null ? 0 : 16 + 16 * 8);
+		for (PackedSection section : sections) {
+			if (!section.isUniform() && counted.add(section)) {
+				bytes += PackedSection.HEAP_BYTES;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return Roughly how many bytes of heap this took up the way it used to be kept: a full bit set, an array of block states, an int height map, and every special block as a {@link BlockPos} in a list in a map, indexed by
+	 *         position in another map
+	 */
+	long unpackedHeapBytes() {
+		int numSpecial = special == null ? 0 : special.length;
+		int numSpecialTypes = 0;
+		if (numSpecial != 0) {
+			// without building the map, this is only for measuring memory after all
+			int[] ids = new int[numSpecial];
+			for (int i = 0; i < numSpecial; i++) {
+				ids[i] = special[i] & 0xffff;
+			}
+			Arrays.sort(ids);
+			for (int i = 0; i < numSpecial; i++) {
+				if (i == 0 || ids[i] != ids[i - 1]) {
+					numSpecialTypes++;
+				}
 			}
 		}
+		return 64 // this
+				+ 16 + 16 + SIZE_IN_BYTES // the bit set and its words
+				+ 16 + 256 * 4 // overview
+				+ 16 + 256 * 4 // height map
+				+ 48 + numSpecialTypes * (32 + 40) // the map of names, an entry and a list each
+				+ numSpecial * (24 + 4) // a block pos and its slot in the list
+				+ (numSpecial == 0 ? 0 : 64 + numSpecial * 2 * (4 + 4)); // the index by position, kept about half full
 	}
 
 	/**
-	 * @return Returns the raw packed chunk data as a byte array
+	 * @return Returns the raw packed chunk data as a byte array, in the same layout as a {@link BitSet} with all the sections one after another
 	 */
 	public byte[] toByteArray() {
-		return data.toByteArray();
+		long[] words = new long[SIZE / 64];
+		for (int i = 0; i < 16; i++) {
+			System.arraycopy(sections[i].words, 0, words, i * PackedSection.WORDS, PackedSection.WORDS);
+		}
+		return BitSet.valueOf(words).toByteArray();
 	}
 }
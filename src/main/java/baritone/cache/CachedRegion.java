@@ -10,26 +10,45 @@
 
 package baritone.cache;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 import baritone.Baritone;
 import baritone.api.cache.ICachedRegion;
+import baritone.api.utils.Helper;
 import baritone.api.utils.BlockUtils;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.WorldChunk;
 
 /**
  * @author Brady
@@ -42,18 +61,123 @@ public final class CachedRegion implements ICachedRegion {
 
 	/**
 	 * Magic value to detect invalid cache files, or incompatible cache files saved in an old version of Baritone
+	 * <p>
+	 * This is the old format, the whole file gzipped and every chunk decoded on load. It's still read, and rewritten in the {@link #CACHED_REGION_MAGIC_V2} format on the next save.
 	 */
 	private static final int CACHED_REGION_MAGIC = 456022910;
 
+	/**
+	 * The current format, not gzipped as a whole so that it can be memory mapped:
+	 * <ul>
+	 * <li>this magic value as an int</li>
+	 * <li>the block name palette, an unsigned short count and then each name as an unsigned short length and that many UTF-8 bytes</li>
+	 * <li>the chunk table, for each of the 1024 chunks in x major order an int offset into the file (0 if the chunk isn't present), an int length, and the long cache timestamp</li>
+	 * <li>each present chunk, deflated on its own: an int length and the packed {@link BitSet} bytes, 256 unsigned short palette indices for the overview, and the special block locations with palette indices instead of names</li>
+	 * </ul>
+	 * Loading only reads the palette and the chunk table, each chunk is inflated the first time something asks for it.
+	 */
+	private static final int CACHED_REGION_MAGIC_V2 = CACHED_REGION_MAGIC + 1;
+
+	private static final int CHUNK_TABLE_ENTRY_SIZE = 4 + 4 + 8;
+
 	private static Path getRegionFile(Path cacheDir, int regionX, int regionZ) {
 		return Paths.get(cacheDir.toString(), "r." + regionX + "." + regionZ + ".bcr");
 	}
 
+	static boolean existsOnDisk(String directory, int regionX, int regionZ) {
+		return Files.exists(getRegionFile(Paths.get(directory), regionX, regionZ));
+	}
+
+	/**
+	 * Unmaps a buffer from {@link FileChannel#map} right away instead of whenever it gets garbage collected. On Windows a file can't be replaced while it's mapped, so this has to happen before every save. {@code null} if this
+	 * JVM doesn't let us, then region files are read into the heap instead.
+	 * <p>
+	 * Reading from a buffer after it's unmapped crashes the JVM, not just the thread, hence {@link #mapped} only being touched under the monitor.
+	 */
+	private static final Unmapper UNMAP = findUnmapper();
+
+	private interface Unmapper {
+
+		void unmap(ByteBuffer buffer) throws Exception;
+	}
+
+	private static Unmapper findUnmapper() {
+		try {
+			// java 9 and up
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			Object unsafe = theUnsafe.get(null);
+			return buffer -> invokeCleaner.invoke(unsafe, buffer);
+		} catch (Throwable ignored) {
+		}
+		try {
+			// java 8
+			Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+			Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			return buffer -> clean.invoke(cleaner.invoke(buffer));
+		} catch (Throwable ignored) {
+		}
+		Helper.HELPER.logDebug("Can't unmap files on this JVM, region files will be read into memory instead");
+		return null;
+	}
+
+	private static ByteBuffer map(Path regionFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(regionFile, StandardOpenOption.READ)) {
+			if (UNMAP != null)
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+			}
+			buffer.flip();
+			return buffer;
+		}
+	}
+
+	/**
+	 * Drops {@link #mapped} and unmaps it. Callers deal with {@link #chunkOffsets} that point into it.
+	 */
+	private void unmap() {
+		ByteBuffer buffer = mapped;
+		mapped = null;
+		if (buffer == null || !buffer.isDirect())
+			return;
+		try {
+			UNMAP.unmap(buffer);
+		} catch (Exception ex) {
+			// it's still unmapped once it gets garbage collected
+			ex.printStackTrace();
+		}
+	}
+
 	/**
 	 * All of the chunks in this region: A 32x32 array of them.
+	 * <p>
+	 * A chunk that's on disk but hasn't been decoded yet is {@code null} here and has a non zero {@link #chunkOffsets} entry.
 	 */
 	private final CachedChunk[][] chunks = new CachedChunk[32][32];
 
+	/**
+	 * The region file as of the last load or save, {@code null} if there isn't one in the current format. Memory mapped if {@link #UNMAP} works on this JVM, otherwise read into the heap. Only touched while holding this
+	 * region's monitor, so that it can be unmapped out from under nothing.
+	 */
+	private ByteBuffer mapped;
+
+	/**
+	 * Where each chunk not decoded yet is in {@link #mapped}, indexed x << 5 | z. 0 once it's decoded, replaced, expired, or if it was never there.
+	 */
+	private final int[] chunkOffsets = new int[1024];
+
+	private final int[] chunkLengths = new int[1024];
+
+	private final long[] chunkTimestamps = new long[1024];
+
+	/**
+	 * What palette numbers in {@link #mapped} and in chunks stored here refer to. Saving only ever appends to this, so chunks copied over without decoding stay valid, unless it has to start over with a fresh one (see {@link BlockStatePalette#hasDuplicates}).
+	 */
+	private BlockStatePalette palette = new BlockStatePalette();
+
 	/**
 	 * The region x coordinate
 	 */
@@ -71,6 +195,21 @@ public final class CachedRegion implements ICachedRegion {
 	 */
 	private boolean hasUnsavedChanges;
 
+	/**
+	 * When a search last looked something up in this region, or when it was loaded if nothing has yet. {@link CachedWorld} drops the least recently used regions first when they take up too much memory.
+	 */
+	private volatile long lastAccess = System.currentTimeMillis();
+
+	/**
+	 * Set once this region is dropped from memory, see {@link #release}
+	 */
+	private volatile boolean released;
+
+	/**
+	 * Was the last load from a file in the old {@link #CACHED_REGION_MAGIC} format
+	 */
+	private boolean loadedLegacyFormat;
+
 	CachedRegion(int x, int z, int dimension) {
 		this.x = x;
 		this.z = z;
@@ -80,20 +219,50 @@ public final class CachedRegion implements ICachedRegion {
 
 	@Override
 	public BlockState getBlock(int x, int y, int z) {
-		CachedChunk chunk = chunks[x >> 4][z >> 4];
+		CachedChunk chunk = chunk(x >> 4, z >> 4);
 		if (chunk != null)
 			return chunk.getBlock(x & 15, y, z & 15, dimension);
 		return null;
 	}
 
+	/**
+	 * @param chunkX The region relative chunk x, 0 to 31
+	 * @param chunkZ The region relative chunk z, 0 to 31
+	 * @return The cached chunk, or {@code null} if it isn't cached
+	 */
+	public CachedChunk getChunk(int chunkX, int chunkZ) {
+		return chunk(chunkX, chunkZ);
+	}
+
+	private CachedChunk chunk(int chunkX, int chunkZ) {
+		CachedChunk chunk = chunks[chunkX][chunkZ];
+		if (chunk == null && chunkOffsets[chunkX << 5 | chunkZ] != 0)
+			return decode(chunkX, chunkZ);
+		return chunk;
+	}
+
+	private synchronized CachedChunk decode(int chunkX, int chunkZ) {
+		int index = chunkX << 5 | chunkZ;
+		if (chunks[chunkX][chunkZ] != null || chunkOffsets[index] == 0)
+			return chunks[chunkX][chunkZ];
+		try {
+			chunks[chunkX][chunkZ] = readChunk(chunkX, chunkZ);
+		} catch (Exception ex) { // same as load, a corrupted chunk is just not cached
+			ex.printStackTrace();
+		}
+		chunkOffsets[index] = 0;
+		return chunks[chunkX][chunkZ];
+	}
+
 	public ArrayList<BlockPos> getLocationsOf(String block) {
 		ArrayList<BlockPos> res = new ArrayList<>();
 		for (int chunkX = 0; chunkX < 32; chunkX++) {
 			for (int chunkZ = 0; chunkZ < 32; chunkZ++) {
-				if (chunks[chunkX][chunkZ] == null) {
+				CachedChunk chunk = chunk(chunkX, chunkZ);
+				if (chunk == null) {
 					continue;
 				}
-				ArrayList<BlockPos> locs = chunks[chunkX][chunkZ].getAbsoluteBlocks(block);
+				ArrayList<BlockPos> locs = chunk.getAbsoluteBlocks(block);
 				if (locs != null) {
 					res.addAll(locs);
 				}
@@ -120,7 +289,7 @@ public final class CachedRegion implements ICachedRegion {
 
 	@Override
 	public boolean isCached(int x, int z) {
-		return chunks[x >> 4][z >> 4] != null;
+		return chunks[x >> 4][z >> 4] != null || chunkOffsets[x >> 4 << 5 | z >> 4] != 0;
 	}
 
 	public synchronized void load(String directory) {
@@ -137,117 +306,218 @@ public final class CachedRegion implements ICachedRegion {
 			System.out.println("Loading region " + x + "," + z + " from disk " + path);
 			long start = System.nanoTime() / 1000000L;
 
-			try (FileInputStream fileIn = new FileInputStream(regionFile.toFile()); GZIPInputStream gzipIn = new GZIPInputStream(fileIn, 32768); DataInputStream in = new DataInputStream(gzipIn)) {
-				int magic = in.readInt();
-				if (magic != CACHED_REGION_MAGIC)
-					// in the future, if we change the format on disk
-					// we can keep converters for the old format
-					// by switching on the magic value, and either loading it normally, or loading through a converter.
-					throw new IOException("Bad magic value " + magic);
-				boolean[][] present = new boolean[32][32];
-				BitSet[][] bitSets = new BitSet[32][32];
-				Map<String, List<BlockPos>>[][] location = new Map[32][32];
-				BlockState[][][] overview = new BlockState[32][32][];
-				long[][] cacheTimestamp = new long[32][32];
-				for (int x = 0; x < 32; x++) {
-					for (int z = 0; z < 32; z++) {
-						int isChunkPresent = in.read();
-						switch (isChunkPresent) {
-							case CHUNK_PRESENT:
-								byte[] bytes = new byte[CachedChunk.SIZE_IN_BYTES];
-								in.readFully(bytes);
-								bitSets[x][z] = BitSet.valueOf(bytes);
-								location[x][z] = new HashMap<>();
-								overview[x][z] = new BlockState[256];
-								present[x][z] = true;
-								break;
-							case CHUNK_NOT_PRESENT:
-								break;
-							default:
-								throw new IOException("Malformed stream");
-						}
+			boolean legacy;
+			try (FileChannel channel = FileChannel.open(regionFile, StandardOpenOption.READ)) {
+				ByteBuffer magic = ByteBuffer.allocate(4);
+				while (magic.hasRemaining() && channel.read(magic, magic.position()) >= 0) {
+				}
+				legacy = magic.hasRemaining() || magic.getInt(0) != CACHED_REGION_MAGIC_V2;
+			}
+			if (!legacy) {
+				loadMapped(map(regionFile));
+			} else {
+				loadLegacy(regionFile);
+			}
+			loadedLegacyFormat = legacy;
+			removeExpired();
+			// rewrite old files in the current format next time we save
+			hasUnsavedChanges = legacy;
+			long end = System.nanoTime() / 1000000L;
+			System.out.println("Loaded region successfully in " + (end - start) + "ms");
+		} catch (Exception ex) { // corrupted files can cause NullPointerExceptions as well as IOExceptions
+			ex.printStackTrace();
+		}
+	}
+
+	private void loadMapped(ByteBuffer buffer) throws IOException {
+		buffer.getInt(); // magic, already checked
+		int paletteSize = buffer.getShort() & 0xffff;
+		List<String> names = new ArrayList<>(paletteSize);
+		for (int i = 0; i < paletteSize; i++) {
+			byte[] utf = new byte[buffer.getShort() & 0xffff];
+			buffer.get(utf);
+			names.add(new String(utf, StandardCharsets.UTF_8));
+		}
+		int[] offsets = new int[1024];
+		int[] lengths = new int[1024];
+		long[] timestamps = new long[1024];
+		for (int i = 0; i < 1024; i++) {
+			offsets[i] = buffer.getInt();
+			lengths[i] = buffer.getInt();
+			timestamps[i] = buffer.getLong();
+			if (offsets[i] < 0 || lengths[i] < 0 || (long) offsets[i] + lengths[i] > buffer.capacity())
+				throw new IOException("Malformed chunk table");
+		}
+		// only if the header was uncorrupted do we actually set anything
+		unmap();
+		mapped = buffer;
+		palette = BlockStatePalette.fromNames(names);
+		System.arraycopy(offsets, 0, chunkOffsets, 0, 1024);
+		System.arraycopy(lengths, 0, chunkLengths, 0, 1024);
+		System.arraycopy(timestamps, 0, chunkTimestamps, 0, 1024);
+		for (int i = 0; i < 1024; i++) {
+			if (offsets[i] != 0) {
+				// same as the old format, whatever's on disk replaces what we had, it'll be decoded again when needed
+				chunks[i >> 5][i & 31] = null;
+			}
+		}
+	}
+
+	private CachedChunk readChunk(int chunkX, int chunkZ) throws IOException {
+		int index = chunkX << 5 | chunkZ;
+		byte[] compressed = new byte[chunkLengths[index]];
+		ByteBuffer buffer = mapped.duplicate();
+		buffer.position(chunkOffsets[index]);
+		buffer.get(compressed);
+		try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+			int length = in.readInt();
+			if (length < 0 || length > CachedChunk.SIZE_IN_BYTES)
+				throw new IOException("Bad chunk data length " + length);
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			short[] overview = new short[256];
+			for (int i = 0; i < 256; i++) {
+				overview[i] = in.readShort();
+				if (palette.get(overview[i] & 0xffff) == null)
+					throw new IOException("Unknown block " + palette.name(overview[i] & 0xffff));
+			}
+			Map<String, List<BlockPos>> location = new HashMap<>();
+			int numSpecialBlockTypes = in.readShort() & 0xffff;
+			for (int i = 0; i < numSpecialBlockTypes; i++) {
+				String blockName = palette.name(in.readShort() & 0xffff);
+				List<BlockPos> locs = new ArrayList<>();
+				location.put(blockName, locs);
+				int numLocations = in.readShort() & 0xffff;
+				if (numLocations == 0) {
+					// an entire chunk full of air can happen in the end
+					numLocations = 65536;
+				}
+				for (int j = 0; j < numLocations; j++) {
+					byte xz = in.readByte();
+					int X = xz & 0x0f;
+					int Z = xz >>> 4 & 0x0f;
+					int Y = in.readByte() & 0xff;
+					locs.add(new BlockPos(X, Y, Z));
+				}
+			}
+			return new CachedChunk(chunkX + 32 * x, chunkZ + 32 * z, PackedSection.split(BitSet.valueOf(bytes).toLongArray()), palette, overview, location, chunkTimestamps[index]);
+		}
+	}
+
+	private void loadLegacy(Path regionFile) throws IOException {
+		try (FileInputStream fileIn = new FileInputStream(regionFile.toFile()); GZIPInputStream gzipIn = new GZIPInputStream(fileIn, 32768); DataInputStream in = new DataInputStream(gzipIn)) {
+			int magic = in.readInt();
+			if (magic != CACHED_REGION_MAGIC)
+				throw new IOException("Bad magic value " + magic);
+			boolean[][] present = new boolean[32][32];
+			BitSet[][] bitSets = new BitSet[32][32];
+			Map<String, List<BlockPos>>[][] location = new Map[32][32];
+			BlockState[][][] overview = new BlockState[32][32][];
+			long[][] cacheTimestamp = new long[32][32];
+			for (int x = 0; x < 32; x++) {
+				for (int z = 0; z < 32; z++) {
+					int isChunkPresent = in.read();
+					switch (isChunkPresent) {
+						case CHUNK_PRESENT:
+							byte[] bytes = new byte[CachedChunk.SIZE_IN_BYTES];
+							in.readFully(bytes);
+							bitSets[x][z] = BitSet.valueOf(bytes);
+							location[x][z] = new HashMap<>();
+							overview[x][z] = new BlockState[256];
+							present[x][z] = true;
+							break;
+						case CHUNK_NOT_PRESENT:
+							break;
+						default:
+							throw new IOException("Malformed stream");
 					}
 				}
-				for (int x = 0; x < 32; x++) {
-					for (int z = 0; z < 32; z++) {
-						if (present[x][z]) {
-							for (int i = 0; i < 256; i++) {
-								overview[x][z][i] = BlockUtils.stringToBlockRequired(in.readUTF()).getDefaultState();
-							}
+			}
+			for (int x = 0; x < 32; x++) {
+				for (int z = 0; z < 32; z++) {
+					if (present[x][z]) {
+						for (int i = 0; i < 256; i++) {
+							overview[x][z][i] = BlockUtils.stringToBlockRequired(in.readUTF()).getDefaultState();
 						}
 					}
 				}
-				for (int x = 0; x < 32; x++) {
-					for (int z = 0; z < 32; z++) {
-						if (present[x][z]) {
-							// 16 * 16 * 256 = 65536 so a short is enough
-							// ^ haha jokes on leijurv, java doesn't have unsigned types so that isn't correct
-							//   also why would you have more than 32767 special blocks in a chunk
-							// haha double jokes on you now it works for 65535 not just 32767
-							int numSpecialBlockTypes = in.readShort() & 0xffff;
-							for (int i = 0; i < numSpecialBlockTypes; i++) {
-								String blockName = in.readUTF();
-								BlockUtils.stringToBlockRequired(blockName);
-								List<BlockPos> locs = new ArrayList<>();
-								location[x][z].put(blockName, locs);
-								int numLocations = in.readShort() & 0xffff;
-								if (numLocations == 0) {
-									// an entire chunk full of air can happen in the end
-									numLocations = 65536;
-								}
-								for (int j = 0; j < numLocations; j++) {
-									byte xz = in.readByte();
-									int X = xz & 0x0f;
-									int Z = xz >>> 4 & 0x0f;
-									int Y = in.readByte() & 0xff;
-									locs.add(new BlockPos(X, Y, Z));
-								}
+			}
+			for (int x = 0; x < 32; x++) {
+				for (int z = 0; z < 32; z++) {
+					if (present[x][z]) {
+						// 16 * 16 * 256 = 65536 so a short is enough
+						// ^ haha jokes on leijurv, java doesn't have unsigned types so that isn't correct
+						//   also why would you have more than 32767 special blocks in a chunk
+						// haha double jokes on you now it works for 65535 not just 32767
+						int numSpecialBlockTypes = in.readShort() & 0xffff;
+						for (int i = 0; i < numSpecialBlockTypes; i++) {
+							String blockName = in.readUTF();
+							BlockUtils.stringToBlockRequired(blockName);
+							List<BlockPos> locs = new ArrayList<>();
+							location[x][z].put(blockName, locs);
+							int numLocations = in.readShort() & 0xffff;
+							if (numLocations == 0) {
+								// an entire chunk full of air can happen in the end
+								numLocations = 65536;
+							}
+							for (int j = 0; j < numLocations; j++) {
+								byte xz = in.readByte();
+								int X = xz & 0x0f;
+								int Z = xz >>> 4 & 0x0f;
+								int Y = in.readByte() & 0xff;
+								locs.add(new BlockPos(X, Y, Z));
 							}
 						}
 					}
 				}
-				for (int x = 0; x < 32; x++) {
-					for (int z = 0; z < 32; z++) {
-						if (present[x][z]) {
-							cacheTimestamp[x][z] = in.readLong();
-						}
+			}
+			for (int x = 0; x < 32; x++) {
+				for (int z = 0; z < 32; z++) {
+					if (present[x][z]) {
+						cacheTimestamp[x][z] = in.readLong();
 					}
 				}
-				// only if the entire file was uncorrupted do we actually set the chunks
-				for (int x = 0; x < 32; x++) {
-					for (int z = 0; z < 32; z++) {
-						if (present[x][z]) {
-							int regionX = this.x;
-							int regionZ = this.z;
-							int chunkX = x + 32 * regionX;
-							int chunkZ = z + 32 * regionZ;
-							chunks[x][z] = new CachedChunk(chunkX, chunkZ, bitSets[x][z], overview[x][z], location[x][z], cacheTimestamp[x][z]);
-						}
+			}
+			// only if the entire file was uncorrupted do we actually set the chunks
+			BlockStatePalette palette = new BlockStatePalette();
+			for (int x = 0; x < 32; x++) {
+				for (int z = 0; z < 32; z++) {
+					if (present[x][z]) {
+						int regionX = this.x;
+						int regionZ = this.z;
+						int chunkX = x + 32 * regionX;
+						int chunkZ = z + 32 * regionZ;
+						chunks[x][z] = new CachedChunk(chunkX, chunkZ, PackedSection.split(bitSets[x][z].toLongArray()), palette, palette.idsOf(overview[x][z]), location[x][z], cacheTimestamp[x][z]);
+						chunkOffsets[x << 5 | z] = 0;
 					}
 				}
 			}
-			removeExpired();
-			hasUnsavedChanges = false;
-			long end = System.nanoTime() / 1000000L;
-			System.out.println("Loaded region successfully in " + (end - start) + "ms");
-		} catch (Exception ex) { // corrupted files can cause NullPointerExceptions as well as IOExceptions
-			ex.printStackTrace();
+			this.palette = palette;
 		}
 	}
 
 	public synchronized CachedChunk mostRecentlyModified() {
-		CachedChunk recent = null;
+		long recentTimestamp = Long.MIN_VALUE;
+		int recent = -1;
 		for (int x = 0; x < 32; x++) {
 			for (int z = 0; z < 32; z++) {
-				if (chunks[x][z] == null) {
+				int index = x << 5 | z;
+				long timestamp;
+				if (chunks[x][z] != null) {
+					timestamp = chunks[x][z].cacheTimestamp;
+				} else if (chunkOffsets[index] != 0) {
+					timestamp = chunkTimestamps[index];
+				} else {
 					continue;
 				}
-				if (recent == null || chunks[x][z].cacheTimestamp > recent.cacheTimestamp) {
-					recent = chunks[x][z];
+				if (recent == -1 || timestamp > recentTimestamp) {
+					recent = index;
+					recentTimestamp = timestamp;
 				}
 			}
 		}
-		return recent;
+		// only decode the one we're returning
+		return recent == -1 ? null : chunk(recent >> 5, recent & 31);
 	}
 
 	public synchronized void removeExpired() {
@@ -258,9 +528,20 @@ public final class CachedRegion implements ICachedRegion {
 		long oldestAcceptableAge = now - expiry * 1000L;
 		for (int x = 0; x < 32; x++) {
 			for (int z = 0; z < 32; z++) {
-				if (chunks[x][z] != null && chunks[x][z].cacheTimestamp < oldestAcceptableAge) {
-					System.out.println("Removing chunk " + (x + 32 * this.x) + "," + (z + 32 * this.z) + " because it was cached " + (now - chunks[x][z].cacheTimestamp) / 1000L + " seconds ago, and max age is " + expiry);
+				int index = x << 5 | z;
+				long timestamp;
+				if (chunks[x][z] != null) {
+					timestamp = chunks[x][z].cacheTimestamp;
+				} else if (chunkOffsets[index] != 0) {
+					timestamp = chunkTimestamps[index];
+				} else {
+					continue;
+				}
+				if (timestamp < oldestAcceptableAge) {
+					System.out.println("Removing chunk " + (x + 32 * this.x) + "," + (z + 32 * this.z) + " because it was cached " + (now - timestamp) / 1000L + " seconds ago, and max age is " + expiry);
 					chunks[x][z] = null;
+					chunkOffsets[index] = 0;
+					hasUnsavedChanges = true;
 				}
 			}
 		}
@@ -278,67 +559,265 @@ public final class CachedRegion implements ICachedRegion {
 			}
 			System.out.println("Saving region " + x + "," + z + " to disk " + path);
 			Path regionFile = getRegionFile(path, x, z);
-			if (!Files.exists(regionFile)) {
-				Files.createFile(regionFile);
-			}
-			try (FileOutputStream fileOut = new FileOutputStream(regionFile.toFile()); GZIPOutputStream gzipOut = new GZIPOutputStream(fileOut, 16384); DataOutputStream out = new DataOutputStream(gzipOut)) {
-				out.writeInt(CACHED_REGION_MAGIC);
-				for (int x = 0; x < 32; x++) {
-					for (int z = 0; z < 32; z++) {
-						CachedChunk chunk = chunks[x][z];
-						if (chunk == null) {
-							out.write(CHUNK_NOT_PRESENT);
-						} else {
-							out.write(CHUNK_PRESENT);
-							byte[] chunkBytes = chunk.toByteArray();
-							out.write(chunkBytes);
-							// Messy, but fills the empty 0s that should be trailing to fill up the space.
-							out.write(new byte[CachedChunk.SIZE_IN_BYTES - chunkBytes.length]);
-						}
+			Path tempFile = regionFile.resolveSibling(regionFile.getFileName() + ".tmp");
+			byte[][] blobs = new byte[1024][];
+			int[] offsets = new int[1024];
+			long[] timestamps = new long[1024];
+			// a palette saved back when states were numbered instead of blocks can have the same block several times over, start over with a fresh one so it stops growing. that means decoding everything to renumber it
+			BlockStatePalette palette = this.palette.hasDuplicates() ? new BlockStatePalette() : this.palette;
+			for (int x = 0; x < 32; x++) {
+				for (int z = 0; z < 32; z++) {
+					int index = x << 5 | z;
+					CachedChunk chunk = palette == this.palette ? chunks[x][z] : chunk(x, z);
+					if (chunk != null) {
+						blobs[index] = writeChunk(chunk, palette);
+						timestamps[index] = chunk.cacheTimestamp;
+					} else if (chunkOffsets[index] != 0) {
+						// never decoded, so it can't have changed, copy it over as is
+						blobs[index] = new byte[chunkLengths[index]];
+						ByteBuffer buffer = mapped.duplicate();
+						buffer.position(chunkOffsets[index]);
+						buffer.get(blobs[index]);
+						timestamps[index] = chunkTimestamps[index];
 					}
 				}
-				for (int x = 0; x < 32; x++) {
-					for (int z = 0; z < 32; z++) {
-						if (chunks[x][z] != null) {
-							for (int i = 0; i < 256; i++) {
-								out.writeUTF(BlockUtils.blockToString(chunks[x][z].getOverview()[i].getBlock()));
-							}
-						}
+			}
+			// after writing the chunks, which can add to it
+			List<String> names = palette.names();
+			if (names.size() > 0xffff)
+				throw new IOException("Too many block names in region palette");
+			try (FileOutputStream fileOut = new FileOutputStream(tempFile.toFile()); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 65536))) {
+				out.writeInt(CACHED_REGION_MAGIC_V2);
+				out.writeShort(names.size());
+				int offset = 4 + 2;
+				for (String name : names) {
+					byte[] utf = name.getBytes(StandardCharsets.UTF_8);
+					out.writeShort(utf.length);
+					out.write(utf);
+					offset += 2 + utf.length;
+				}
+				offset += 1024 * CHUNK_TABLE_ENTRY_SIZE;
+				for (int i = 0; i < 1024; i++) {
+					if (blobs[i] == null) {
+						out.writeInt(0);
+						out.writeInt(0);
+						out.writeLong(0);
+					} else {
+						out.writeInt(offset);
+						out.writeInt(blobs[i].length);
+						out.writeLong(timestamps[i]);
+						offsets[i] = offset;
+						offset += blobs[i].length;
 					}
 				}
-				for (int x = 0; x < 32; x++) {
-					for (int z = 0; z < 32; z++) {
-						if (chunks[x][z] != null) {
-							Map<String, List<BlockPos>> locs = chunks[x][z].getRelativeBlocks();
-							out.writeShort(locs.entrySet().size());
-							for (Map.Entry<String, List<BlockPos>> entry : locs.entrySet()) {
-								out.writeUTF(entry.getKey());
-								out.writeShort(entry.getValue().size());
-								for (BlockPos pos : entry.getValue()) {
-									out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
-									out.writeByte((byte) pos.getY());
-								}
-							}
-						}
+				for (byte[] blob : blobs) {
+					if (blob != null) {
+						out.write(blob);
 					}
 				}
-				for (int x = 0; x < 32; x++) {
-					for (int z = 0; z < 32; z++) {
-						if (chunks[x][z] != null) {
-							out.writeLong(chunks[x][z].cacheTimestamp);
-						}
+			}
+			// the chunks that aren't decoded yet were copied out above, and on windows the old file can't be replaced while it's still mapped
+			boolean wasMapped = mapped != null;
+			unmap();
+			try {
+				try {
+					Files.move(tempFile, regionFile, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException ex) {
+					Files.move(tempFile, regionFile, StandardCopyOption.REPLACE_EXISTING);
+				}
+				// the chunks that still aren't decoded now get read from where they are in the new file
+				for (int i = 0; i < 1024; i++) {
+					if (chunkOffsets[i] != 0) {
+						chunkOffsets[i] = offsets[i];
+						chunkLengths[i] = blobs[i].length;
 					}
 				}
+				this.palette = palette;
+				hasUnsavedChanges = false;
+			} finally {
+				// if the file couldn't be replaced, this is the old one again, which the offsets still point into
+				remap(regionFile, wasMapped);
 			}
-			hasUnsavedChanges = false;
 			System.out.println("Saved region successfully");
 		} catch (Exception ex) {
 			ex.printStackTrace();
 		}
 	}
 
-	public synchronized void updateCachedChunk(int chunkX, int chunkZ, CachedChunk chunk) {
+	/**
+	 * Maps the region file again after a save, or forgets about the chunks that weren't decoded yet if it can't be
+	 */
+	private void remap(Path regionFile, boolean wasMapped) {
+		if (!wasMapped)
+			return; // nothing left to decode
+		try {
+			mapped = map(regionFile);
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			Arrays.fill(chunkOffsets, 0);
+		}
+	}
+
+	/**
+	 * Unmaps the region file, for when this region is dropped from memory. Chunks that weren't decoded yet are forgotten, if anything still has a reference to this region it just looks like they aren't cached, and nothing
+	 * can be stored in it anymore.
+	 */
+	public synchronized void release() {
+		released = true;
+		unmap();
+		Arrays.fill(chunkOffsets, 0);
+	}
+
+	/**
+	 * @return Whether this region was dropped from memory, anything holding on to it should get it from the world again
+	 */
+	public boolean isReleased() {
+		return released;
+	}
+
+	private static byte[] writeChunk(CachedChunk chunk, BlockStatePalette palette) throws IOException {
+		// a chunk packed before the region was last loaded from disk still has the palette from before that
+		BlockStatePalette chunkPalette = chunk.getPalette();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+			byte[] chunkBytes = chunk.toByteArray();
+			out.writeInt(chunkBytes.length);
+			out.write(chunkBytes);
+			for (int i = 0; i < 256; i++) {
+				int id = chunk.getOverviewId(i);
+				out.writeShort(chunkPalette == palette ? id : palette.idOf(chunkPalette.get(id)));
+			}
+			Map<String, List<BlockPos>> locs = chunk.getRelativeBlocks();
+			out.writeShort(locs.size());
+			for (Map.Entry<String, List<BlockPos>> entry : locs.entrySet()) {
+				out.writeShort(palette.idOf(BlockUtils.stringToBlockRequired(entry.getKey()).getDefaultState()));
+				out.writeShort(entry.getValue().size());
+				for (BlockPos pos : entry.getValue()) {
+					out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
+					out.writeByte((byte) pos.getY());
+				}
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Patches these blocks into the cached chunk from the loaded one, see {@link CachedChunk#patched}
+	 *
+	 * @return Whether there was a cached chunk there to patch
+	 */
+	public synchronized boolean patchCachedChunk(int chunkX, int chunkZ, WorldChunk chunk, Collection<BlockPos> positions) {
+		CachedChunk cached = chunk(chunkX, chunkZ);
+		if (cached == null || released)
+			return false;
+		updateCachedChunk(chunkX, chunkZ, cached.patched(chunk, positions));
+		return true;
+	}
+
+	/**
+	 * @return What chunks packed for this region should number their blocks by
+	 */
+	synchronized BlockStatePalette getPalette() {
+		return palette;
+	}
+
+	/**
+	 * @return Whether it was stored, false if this region was {@link #release released} in the meantime and the caller should get it again
+	 */
+	public synchronized boolean updateCachedChunk(int chunkX, int chunkZ, CachedChunk chunk) {
+		if (released)
+			return false;
 		chunks[chunkX][chunkZ] = chunk;
+		chunkOffsets[chunkX << 5 | chunkZ] = 0;
 		hasUnsavedChanges = true;
+		return true;
+	}
+
+	/**
+	 * Like {@link #updateCachedChunk}, but for a chunk that's the same as what's already here apart from its timestamp, see {@link CachedChunk#refreshed}. That alone isn't worth saving the whole region for, so it doesn't
+	 * count as a change. The new timestamp is saved along with whatever changes next, until then it only keeps the chunk from expiring in memory.
+	 */
+	public synchronized boolean refreshCachedChunk(int chunkX, int chunkZ, CachedChunk chunk) {
+		if (released)
+			return false;
+		chunks[chunkX][chunkZ] = chunk;
+		chunkOffsets[chunkX << 5 | chunkZ] = 0;
+		return true;
+	}
+
+	/**
+	 * @return Whether the last {@link #load(String)} read a file in the old gzip format
+	 */
+	public boolean wasLoadedFromLegacyFormat() {
+		return loadedLegacyFormat;
+	}
+
+	/**
+	 * Marks this region as just used, see {@link #lastAccess}. Called by {@link baritone.utils.BlockStateInterface} when it starts looking in this region and every few thousand lookups after that, and it only writes when the time has actually moved on.
+	 */
+	public void touch() {
+		long now = System.currentTimeMillis();
+		if (lastAccess != now) {
+			lastAccess = now;
+		}
+	}
+
+	public long getLastAccess() {
+		return lastAccess;
+	}
+
+	public synchronized boolean hasUnsavedChanges() {
+		return hasUnsavedChanges;
+	}
+
+	/**
+	 * @return Roughly how many bytes of heap the decoded chunks and bookkeeping of this region take up, not counting the memory mapped file which the OS pages in and out as it likes
+	 */
+	public synchronized long estimatedHeapBytes() {
+		long bytes = 1024L * (4 + 4 + 8);
+		if (mapped != null && !mapped.isDirect()) {
+			bytes += mapped.capacity(); // read into the heap instead
+		}
+		Set<PackedSection> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int x = 0; x < 32; x++) {
+			for (int z = 0; z < 32; z++) {
+				if (chunks[x][z] != null) {
+					bytes += chunks[x][z].heapBytes(counted);
+				}
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Adds up how much heap the chunks of this region that are decoded take up, and how much they would have the old way, see {@link CachedChunk#heapBytes} and {@link CachedChunk#unpackedHeapBytes}. Doesn't decode anything,
+	 * chunks that are still only in the region file are counted separately.
+	 *
+	 * @param counted Sections already counted for another region, shared ones are only counted once
+	 * @return The number of decoded chunks, their heap bytes now, their heap bytes the old way, the number of chunks not decoded yet, and how many bytes those are packed in the region file
+	 */
+	public synchronized long[] measureChunks(Set<PackedSection> counted) {
+		long[] result = new long[5];
+		for (int x = 0; x < 32; x++) {
+			for (int z = 0; z < 32; z++) {
+				CachedChunk chunk = chunks[x][z];
+				if (chunk != null) {
+					result[0]++;
+					result[1] += chunk.heapBytes(counted);
+					result[2] += chunk.unpackedHeapBytes();
+				} else if (chunkOffsets[x << 5 | z] != 0) {
+					result[3]++;
+					result[4] += chunkLengths[x << 5 | z];
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return How many bytes of the region file are memory mapped
+	 */
+	public synchronized long mappedBytes() {
+		return mapped == null || !mapped.isDirect() ? 0 : mapped.capacity();
 	}
 }
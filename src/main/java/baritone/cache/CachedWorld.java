@@ -13,18 +13,36 @@ package baritone.cache;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import baritone.Baritone;
 import baritone.api.BaritoneAPI;
 import baritone.api.IBaritone;
 import baritone.api.cache.ICachedWorld;
 import baritone.api.cache.IWorldData;
 import baritone.api.utils.Helper;
+import baritone.pathing.movement.MovementHelper;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.EmptyChunk;
 import net.minecraft.world.chunk.WorldChunk;
 
 /**
@@ -37,28 +55,51 @@ public final class CachedWorld implements ICachedWorld, Helper {
 
 		@Override
 		public void run() {
+			List<WorldChunk> batch = new ArrayList<>(PACKING_BATCH_SIZE);
 			while (true) {
-				// TODO: Add CachedWorld unloading to remove the redundancy of having this
-				LinkedBlockingQueue<WorldChunk> queue = toPack;
-				if (queue == null) {
-					break;
-				}
 				try {
-					WorldChunk chunk = queue.take();
-					CachedChunk cached = ChunkPacker.pack(chunk);
-					updateCachedChunk(cached);
-					//System.out.println("Processed chunk at " + chunk.x + "," + chunk.z);
+					synchronized (toPack) {
+						while (!takeBatch(batch)) {
+							toPack.wait();
+						}
+					}
+					for (WorldChunk chunk : batch) {
+						try {
+							packAndStore(chunk);
+						} catch (Throwable th) {
+							// in the case of an exception, keep going with the rest of the batch so as not to lose them
+							th.printStackTrace();
+						} finally {
+							donePacking(chunk);
+						}
+					}
 				} catch (InterruptedException e) {
 					e.printStackTrace();
 					break;
-				} catch (Throwable th) {
-					// in the case of an exception, keep consuming from the queue so as not to leak memory
-					th.printStackTrace();
+				} finally {
+					batch.clear();
 				}
 			}
 		}
 	}
 
+	/**
+	 * How many chunks a packer thread takes off the queue at once
+	 */
+	private static final int PACKING_BATCH_SIZE = 16;
+
+	private static final long PACKING_STATS_INTERVAL_MS = 10000;
+
+	/**
+	 * How often to check whether the regions in memory are over {@link baritone.api.Settings#cachedRegionMemoryBudget}
+	 */
+	private static final long EVICTION_CHECK_INTERVAL_MS = 5000;
+
+	/**
+	 * A region a search looked at more recently than this isn't evicted, even if that leaves us over budget, otherwise a search spread over more regions than fit would keep evicting and reloading them
+	 */
+	private static final long EVICTION_MIN_IDLE_MS = 30000;
+
 	/**
 	 * The maximum number of regions in any direction from (0,0)
 	 */
@@ -74,10 +115,63 @@ public final class CachedWorld implements ICachedWorld, Helper {
 	 */
 	private final String directory;
 
-	private final LinkedBlockingQueue<WorldChunk> toPack = new LinkedBlockingQueue<>();
+	/**
+	 * Chunks waiting to be packed, oldest first, keyed by chunk position so that a chunk queued again before it's packed is only packed once, from its latest copy. Also the monitor that the packer threads wait on.
+	 */
+	private final LinkedHashMap<Long, WorldChunk> toPack = new LinkedHashMap<>();
+
+	/**
+	 * Chunks a packer thread has taken off the queue and hasn't stored yet. Guarded by {@link #toPack}.
+	 */
+	private final LongOpenHashSet packing = new LongOpenHashSet();
+
+	/**
+	 * Chunks to pack from scratch the next time they're packed, even if none of their own sections changed, see {@link #neighboursChanged}. Guarded by {@link #toPack}.
+	 */
+	private final LongOpenHashSet packFromScratch = new LongOpenHashSet();
+
+	private final AtomicInteger packed = new AtomicInteger();
+	private final AtomicInteger packedOnCaller = new AtomicInteger();
+	private final AtomicInteger duplicatesMerged = new AtomicInteger();
+	private final AtomicInteger patched = new AtomicInteger();
+	private final AtomicInteger patchedBlocks = new AtomicInteger();
+	private final AtomicInteger sectionsPacked = new AtomicInteger();
+	private final AtomicInteger sectionsSkipped = new AtomicInteger();
+	private final AtomicInteger chunksSkipped = new AtomicInteger();
+	private long packingStatsStart = System.currentTimeMillis();
 
 	private final int dimension;
 
+	private final RegionPrefetcher prefetcher;
+
+	private final LandmarkTables landmarks;
+
+	/**
+	 * Regions the prefetcher loaded that nothing has looked at yet
+	 */
+	private final LongOpenHashSet prefetched = new LongOpenHashSet();
+
+	/**
+	 * Regions that were asked for while not in memory, so each one only counts as a prefetch miss once
+	 */
+	private final LongOpenHashSet missed = new LongOpenHashSet();
+
+	/**
+	 * Regions that were evicted to stay under budget, and are loaded again in the background if anything asks for them. Guarded by this.
+	 */
+	private final LongOpenHashSet evicted = new LongOpenHashSet();
+
+	private final AtomicLong regionHits = new AtomicLong();
+	private final AtomicLong regionMisses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicBoolean evicting = new AtomicBoolean();
+	private volatile long lastEvictionCheck;
+
+	/**
+	 * Heap taken up by the regions in memory as of the last eviction check
+	 */
+	private volatile long cachedBytes;
+
 	CachedWorld(Path directory, int dimension) {
 		if (!Files.exists(directory)) {
 			try {
@@ -88,7 +182,11 @@ public final class CachedWorld implements ICachedWorld, Helper {
 		this.directory = directory.toString();
 		this.dimension = dimension;
 		System.out.println("Cached world directory: " + directory);
-		Baritone.getExecutor().execute(new PackerThread());
+		for (int i = 0; i < Math.max(Baritone.settings().chunkPackerThreads.value, 1); i++) {
+			Baritone.getExecutor().execute(new PackerThread());
+		}
+		prefetcher = new RegionPrefetcher(this);
+		landmarks = new LandmarkTables(this, directory.resolve("landmarks"), dimension != -1);
 		Baritone.getExecutor().execute(() -> {
 			try {
 				Thread.sleep(30000);
@@ -150,13 +248,159 @@ public final class CachedWorld implements ICachedWorld, Helper {
 		return cachedRegions.computeIfAbsent(getRegionID(regionX, regionZ), id -> {
 			CachedRegion newRegion = new CachedRegion(regionX, regionZ, dimension);
 			newRegion.load(directory);
+			evicted.remove(id);
 			return newRegion;
 		});
 	}
 
 	@Override
 	public synchronized CachedRegion getRegion(int regionX, int regionZ) {
-		return cachedRegions.get(getRegionID(regionX, regionZ));
+		long id = getRegionID(regionX, regionZ);
+		CachedRegion region = cachedRegions.get(id);
+		if (region != null) {
+			regionHits.incrementAndGet();
+		} else if (evicted.contains(id)) {
+			// it was only dropped to stay under budget, so it's still wanted after all
+			regionMisses.incrementAndGet();
+			prefetcher.request(regionX, regionZ);
+		}
+		if (Baritone.settings().prefetchRegions.value) {
+			if (region != null) {
+				if (prefetched.remove(id)) {
+					prefetcher.hits.incrementAndGet();
+				}
+			} else if (missed.add(id) && CachedRegion.existsOnDisk(directory, regionX, regionZ)) {
+				prefetcher.misses.incrementAndGet();
+			}
+		}
+		maybeEvict();
+		return region;
+	}
+
+	/**
+	 * Asks for every region within this many blocks of this position to be loaded in the background, if it isn't already. Doesn't block on anything but this world's monitor.
+	 */
+	public void prefetch(int blockX, int blockZ, int radius) {
+		if (!Baritone.settings().prefetchRegions.value)
+			return;
+		for (int regionX = blockX - radius >> 9; regionX <= blockX + radius >> 9; regionX++) {
+			for (int regionZ = blockZ - radius >> 9; regionZ <= blockZ + radius >> 9; regionZ++) {
+				if (isRegionInWorld(regionX, regionZ) && !isRegionInMemory(regionX, regionZ)) {
+					prefetcher.request(regionX, regionZ);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Asks for this region to be loaded in the background if it isn't in memory, even if {@link baritone.api.Settings#prefetchRegions} is off. For things on a search's thread that would otherwise have to load it right
+	 * there.
+	 */
+	void requestRegion(int regionX, int regionZ) {
+		if (isRegionInWorld(regionX, regionZ) && !isRegionInMemory(regionX, regionZ)) {
+			prefetcher.request(regionX, regionZ);
+		}
+	}
+
+	private synchronized boolean isRegionInMemory(int regionX, int regionZ) {
+		return cachedRegions.containsKey(getRegionID(regionX, regionZ));
+	}
+
+	/**
+	 * Called on the prefetcher's thread. Reads the region without holding this world's monitor, so that nothing else waits on the disk.
+	 *
+	 * @return Whether the region was loaded, false if it was already in memory or isn't on disk
+	 */
+	boolean loadPrefetched(int regionX, int regionZ) {
+		if (isRegionInMemory(regionX, regionZ) || !CachedRegion.existsOnDisk(directory, regionX, regionZ))
+			return false;
+		CachedRegion region = new CachedRegion(regionX, regionZ, dimension);
+		region.load(directory);
+		synchronized (this) {
+			long id = getRegionID(regionX, regionZ);
+			if (cachedRegions.containsKey(id))
+				return false; // something else loaded or created it in the meantime, theirs wins
+			cachedRegions.put(id, region);
+			prefetched.add(id);
+			missed.remove(id);
+			evicted.remove(id);
+		}
+		maybeEvict();
+		return true;
+	}
+
+	/**
+	 * Starts an eviction pass in the background if it's been a while since the last one. Cheap enough to call on every region lookup and every packed chunk.
+	 */
+	private void maybeEvict() {
+		long now = System.currentTimeMillis();
+		if (now - lastEvictionCheck < EVICTION_CHECK_INTERVAL_MS || !evicting.compareAndSet(false, true))
+			return;
+		lastEvictionCheck = now;
+		Baritone.getExecutor().execute(() -> {
+			try {
+				evictOverBudget();
+			} catch (Throwable th) {
+				th.printStackTrace();
+			} finally {
+				evicting.set(false);
+			}
+		});
+	}
+
+	/**
+	 * If the regions in memory take up more than {@link baritone.api.Settings#cachedRegionMemoryBudget}, drops the least recently used ones until they don't, saving the ones with unsaved changes first. Saving happens
+	 * without holding this world's monitor, a region that's changed again by the time it's saved is left for the next pass.
+	 * <p>
+	 * Dropping one happens under this world's monitor and then the region's, the same order as everywhere else, and {@link CachedRegion#release releases} it. Anything still holding on to it from before then can't store
+	 * into it anymore and goes through {@link #getOrCreateRegion} again, see {@link #updateCachedChunk}.
+	 */
+	private void evictOverBudget() {
+		List<CachedRegion> regions = allRegions();
+		long total = 0;
+		for (CachedRegion region : regions) {
+			total += region.estimatedHeapBytes();
+		}
+		cachedBytes = total;
+		long budget = Baritone.settings().cachedRegionMemoryBudget.value * 1024L * 1024L;
+		if (budget <= 0 || total <= budget)
+			return;
+		BlockPos center = guessPosition();
+		regions.sort(Comparator.comparingLong(CachedRegion::getLastAccess));
+		boolean saving = Baritone.settings().chunkCaching.value;
+		long now = System.currentTimeMillis();
+		int count = 0;
+		int saved = 0;
+		for (CachedRegion region : regions) {
+			if (total <= budget || now - region.getLastAccess() < EVICTION_MIN_IDLE_MS)
+				break; // oldest first, so everything after this was used even more recently
+			if (region.getX() == center.getX() >> 9 && region.getZ() == center.getZ() >> 9)
+				continue;
+			if (saving && region.hasUnsavedChanges()) {
+				region.save(directory);
+				saved++;
+			}
+			long bytes = region.estimatedHeapBytes();
+			synchronized (this) {
+				long id = getRegionID(region.getX(), region.getZ());
+				synchronized (region) {
+					if (cachedRegions.get(id) != region || saving && region.hasUnsavedChanges() || now - region.getLastAccess() < EVICTION_MIN_IDLE_MS)
+						continue; // changed or used again while it was being saved, leave it for the next pass
+					cachedRegions.remove(id);
+					region.release();
+				}
+				prefetched.remove(id);
+				if (evicted.size() > 4096) {
+					evicted.clear();
+				}
+				evicted.add(id);
+			}
+			total -= bytes;
+			count++;
+		}
+		evictions.addAndGet(count);
+		cachedBytes = total;
+		logDebug("Evicted " + count + " cached regions (" + saved + " saved first) to get under the " + budget / 1024 / 1024 + "MiB budget. " + getCacheStats());
 	}
 
 	/**
@@ -236,17 +480,226 @@ public final class CachedWorld implements ICachedWorld, Helper {
 			if (dist > 1024) {
 				logDebug("Deleting cached region " + region.getX() + "," + region.getZ() + " from ram");
 				cachedRegions.remove(getRegionID(region.getX(), region.getZ()));
+				prefetched.remove(getRegionID(region.getX(), region.getZ()));
+				region.release();
+			}
+		}
+		if (missed.size() > 4096) {
+			missed.clear();
+		}
+	}
+
+	/**
+	 * Moves the oldest queued chunks into {@code batch}, up to {@link #PACKING_BATCH_SIZE} of them, skipping any whose position is still being packed from an older copy. Packing the newer copy alongside it could store it
+	 * first, and then have the older one overwrite it. Must hold {@link #toPack}.
+	 *
+	 * @return Whether it took anything
+	 */
+	private boolean takeBatch(List<WorldChunk> batch) {
+		Iterator<Map.Entry<Long, WorldChunk>> it = toPack.entrySet().iterator();
+		while (it.hasNext() && batch.size() < PACKING_BATCH_SIZE) {
+			Map.Entry<Long, WorldChunk> entry = it.next();
+			if (packing.add(entry.getKey())) {
+				batch.add(entry.getValue());
+				it.remove();
+			}
+		}
+		return !batch.isEmpty();
+	}
+
+	private void donePacking(WorldChunk chunk) {
+		synchronized (toPack) {
+			long key = ChunkPos.toLong(chunk.getPos().x, chunk.getPos().z);
+			packing.remove(key);
+			if (toPack.containsKey(key)) {
+				toPack.notify(); // a newer copy was skipped over while this one was being packed
 			}
 		}
 	}
 
 	@Override
 	public void queueForPacking(WorldChunk chunk) {
-		try {
-			toPack.put(chunk);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+		WorldChunk oldest = null;
+		synchronized (toPack) {
+			long key = ChunkPos.toLong(chunk.getPos().x, chunk.getPos().z);
+			if (toPack.put(key, chunk) != null) {
+				duplicatesMerged.incrementAndGet();
+			} else if (toPack.size() > Baritone.settings().chunkPackerQueueLimit.value) {
+				// too far behind, and holding on to whole chunks the whole time. chunks are only ever queued from the main thread, which can't just wait here, so have it
+				// pack the oldest one itself instead
+				Iterator<Map.Entry<Long, WorldChunk>> it = toPack.entrySet().iterator();
+				while (it.hasNext() && oldest == null) {
+					Map.Entry<Long, WorldChunk> entry = it.next();
+					if (packing.add(entry.getKey())) {
+						oldest = entry.getValue();
+						it.remove();
+					}
+				}
+			}
+			toPack.notify();
+		}
+		if (oldest != null) {
+			try {
+				packAndStore(oldest);
+			} finally {
+				donePacking(oldest);
+			}
+			packedOnCaller.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Called on the main thread after the server changes blocks in a loaded chunk. Instead of packing the whole chunk again, just these blocks are patched into what's cached for it. Landmark tables aren't told about it, a
+	 * few blocks won't move the distances between chunks enough to matter.
+	 * <p>
+	 * If the chunk isn't cached (or its region isn't in memory), there's nothing to patch, and it'll be packed like normal when it's unloaded.
+	 */
+	public void blocksChanged(WorldChunk chunk, Collection<BlockPos> positions) {
+		neighboursChanged(chunk, positions);
+		int chunkX = chunk.getPos().x;
+		int chunkZ = chunk.getPos().z;
+		long key = ChunkPos.toLong(chunkX, chunkZ);
+		synchronized (toPack) {
+			if (toPack.containsKey(key))
+				return; // it'll be packed from the loaded chunk, which already has the change
+			if (packing.contains(key)) {
+				// a packer thread could have read these blocks before they changed, and would store that over the patch, so pack it again after
+				toPack.put(key, chunk);
+				toPack.notify();
+				return;
+			}
+		}
+		CachedRegion region = getLoadedRegion(chunkX >> 5, chunkZ >> 5);
+		if (region != null && region.patchCachedChunk(chunkX & 31, chunkZ & 31, chunk, positions)) {
+			patched.incrementAndGet();
+			patchedBlocks.addAndGet(positions.size());
+		}
+	}
+
+	/**
+	 * Water on the edge of a chunk is cached as water or avoid depending on whether it flows, which depends on the blocks across the edge, in the next chunk over. {@link CachedChunk#patched} only sees its own chunk, so for
+	 * a change right next to water in a loaded neighboring chunk, that chunk is queued to be packed again. From scratch, since none of its own sections changed and they'd all be skipped otherwise.
+	 */
+	private void neighboursChanged(WorldChunk chunk, Collection<BlockPos> positions) {
+		World world = chunk.getWorld();
+		for (BlockPos pos : positions) {
+			for (int i = 0; i < 4; i++) {
+				BlockPos neighbour = pos.add(i == 0 ? 1 : i == 1 ? -1 : 0, 0, i == 2 ? 1 : i == 3 ? -1 : 0);
+				int chunkX = neighbour.getX() >> 4;
+				int chunkZ = neighbour.getZ() >> 4;
+				if (chunkX == chunk.getPos().x && chunkZ == chunk.getPos().z || !world.getChunkManager().isChunkLoaded(chunkX, chunkZ))
+					continue;
+				WorldChunk adjacent = world.getChunk(chunkX, chunkZ);
+				if (adjacent instanceof EmptyChunk || !MovementHelper.isWater(adjacent.getBlockState(neighbour)))
+					continue;
+				synchronized (toPack) {
+					packFromScratch.add(ChunkPos.toLong(chunkX, chunkZ));
+				}
+				queueForPacking(adjacent);
+			}
+		}
+	}
+
+	/**
+	 * Like {@link #getRegion} but without counting towards the prefetcher's hits and misses
+	 */
+	private synchronized CachedRegion getLoadedRegion(int regionX, int regionZ) {
+		return cachedRegions.get(getRegionID(regionX, regionZ));
+	}
+
+	private void packAndStore(WorldChunk chunk) {
+		long[] fingerprints = ChunkPacker.fingerprints(chunk);
+		CachedChunk previous = null;
+		int unchanged = 0;
+		CachedRegion region = getOrCreateRegion(chunk.getPos().x >> 5, chunk.getPos().z >> 5);
+		boolean fromScratch;
+		synchronized (toPack) {
+			fromScratch = packFromScratch.remove(ChunkPos.toLong(chunk.getPos().x, chunk.getPos().z));
 		}
+		CachedChunk existing = region.getChunk(chunk.getPos().x & 31, chunk.getPos().z & 31);
+		if (Baritone.settings().skipUnchangedSections.value && !fromScratch) {
+			previous = existing;
+			for (int i = 0; previous != null && i < fingerprints.length; i++) {
+				if (previous.sectionUnchanged(i, fingerprints[i])) {
+					unchanged++;
+				}
+			}
+		}
+		sectionsSkipped.addAndGet(unchanged);
+		sectionsPacked.addAndGet(fingerprints.length - unchanged);
+		if (unchanged == fingerprints.length) {
+			// nothing changed since it was cached, it only needs to be marked as seen just now, which doesn't make the region need saving. the landmark tables don't need to hear about it either
+			refreshCachedChunk(previous.refreshed(System.currentTimeMillis()));
+			chunksSkipped.incrementAndGet();
+		} else {
+			CachedChunk packedChunk = ChunkPacker.pack(chunk, fingerprints, previous, region.getPalette());
+			updateCachedChunk(packedChunk);
+			// a chunk that was just loaded again usually comes out the same, which isn't worth invalidating the landmark tables around it for
+			if (existing == null || !packedChunk.sameContents(existing)) {
+				landmarks.chunkRepacked(packedChunk.x, packedChunk.z);
+			}
+		}
+		maybeEvict();
+		packed.incrementAndGet();
+		long now = System.currentTimeMillis();
+		long start = packingStatsStart;
+		if (now - start >= PACKING_STATS_INTERVAL_MS) {
+			synchronized (packed) {
+				if (packingStatsStart != start)
+					return;
+				packingStatsStart = now;
+			}
+			int count = packed.getAndSet(0);
+			logDebug(String.format("Packed %d chunks in %.1fs (%.1f chunks/sec), %d still queued, %d queued again before being packed, %d packed on the main thread, %d patched instead for %d changed blocks. Packed %d sections and skipped %d unchanged ones, %d chunks were skipped entirely", count, (now - start) / 1000D, count * 1000D / (now - start), getPackingQueueDepth(), duplicatesMerged.getAndSet(0), packedOnCaller.getAndSet(0), patched.getAndSet(0), patchedBlocks.getAndSet(0), sectionsPacked.getAndSet(0), sectionsSkipped.getAndSet(0), chunksSkipped.getAndSet(0)));
+		}
+	}
+
+	/**
+	 * @return How many chunks are waiting to be packed
+	 */
+	public int getPackingQueueDepth() {
+		synchronized (toPack) {
+			return toPack.size();
+		}
+	}
+
+	/**
+	 * @return Roughly how many bytes of heap the cached regions in memory took up as of the last eviction check, see {@link CachedRegion#estimatedHeapBytes}
+	 */
+	public long getCachedBytes() {
+		return cachedBytes;
+	}
+
+	/**
+	 * @return How many times a region was asked for and was in memory
+	 */
+	public long getRegionHits() {
+		return regionHits.get();
+	}
+
+	/**
+	 * @return How many times a region was asked for that wasn't in memory because it had been evicted
+	 */
+	public long getRegionMisses() {
+		return regionMisses.get();
+	}
+
+	/**
+	 * @return How many regions have been evicted to stay under {@link baritone.api.Settings#cachedRegionMemoryBudget}
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return A one line summary of the above
+	 */
+	public String getCacheStats() {
+		int regions;
+		synchronized (this) {
+			regions = cachedRegions.size();
+		}
+		return String.format("%d regions in memory taking up ~%dMiB, %d lookups hit a region in memory, %d missed one that had been evicted, %d evicted so far", regions, cachedBytes / 1024 / 1024, regionHits.get(), regionMisses.get(), evictions.get());
 	}
 
 	public boolean regionLoaded(int blockX, int blockZ) {
@@ -288,12 +741,127 @@ public final class CachedWorld implements ICachedWorld, Helper {
 		prune();
 	}
 
+	/**
+	 * Rewrites every region file in the cache directory that's still in the old format, timing how long each format takes to load and how much heap it takes up once loaded.
+	 * <p>
+	 * Regions that are currently loaded are skipped, they're converted anyway the next time they're saved. Slow, so don't call this from the main thread.
+	 *
+	 * @return A summary of the conversion
+	 */
+	public String convertRegionFiles() {
+		int converted = 0;
+		int alreadyConverted = 0;
+		long legacyLoadMs = 0;
+		long legacyHeap = 0;
+		long mappedLoadMs = 0;
+		long mappedHeap = 0;
+		long mappedBytes = 0;
+		List<Path> files;
+		try (Stream<Path> stream = Files.list(Paths.get(directory))) {
+			files = stream.collect(Collectors.toList());
+		} catch (IOException e) {
+			e.printStackTrace();
+			return "Couldn't list " + directory;
+		}
+		for (Path file : files) {
+			String[] parts = file.getFileName().toString().split("\\.");
+			if (parts.length != 4 || !parts[0].equals("r") || !parts[3].equals("bcr")) {
+				continue;
+			}
+			int regionX;
+			int regionZ;
+			try {
+				regionX = Integer.parseInt(parts[1]);
+				regionZ = Integer.parseInt(parts[2]);
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			// holding the same lock as loading a region for real, so that nothing loads this file while it's being rewritten
+			synchronized (this) {
+				if (cachedRegions.containsKey(getRegionID(regionX, regionZ))) {
+					continue;
+				}
+				CachedRegion region = new CachedRegion(regionX, regionZ, dimension);
+				long start = System.nanoTime();
+				region.load(directory);
+				long loadMs = (System.nanoTime() - start) / 1000000L;
+				if (!region.wasLoadedFromLegacyFormat()) {
+					region.release();
+					alreadyConverted++;
+					continue;
+				}
+				// the old format decodes everything up front, so this is all of it
+				legacyLoadMs += loadMs;
+				legacyHeap += region.estimatedHeapBytes();
+				region.save(directory);
+				region.release();
+
+				CachedRegion reloaded = new CachedRegion(regionX, regionZ, dimension);
+				start = System.nanoTime();
+				reloaded.load(directory);
+				mappedLoadMs += (System.nanoTime() - start) / 1000000L;
+				mappedHeap += reloaded.estimatedHeapBytes();
+				mappedBytes += reloaded.mappedBytes();
+				reloaded.release();
+				converted++;
+			}
+		}
+		return String.format("Converted %d region files (%d were already converted). Old format: loaded in %dms, ~%dKiB heap. New format: loaded in %dms, ~%dKiB heap, %dKiB memory mapped", converted, alreadyConverted, legacyLoadMs, legacyHeap / 1024, mappedLoadMs, mappedHeap / 1024, mappedBytes / 1024);
+	}
+
+	/**
+	 * Reports how many bytes of heap each cached chunk in memory takes up on average, compared to the old way of keeping them. Only looks at the regions that are loaded, and only at their chunks that are decoded, so that
+	 * measuring doesn't add to what it's measuring. The rest are only counted along with their size in the region files.
+	 *
+	 * @return A summary of the measurement
+	 */
+	public String measureChunkMemory() {
+		Set<PackedSection> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+		long chunks = 0;
+		long compact = 0;
+		long unpacked = 0;
+		long undecoded = 0;
+		long undecodedBytes = 0;
+		for (CachedRegion region : allRegions()) {
+			long[] measured = region.measureChunks(counted);
+			chunks += measured[0];
+			compact += measured[1];
+			unpacked += measured[2];
+			undecoded += measured[3];
+			undecodedBytes += measured[4];
+		}
+		if (chunks == 0)
+			return "No decoded cached chunks in memory (" + undecoded + " more in region files)";
+		String summary = String.format("%d cached chunks in memory take up ~%d bytes each (~%dKiB in total), compared to ~%d bytes each (~%dKiB) the old way. %d more haven't been decoded from their region files yet, ~%dKiB packed", chunks, compact / chunks, compact / 1024, unpacked / chunks, unpacked / 1024, undecoded, undecodedBytes / 1024);
+		logDebug(summary);
+		return summary;
+	}
+
 	public void tryLoadFromDisk(int regionX, int regionZ) {
 		getOrCreateRegion(regionX, regionZ);
 	}
 
 	private void updateCachedChunk(CachedChunk chunk) {
-		CachedRegion region = getOrCreateRegion(chunk.x >> 5, chunk.z >> 5);
-		region.updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk);
+		// only fails if the region was evicted since we got it, in which case this loads it again
+		while (!getOrCreateRegion(chunk.x >> 5, chunk.z >> 5).updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk)) {
+		}
+	}
+
+	/**
+	 * Like {@link #updateCachedChunk}, but for a chunk that's only been marked as seen again. If the region keeps getting evicted as soon as it's loaded, giving up just means the chunk looks a bit older than it is
+	 */
+	private void refreshCachedChunk(CachedChunk chunk) {
+		// only fails if the region was evicted since we got it, in which case the next attempt loads it again
+		for (int attempt = 0; attempt < 3; attempt++) {
+			if (getOrCreateRegion(chunk.x >> 5, chunk.z >> 5).refreshCachedChunk(chunk.x & 31, chunk.z & 31, chunk))
+				return;
+		}
+	}
+
+	/**
+	 * @return Landmark distance tables for the landmark heuristic, see {@link baritone.api.Settings#landmarkHeuristic}
+	 */
+	public LandmarkTables getLandmarks() {
+		return landmarks;
 	}
 }
@@ -0,0 +1,212 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.utils.pathing.PathingBlockType;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Whole chunks as nodes, using only what {@link CachedWorld} knows about each chunk, for searches that are too long to do block by block.
+ * <p>
+ * Each cached chunk is boiled down to the height you'd stand at in each column and a cost multiplier (water, lava and such, and how bumpy it is). Two neighboring chunks are connected if any pair of columns along their shared edge can be
+ * walked between. This only looks at the surface, a chunk that's unknown or that we can't make sense of (like the nether, where the surface is the roof) just gets a flat cost.
+ * <p>
+ * Not thread safe, make one per search.
+ */
+public final class ChunkGraph {
+
+	/**
+	 * Walking straight across a chunk
+	 */
+	public static final double CHUNK_COST = 16 * ActionCosts.WALK_ONE_BLOCK_COST;
+
+	/**
+	 * Chunks we know nothing about, a little worse than flat open ground so that searches prefer terrain we've actually seen
+	 */
+	private static final double UNKNOWN_MULTIPLIER = 1.5;
+
+	/**
+	 * Neighbors with no walkable connection along their shared edge, still possible by bridging, pillaring or tunneling but much slower
+	 */
+	private static final double DISCONNECTED_MULTIPLIER = 8;
+
+	public static final int[] DIRECTIONS_X = { 1, -1, 0, 0 };
+	public static final int[] DIRECTIONS_Z = { 0, 0, 1, -1 };
+
+	private static final short NOT_STANDABLE = -1;
+
+	private static final ChunkSummary UNKNOWN = new ChunkSummary(null, UNKNOWN_MULTIPLIER);
+
+	private final CachedWorld cache;
+
+	private final boolean surfaceIsMeaningful;
+
+	private final int maxFall;
+
+	private final Long2ObjectOpenHashMap<ChunkSummary> summaries = new Long2ObjectOpenHashMap<>();
+
+	private final boolean loadFromDisk;
+
+	private final LongOpenHashSet triedRegions = new LongOpenHashSet();
+
+	/**
+	 * @param cache               {@code null} if there's no cache, every chunk is unknown then
+	 * @param surfaceIsMeaningful False in the nether and such, where the highest block is the roof
+	 * @param maxFall             How far down you can go between two columns
+	 * @param loadFromDisk        Whether regions that aren't in memory can be loaded right here, on this thread. If not, their chunks are unknown and the regions are loaded in the background for next time.
+	 */
+	public ChunkGraph(CachedWorld cache, boolean surfaceIsMeaningful, int maxFall, boolean loadFromDisk) {
+		this.cache = cache;
+		this.surfaceIsMeaningful = surfaceIsMeaningful;
+		this.maxFall = maxFall;
+		this.loadFromDisk = loadFromDisk;
+	}
+
+	/**
+	 * @param dir Index into {@link #DIRECTIONS_X} and {@link #DIRECTIONS_Z}
+	 * @return The cost of going from this chunk to its neighbor in that direction
+	 */
+	public double cost(int chunkX, int chunkZ, int dir) {
+		ChunkSummary from = summary(chunkX, chunkZ);
+		ChunkSummary to = summary(chunkX + DIRECTIONS_X[dir], chunkZ + DIRECTIONS_Z[dir]);
+		double cost = CHUNK_COST * (from.multiplier + to.multiplier) / 2;
+		if (!connected(from, to, dir)) {
+			cost *= DISCONNECTED_MULTIPLIER;
+		}
+		return cost;
+	}
+
+	/**
+	 * A cost for going from this chunk to its neighbor that's never more than what it really takes, for anything that needs a lower bound, like the landmark tables. The multipliers and the penalty for not being connected
+	 * only ever make {@link #cost} higher than walking straight across, and none of them are certain (you can go around water, or tunnel or bridge to a disconnected neighbor), so this leaves all of them out: a multiplier of
+	 * 1 and no disconnection penalty.
+	 *
+	 * @param dir Index into {@link #DIRECTIONS_X} and {@link #DIRECTIONS_Z}
+	 */
+	public double lowerBoundCost(int chunkX, int chunkZ, int dir) {
+		return CHUNK_COST;
+	}
+
+	/**
+	 * @param dir Index into {@link #DIRECTIONS_X} and {@link #DIRECTIONS_Z} of the direction from {@code from} to {@code to}
+	 */
+	private boolean connected(ChunkSummary from, ChunkSummary to, int dir) {
+		if (from.standY == null || to.standY == null)
+			return true;
+		for (int i = 0; i < 16; i++) {
+			int fromIndex;
+			int toIndex;
+			switch (dir) {
+				case 0: // +x
+					fromIndex = i << 4 | 15;
+					toIndex = i << 4;
+					break;
+				case 1: // -x
+					fromIndex = i << 4;
+					toIndex = i << 4 | 15;
+					break;
+				case 2: // +z
+					fromIndex = 15 << 4 | i;
+					toIndex = i;
+					break;
+				default: // -z
+					fromIndex = i;
+					toIndex = 15 << 4 | i;
+					break;
+			}
+			int fromY = from.standY[fromIndex];
+			int toY = to.standY[toIndex];
+			if (fromY != NOT_STANDABLE && toY != NOT_STANDABLE && toY - fromY <= 1 && fromY - toY <= maxFall)
+				return true;
+		}
+		return false;
+	}
+
+	private ChunkSummary summary(int chunkX, int chunkZ) {
+		long key = chunkKey(chunkX, chunkZ);
+		ChunkSummary summary = summaries.get(key);
+		if (summary == null) {
+			summary = summarize(chunk(chunkX, chunkZ));
+			summaries.put(key, summary);
+		}
+		return summary;
+	}
+
+	private CachedChunk chunk(int chunkX, int chunkZ) {
+		if (cache == null)
+			return null;
+		int regionX = chunkX >> 5;
+		int regionZ = chunkZ >> 5;
+		CachedRegion region = cache.getRegion(regionX, regionZ);
+		if (region == null && triedRegions.add(chunkKey(regionX, regionZ))) {
+			// far away regions get pruned from memory, but they're probably still on disk
+			if (loadFromDisk) {
+				cache.tryLoadFromDisk(regionX, regionZ);
+				region = cache.getRegion(regionX, regionZ);
+			} else {
+				cache.requestRegion(regionX, regionZ);
+			}
+		}
+		return region == null ? null : region.getChunk(chunkX & 31, chunkZ & 31);
+	}
+
+	private ChunkSummary summarize(CachedChunk chunk) {
+		if (chunk == null)
+			return UNKNOWN;
+		if (!surfaceIsMeaningful)
+			return new ChunkSummary(null, 1);
+		short[] standY = new short[256];
+		int blocked = 0;
+		int water = 0;
+		int steps = 0;
+		for (int z = 0; z < 16; z++) {
+			for (int x = 0; x < 16; x++) {
+				int height = chunk.getHeight(x, z);
+				PathingBlockType type = chunk.getPathingType(x, height, z);
+				if (type == PathingBlockType.AIR || type == PathingBlockType.AVOID || height >= 255) {
+					standY[z << 4 | x] = NOT_STANDABLE;
+					blocked++;
+					continue;
+				}
+				if (type == PathingBlockType.WATER) {
+					water++;
+				}
+				standY[z << 4 | x] = (short) (height + 1);
+				if (x > 0 && standY[z << 4 | x - 1] != NOT_STANDABLE) {
+					steps += Math.min(Math.abs(standY[z << 4 | x] - standY[z << 4 | x - 1]), 4);
+				}
+			}
+		}
+		double multiplier = 1 + 3 * blocked / 256D + 2 * water / 256D + steps / (16D * 15D);
+		return new ChunkSummary(standY, multiplier);
+	}
+
+	public static long chunkKey(int x, int z) {
+		return x & 0xFFFFFFFFL | (z & 0xFFFFFFFFL) << 32;
+	}
+
+	private static final class ChunkSummary {
+
+		/**
+		 * The y you'd stand at in each column, indexed z << 4 | x, or {@code null} if we don't know the surface and treat the whole chunk as open
+		 */
+		final short[] standY;
+
+		final double multiplier;
+
+		ChunkSummary(short[] standY, double multiplier) {
+			this.standY = standY;
+			this.multiplier = multiplier;
+		}
+	}
+}
@@ -12,12 +12,12 @@ package baritone.cache;
 
 import static baritone.utils.BlockStateInterface.getFromChunk;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import baritone.api.utils.BlockUtils;
 import baritone.pathing.movement.MovementHelper;
+import baritone.utils.accessor.IBlockStateContainer;
 import baritone.utils.pathing.PathingBlockType;
 import net.minecraft.block.AirBlock;
 import net.minecraft.block.Block;
@@ -38,7 +38,7 @@ import net.minecraft.world.chunk.WorldChunk;
  */
 public final class ChunkPacker {
 
-	private static PathingBlockType getPathingBlockType(BlockState state, WorldChunk chunk, int x, int y, int z) {
+	static PathingBlockType getPathingBlockType(BlockState state, WorldChunk chunk, int x, int y, int z) {
 		Block block = state.getBlock();
 		if (MovementHelper.isWater(state)) {
 			// only water source blocks are plausibly usable, flowing water should be avoid
@@ -68,14 +68,82 @@ public final class ChunkPacker {
 		return PathingBlockType.SOLID;
 	}
 
-	public static CachedChunk pack(WorldChunk chunk) {
+	/**
+	 * Fingerprint of a section that's null, which is all air
+	 */
+	private static final long EMPTY_SECTION = 1;
+
+	/**
+	 * A hash of each section's palette and packed block storage, so that a section that hasn't changed since it was last packed can be spotted without going through its blocks. The palette only ever grows, so a section that
+	 * changed and then changed back can come out different, which just means it's packed again.
+	 *
+	 * @return The fingerprint of each section, bottom to top, never {@link CachedChunk#UNKNOWN_SECTION}
+	 */
+	public static long[] fingerprints(WorldChunk chunk) {
+		ChunkSection[] sections = chunk.getSectionArray();
+		long[] fingerprints = new long[sections.length];
+		for (int i = 0; i < sections.length; i++) {
+			fingerprints[i] = fingerprint(sections[i]);
+		}
+		return fingerprints;
+	}
+
+	private static long fingerprint(ChunkSection section) {
+		if (section == null)
+			return EMPTY_SECTION;
+		IBlockStateContainer container = (IBlockStateContainer) section.getContainer();
+		long hash = 0;
+		// the global palette is the same for every section, hashing the start of it is harmless
+		for (int i = 0; i < 256; i++) {
+			BlockState state = container.getAtPalette(i);
+			if (state == null) {
+				break;
+			}
+			hash = mix(hash, Block.getRawIdFromState(state));
+		}
+		for (long word : container.storageWords()) {
+			hash = mix(hash, word);
+		}
+		return hash == CachedChunk.UNKNOWN_SECTION || hash == EMPTY_SECTION ? 2 : hash;
+	}
+
+	private static long mix(long hash, long value) {
+		hash = (hash + value) * 0x9E3779B97F4A7C15L;
+		return hash ^ hash >>> 29;
+	}
+
+	/**
+	 * @param fingerprints The chunk's {@link #fingerprints}
+	 * @param previous     What's cached for this chunk already, any section that's {@link CachedChunk#sectionUnchanged unchanged} since then is copied from it instead of being packed again. Can be null.
+	 * @param palette      The palette of the region the chunk goes in
+	 */
+	static CachedChunk pack(WorldChunk chunk, long[] fingerprints, CachedChunk previous, BlockStatePalette palette) {
 		//long start = System.nanoTime() / 1000000L;
 
 		Map<String, List<BlockPos>> specialBlocks = new HashMap<>();
-		BitSet bitSet = new BitSet(CachedChunk.SIZE);
+		// the same layout as BitSet.toLongArray, filled in directly instead of setting a bit at a time
+		long[] words = new long[CachedChunk.SIZE / 64];
+		PackedSection[] sections = new PackedSection[16];
+		Map<String, List<BlockPos>> previousSpecialBlocks = null;
 		try {
 			ChunkSection[] chunkInternalStorageArray = chunk.getSectionArray();
 			for (int y0 = 0; y0 < 16; y0++) {
+				if (previous != null && previous.sectionUnchanged(y0, fingerprints[y0])) {
+					sections[y0] = previous.getSection(y0);
+					// still needed below for the overview
+					System.arraycopy(sections[y0].words, 0, words, y0 * PackedSection.WORDS, PackedSection.WORDS);
+					if (previousSpecialBlocks == null) {
+						previousSpecialBlocks = previous.getRelativeBlocks();
+					}
+					for (Map.Entry<String, List<BlockPos>> entry : previousSpecialBlocks.entrySet()) {
+						for (BlockPos pos : entry.getValue()) {
+							if (pos.getY() >> 4 == y0) {
+								specialBlocks.computeIfAbsent(entry.getKey(), b -> new ArrayList<>()).add(pos);
+							}
+						}
+					}
+					continue;
+				}
 				ChunkSection extendedblockstorage = chunkInternalStorageArray[y0];
 				if (extendedblockstorage == null) {
 					// any 16x16x16 area that's all air will have null storage
@@ -98,9 +166,8 @@ public final class ChunkPacker {
 						for (int x = 0; x < 16; x++) {
 							int index = CachedChunk.getPositionIndex(x, y, z);
 							BlockState state = bsc.get(x, y1, z);
-							boolean[] bits = getPathingBlockType(state, chunk, x, y, z).getBits();
-							bitSet.set(index, bits[0]);
-							bitSet.set(index + 1, bits[1]);
+							// index is always even, so both bits are always in the same word
+							words[index >> 6] |= getPathingBlockType(state, chunk, x, y, z).getWordBits() << (index & 63);
 							Block block = state.getBlock();
 							if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
 								String name = BlockUtils.blockToString(block);
@@ -113,6 +180,11 @@ public final class ChunkPacker {
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
+		for (int y0 = 0; y0 < 16; y0++) {
+			if (sections[y0] == null) {
+				sections[y0] = PackedSection.of(words, y0 * PackedSection.WORDS);
+			}
+		}
 
 		//long end = System.nanoTime() / 1000000L;
 		//System.out.println("Chunk packing took " + (end - start) + "ms for " + chunk.x + "," + chunk.z);
@@ -124,7 +196,7 @@ public final class ChunkPacker {
             for (int x = 0; x < 16; x++) {
                 for (int y = 255; y >= 0; y--) {
                     int index = CachedChunk.getPositionIndex(x, y, z);
-                    if (bitSet.get(index) || bitSet.get(index + 1)) {
+                    if ((words[index >> 6] >>> (index & 63) & 3) != 0) {
                         blocks[z << 4 | x] = getFromChunk(chunk, x, y, z);
                         continue https;
                     }
@@ -133,7 +205,7 @@ public final class ChunkPacker {
             }
         }
         // @formatter:on
-		return new CachedChunk(chunk.getPos().x, chunk.getPos().z, bitSet, blocks, specialBlocks, System.currentTimeMillis());
+		return new CachedChunk(chunk.getPos().x, chunk.getPos().z, sections, palette, palette.idsOf(blocks), specialBlocks, System.currentTimeMillis(), fingerprints);
 	}
 
 	public static BlockState pathingTypeToBlock(PathingBlockType type, int dimension) {
@@ -0,0 +1,389 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import baritone.Baritone;
+import baritone.api.utils.Helper;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Chunk level distances to and from landmarks, for the landmark (ALT) heuristic. There's one landmark in the middle of each region, and its table covers every chunk within {@link #RADIUS} chunks of it, worked out with Dijkstra over
+ * {@link ChunkGraph#lowerBoundCost} on a background thread. ALT is only admissible if the edge costs never overestimate, which is why it isn't {@link ChunkGraph#cost}.
+ * <p>
+ * Tables are saved in a landmarks folder next to the cached regions. Once a chunk that a table covers gets repacked the table can't be trusted anymore, so it stops being used and its file is deleted, and it's rebuilt the next time
+ * it's asked for after things have calmed down for a bit.
+ */
+public final class LandmarkTables implements Runnable, Helper {
+
+	/**
+	 * How many chunks away from its landmark a table goes, in each direction
+	 */
+	public static final int RADIUS = 48;
+
+	private static final int SIDE = 2 * RADIUS + 1;
+
+	/**
+	 * Bumped when tables went from {@link ChunkGraph#cost} to {@link ChunkGraph#lowerBoundCost}, so ones built the old way are built again
+	 */
+	private static final int LANDMARK_MAGIC = 0x414c5432;
+
+	/**
+	 * How long a table has to go without any repacks before it's rebuilt, so that walking around in new terrain doesn't rebuild the same table over and over
+	 */
+	private static final long REBUILD_DELAY_MS = 30000;
+
+	/**
+	 * About 75KB each
+	 */
+	private static final int MAX_TABLES = 64;
+
+	private static final int QUEUE_SIZE = 16;
+
+	private final CachedWorld world;
+
+	private final Path directory;
+
+	private final boolean surfaceIsMeaningful;
+
+	private final Long2ObjectOpenHashMap<Table> tables = new Long2ObjectOpenHashMap<>();
+
+	/**
+	 * When a chunk covered by each landmark was last repacked
+	 */
+	private final Long2LongOpenHashMap lastRepack = new Long2LongOpenHashMap();
+
+	/**
+	 * Landmarks whose file has already been deleted this session because of a repack while the table wasn't loaded
+	 */
+	private final LongOpenHashSet cleared = new LongOpenHashSet();
+
+	private final ArrayBlockingQueue<Long> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+	private final LongOpenHashSet pending = new LongOpenHashSet();
+
+	private Thread thread;
+
+	LandmarkTables(CachedWorld world, Path directory, boolean surfaceIsMeaningful) {
+		this.world = world;
+		this.directory = directory;
+		this.surfaceIsMeaningful = surfaceIsMeaningful;
+	}
+
+	/**
+	 * @return Every table that covers this chunk and is up to date
+	 */
+	public Table[] usable(int chunkX, int chunkZ) {
+		List<Table> result = new ArrayList<>();
+		synchronized (this) {
+			for (Table table : tables.values()) {
+				if (!table.stale && table.covers(chunkX, chunkZ)) {
+					result.add(table);
+				}
+			}
+		}
+		return result.toArray(new Table[0]);
+	}
+
+	/**
+	 * Makes sure the landmarks around this chunk get loaded or built in the background, if they aren't already. Doesn't block.
+	 */
+	public void request(int chunkX, int chunkZ) {
+		int regionX = chunkX >> 5;
+		int regionZ = chunkZ >> 5;
+		// the landmark of this region and its four neighbors, all of which cover this chunk
+		request(key(regionX, regionZ));
+		request(key(regionX + 1, regionZ));
+		request(key(regionX - 1, regionZ));
+		request(key(regionX, regionZ + 1));
+		request(key(regionX, regionZ - 1));
+	}
+
+	private void request(long key) {
+		synchronized (this) {
+			Table table = tables.get(key);
+			if (table != null && (!table.stale || System.currentTimeMillis() - lastRepack.get(key) < REBUILD_DELAY_MS))
+				return;
+			if (!pending.add(key))
+				return;
+			if (thread == null) {
+				thread = new Thread(this, "Baritone landmark tables");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+		if (!queue.offer(key)) {
+			synchronized (this) {
+				pending.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * What's cached for a chunk really changed, so any table covering it might be wrong now. Not called for a chunk that was packed again the same as before, see {@link CachedChunk#sameContents}.
+	 */
+	void chunkRepacked(int chunkX, int chunkZ) {
+		if (!Baritone.settings().landmarkHeuristic.value)
+			return;
+		long now = System.currentTimeMillis();
+		// every region whose middle chunk is within RADIUS of this one
+		int minRegionX = Math.floorDiv(chunkX - RADIUS - 16 + 31, 32);
+		int maxRegionX = Math.floorDiv(chunkX + RADIUS - 16, 32);
+		int minRegionZ = Math.floorDiv(chunkZ - RADIUS - 16 + 31, 32);
+		int maxRegionZ = Math.floorDiv(chunkZ + RADIUS - 16, 32);
+		List<Path> toDelete = new ArrayList<>();
+		synchronized (this) {
+			for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+				for (int regionZ = minRegionZ; regionZ <= maxRegionZ; regionZ++) {
+					long key = key(regionX, regionZ);
+					lastRepack.put(key, now);
+					Table table = tables.get(key);
+					if (table != null ? !table.stale : cleared.add(key)) {
+						if (table != null) {
+							table.stale = true;
+						}
+						toDelete.add(file(regionX, regionZ));
+					}
+				}
+			}
+		}
+		for (Path file : toDelete) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			long key;
+			try {
+				key = queue.take();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				return;
+			}
+			try {
+				load(key);
+			} catch (Throwable th) {
+				// same as the packer, keep going no matter what
+				th.printStackTrace();
+			} finally {
+				synchronized (this) {
+					pending.remove(key);
+				}
+			}
+		}
+	}
+
+	private void load(long key) throws IOException {
+		int regionX = (int) key;
+		int regionZ = (int) (key >> 32);
+		long start = System.currentTimeMillis();
+		Path file = file(regionX, regionZ);
+		// a stale table's file is deleted as soon as it goes stale, so this is only ever an up to date one
+		Table table = Files.exists(file) ? read(file, regionX, regionZ) : null;
+		if (table == null) {
+			table = build(regionX, regionZ);
+			write(file, table);
+			logDebug("Built landmark table for region " + regionX + "," + regionZ + " in " + (System.currentTimeMillis() - start) + "ms");
+		}
+		boolean outdated;
+		synchronized (this) {
+			// something changed while it was being built
+			outdated = lastRepack.get(key) >= start;
+			table.stale = outdated;
+			cleared.remove(key);
+			tables.put(key, table);
+			if (tables.size() > MAX_TABLES) {
+				evictFarthestFrom(table);
+			}
+		}
+		if (outdated) {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private void evictFarthestFrom(Table keep) {
+		long farthest = 0;
+		long farthestKey = 0;
+		for (Long2ObjectMap.Entry<Table> entry : tables.long2ObjectEntrySet()) {
+			Table table = entry.getValue();
+			long xDiff = table.centerX - keep.centerX;
+			long zDiff = table.centerZ - keep.centerZ;
+			if (xDiff * xDiff + zDiff * zDiff > farthest) {
+				farthest = xDiff * xDiff + zDiff * zDiff;
+				farthestKey = entry.getLongKey();
+			}
+		}
+		tables.remove(farthestKey);
+	}
+
+	/**
+	 * Dijkstra outwards from the landmark, and then inwards towards it, since going up and down isn't symmetric
+	 */
+	private Table build(int regionX, int regionZ) {
+		int centerX = regionX << 5 | 16;
+		int centerZ = regionZ << 5 | 16;
+		// on its own thread, which is fine waiting on the disk
+		ChunkGraph graph = new ChunkGraph(world, surfaceIsMeaningful, Baritone.settings().maxFallHeightNoWater.value, true);
+		return new Table(centerX, centerZ, dijkstra(graph, centerX, centerZ, false), dijkstra(graph, centerX, centerZ, true));
+	}
+
+	static float[] dijkstra(ChunkGraph graph, int centerX, int centerZ, boolean inwards) {
+		float[] distances = new float[SIDE * SIDE];
+		Arrays.fill(distances, Float.POSITIVE_INFINITY);
+		int startIndex = RADIUS * SIDE + RADIUS;
+		distances[startIndex] = 0;
+		// positive floats sort the same as their bits, so cost and index fit in one long
+		PriorityQueue<Long> queue = new PriorityQueue<>();
+		queue.add((long) startIndex);
+		while (!queue.isEmpty()) {
+			long entry = queue.poll();
+			int index = (int) entry;
+			float cost = Float.intBitsToFloat((int) (entry >>> 32));
+			if (cost > distances[index])
+				continue; // already found a better way here
+			int x = centerX + index / SIDE - RADIUS;
+			int z = centerZ + index % SIDE - RADIUS;
+			for (int dir = 0; dir < 4; dir++) {
+				int nextX = x + ChunkGraph.DIRECTIONS_X[dir];
+				int nextZ = z + ChunkGraph.DIRECTIONS_Z[dir];
+				if (Math.abs(nextX - centerX) > RADIUS || Math.abs(nextZ - centerZ) > RADIUS) {
+					continue;
+				}
+				// inwards, the edge goes from the neighbor to here, which is the opposite direction (0 and 1 are opposite, as are 2 and 3)
+				// lower bounds, so that the differences the landmark heuristic takes between these never overestimate
+				double edge = inwards ? graph.lowerBoundCost(nextX, nextZ, dir ^ 1) : graph.lowerBoundCost(x, z, dir);
+				float nextCost = (float) (cost + edge);
+				int nextIndex = (nextX - centerX + RADIUS) * SIDE + nextZ - centerZ + RADIUS;
+				if (nextCost < distances[nextIndex]) {
+					distances[nextIndex] = nextCost;
+					queue.add((long) Float.floatToIntBits(nextCost) << 32 | nextIndex);
+				}
+			}
+		}
+		return distances;
+	}
+
+	static Table read(Path file, int regionX, int regionZ) throws IOException {
+		try (FileInputStream fileIn = new FileInputStream(file.toFile()); DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn, 65536))) {
+			if (in.readInt() != LANDMARK_MAGIC || in.readInt() != RADIUS)
+				return null; // old format or different size, just build it again
+			int centerX = in.readInt();
+			int centerZ = in.readInt();
+			if (centerX != (regionX << 5 | 16) || centerZ != (regionZ << 5 | 16))
+				return null;
+			float[] from = new float[SIDE * SIDE];
+			float[] to = new float[SIDE * SIDE];
+			for (int i = 0; i < from.length; i++) {
+				from[i] = in.readFloat();
+			}
+			for (int i = 0; i < to.length; i++) {
+				to[i] = in.readFloat();
+			}
+			return new Table(centerX, centerZ, from, to);
+		}
+	}
+
+	static void write(Path file, Table table) throws IOException {
+		Files.createDirectories(file.getParent());
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileOutputStream fileOut = new FileOutputStream(tempFile.toFile()); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 65536))) {
+			out.writeInt(LANDMARK_MAGIC);
+			out.writeInt(RADIUS);
+			out.writeInt(table.centerX);
+			out.writeInt(table.centerZ);
+			for (float distance : table.from) {
+				out.writeFloat(distance);
+			}
+			for (float distance : table.to) {
+				out.writeFloat(distance);
+			}
+		}
+		try {
+			Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException ex) {
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private Path file(int regionX, int regionZ) {
+		return directory.resolve("landmark." + regionX + "." + regionZ);
+	}
+
+	private static long key(int regionX, int regionZ) {
+		return regionX & 0xFFFFFFFFL | (regionZ & 0xFFFFFFFFL) << 32;
+	}
+
+	/**
+	 * Distances from and to one landmark for every chunk around it. The arrays never change once built, a rebuilt table is a new object.
+	 */
+	public static final class Table {
+
+		public final int centerX;
+		public final int centerZ;
+
+		private final float[] from;
+		private final float[] to;
+
+		/**
+		 * A chunk in here has been repacked since this was built
+		 */
+		private volatile boolean stale;
+
+		Table(int centerX, int centerZ, float[] from, float[] to) {
+			this.centerX = centerX;
+			this.centerZ = centerZ;
+			this.from = from;
+			this.to = to;
+		}
+
+		public boolean covers(int chunkX, int chunkZ) {
+			return Math.abs(chunkX - centerX) <= RADIUS && Math.abs(chunkZ - centerZ) <= RADIUS;
+		}
+
+		/**
+		 * @return The cost from the landmark to this chunk, only meaningful if {@link #covers(int, int)}
+		 */
+		public float from(int chunkX, int chunkZ) {
+			return from[(chunkX - centerX + RADIUS) * SIDE + chunkZ - centerZ + RADIUS];
+		}
+
+		/**
+		 * @return The cost from this chunk to the landmark, only meaningful if {@link #covers(int, int)}
+		 */
+		public float to(int chunkX, int chunkZ) {
+			return to[(chunkX - centerX + RADIUS) * SIDE + chunkZ - centerZ + RADIUS];
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import java.util.Arrays;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import baritone.utils.pathing.PathingBlockType;
+
+/**
+ * 16 blocks tall of a {@link CachedChunk}'s pathing types, 2 bits each, laid out the same as that part of {@link java.util.BitSet#toLongArray()} used to be.
+ * <p>
+ * A section that's all one type (all stone underground, all air above the surface) is one shared instance per type. Any other section that's exactly the same as one already in memory shares that one too, which happens more than
+ * you'd think in flat or repetitive terrain. Either way the words are never modified once they're in a section.
+ */
+final class PackedSection {
+
+	static final int WORDS = CachedChunk.SIZE / 64 / 16;
+
+	/**
+	 * Heap taken up by a section that isn't shared with anything: the object, the array header and the array
+	 */
+	static final int HEAP_BYTES = 16 + 16 + WORDS * 8;
+
+	private static final PackedSection[] UNIFORM = new PackedSection[4];
+
+	static {
+		for (PathingBlockType type : PathingBlockType.values()) {
+			long[] words = new long[WORDS];
+			Arrays.fill(words, pattern(type));
+			UNIFORM[(int) type.getWordBits()] = new PackedSection(words);
+		}
+	}
+
+	private static final Interner<PackedSection> SHARED = Interners.newWeakInterner();
+
+	final long[] words;
+
+	private final int hash;
+
+	private PackedSection(long[] words) {
+		this.words = words;
+		this.hash = Arrays.hashCode(words);
+	}
+
+	/**
+	 * @param words Packed pathing types in the layout of {@link java.util.BitSet#toLongArray()}, which can leave off trailing zero words
+	 * @param from  Where the section starts in them
+	 * @return The section, shared if it can be. Doesn't hold on to {@code words}.
+	 */
+	static PackedSection of(long[] words, int from) {
+		int to = Math.min(words.length, from + WORDS);
+		long first = from < to ? words[from] : 0;
+		boolean uniform = to - from == WORDS || first == 0;
+		for (int i = from + 1; uniform && i < to; i++) {
+			uniform = words[i] == first;
+		}
+		if (uniform) {
+			for (PackedSection section : UNIFORM) {
+				if (section.words[0] == first)
+					return section;
+			}
+		}
+		return SHARED.intern(new PackedSection(Arrays.copyOfRange(words, from, from + WORDS))); // pads with zeros past the end
+	}
+
+	/**
+	 * @return The sections of a whole chunk, see {@link #of}
+	 */
+	static PackedSection[] split(long[] words) {
+		PackedSection[] sections = new PackedSection[16];
+		for (int i = 0; i < 16; i++) {
+			sections[i] = of(words, i * WORDS);
+		}
+		return sections;
+	}
+
+	/**
+	 * @return Whether this is all one type, and takes up no memory of its own
+	 */
+	boolean isUniform() {
+		return UNIFORM[(int) (words[0] & 3)] == this;
+	}
+
+	/**
+	 * The same pathing type in every 2 bits of a word
+	 */
+	private static long pattern(PathingBlockType type) {
+		return type.getWordBits() * 0x5555555555555555L;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof PackedSection))
+			return false;
+		PackedSection other = (PackedSection) o;
+		return hash == other.hash && Arrays.equals(words, other.words);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
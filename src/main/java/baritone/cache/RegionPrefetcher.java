@@ -0,0 +1,99 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import baritone.api.utils.Helper;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Loads {@link CachedRegion}s from disk on its own thread before a search gets to them, so that the search sees what's cached there instead of nothing.
+ * <p>
+ * Requests go in a small bounded queue, anything past that is dropped since by the time the queue drains the player has probably moved on and will ask again.
+ */
+final class RegionPrefetcher implements Runnable, Helper {
+
+	private static final int QUEUE_SIZE = 32;
+
+	private final CachedWorld world;
+
+	private final ArrayBlockingQueue<Long> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+	/**
+	 * Regions in the queue or being loaded right now, so the same one isn't queued twice
+	 */
+	private final LongOpenHashSet pending = new LongOpenHashSet();
+
+	/**
+	 * A search looked at a region that was in memory because this loaded it
+	 */
+	final AtomicInteger hits = new AtomicInteger();
+
+	/**
+	 * A search looked at a region that's on disk but wasn't in memory
+	 */
+	final AtomicInteger misses = new AtomicInteger();
+
+	private final AtomicInteger dropped = new AtomicInteger();
+
+	RegionPrefetcher(CachedWorld world) {
+		this.world = world;
+		Thread thread = new Thread(this, "Baritone region prefetcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queues this region to be loaded, unless it's already queued. Doesn't block.
+	 */
+	void request(int regionX, int regionZ) {
+		long key = regionX & 0xFFFFFFFFL | (regionZ & 0xFFFFFFFFL) << 32;
+		synchronized (pending) {
+			if (!pending.add(key))
+				return;
+		}
+		if (!queue.offer(key)) {
+			dropped.incrementAndGet();
+			synchronized (pending) {
+				pending.remove(key);
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			long key;
+			try {
+				key = queue.take();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				return;
+			}
+			try {
+				int regionX = (int) key;
+				int regionZ = (int) (key >> 32);
+				long start = System.nanoTime();
+				if (world.loadPrefetched(regionX, regionZ)) {
+					logDebug("Prefetched region " + regionX + "," + regionZ + " in " + (System.nanoTime() - start) / 1000000L + "ms (" + hits.get() + " hits, " + misses.get() + " misses, " + dropped.get() + " dropped)");
+				}
+			} catch (Throwable th) {
+				// same as the packer, keep going no matter what
+				th.printStackTrace();
+			} finally {
+				synchronized (pending) {
+					pending.remove(key);
+				}
+			}
+		}
+	}
+}
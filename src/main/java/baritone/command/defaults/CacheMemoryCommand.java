@@ -0,0 +1,51 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.command.defaults;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import baritone.Baritone;
+import baritone.api.IBaritone;
+import baritone.api.command.Command;
+import baritone.api.command.argument.IArgConsumer;
+import baritone.api.command.exception.CommandException;
+import baritone.cache.CachedWorld;
+
+public class CacheMemoryCommand extends Command {
+
+	public CacheMemoryCommand(IBaritone baritone) {
+		super(baritone, "cachememory");
+	}
+
+	@Override
+	public void execute(String label, IArgConsumer args) throws CommandException {
+		args.requireMax(0);
+		CachedWorld cache = (CachedWorld) ctx.worldData().getCachedWorld();
+		logDirect(cache.getCacheStats());
+		Baritone.getExecutor().execute(() -> logDirect(cache.measureChunkMemory()));
+	}
+
+	@Override
+	public List<String> getLongDesc() {
+		return Arrays.asList("The cachememory command reports how much memory the cached chunks in memory take up on average, and how much they would have before cached chunks were compacted. Chunks still only in their region files aren't decoded for this, they're just counted. It also shows how much the regions in memory take up, and how often they've been evicted to stay under the cachedRegionMemoryBudget setting.", "", "Usage:", "> cachememory");
+	}
+
+	@Override
+	public String getShortDesc() {
+		return "Reports how much memory cached chunks take up";
+	}
+
+	@Override
+	public Stream<String> tabComplete(String label, IArgConsumer args) {
+		return Stream.empty();
+	}
+}
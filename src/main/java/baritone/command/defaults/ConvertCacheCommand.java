@@ -0,0 +1,51 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.command.defaults;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import baritone.Baritone;
+import baritone.api.IBaritone;
+import baritone.api.command.Command;
+import baritone.api.command.argument.IArgConsumer;
+import baritone.api.command.exception.CommandException;
+import baritone.cache.CachedWorld;
+
+public class ConvertCacheCommand extends Command {
+
+	public ConvertCacheCommand(IBaritone baritone) {
+		super(baritone, "convertcache");
+	}
+
+	@Override
+	public void execute(String label, IArgConsumer args) throws CommandException {
+		args.requireMax(0);
+		CachedWorld cache = (CachedWorld) ctx.worldData().getCachedWorld();
+		logDirect("Converting cached regions, this can take a while");
+		Baritone.getExecutor().execute(() -> logDirect(cache.convertRegionFiles()));
+	}
+
+	@Override
+	public List<String> getLongDesc() {
+		return Arrays.asList("The convertcache command rewrites cached region files saved in the old format in the new one, and reports how long each took to load and how much memory they use.", "", "Regions that are currently loaded are converted the next time they're saved.", "", "Usage:", "> convertcache");
+	}
+
+	@Override
+	public String getShortDesc() {
+		return "Converts Baritone's cache for this world to the new format";
+	}
+
+	@Override
+	public Stream<String> tabComplete(String label, IArgConsumer args) {
+		return Stream.empty();
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.command.defaults;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import baritone.Baritone;
+import baritone.api.IBaritone;
+import baritone.api.command.Command;
+import baritone.api.command.argument.IArgConsumer;
+import baritone.api.command.exception.CommandException;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalIndex;
+import baritone.api.pathing.goals.GoalTwoBlocks;
+import baritone.api.utils.BetterBlockPos;
+
+public class GoalBenchmarkCommand extends Command {
+
+	private static final int[] SIZES = { 10, 100, 1000 };
+
+	private static final int QUERIES = 200000;
+
+	public GoalBenchmarkCommand(IBaritone baritone) {
+		super(baritone, "goalbenchmark");
+	}
+
+	@Override
+	public void execute(String label, IArgConsumer args) throws CommandException {
+		args.requireMax(0);
+		BetterBlockPos feet = ctx.playerFeet();
+		logDirect("Benchmarking composite goals, this takes a few seconds");
+		Baritone.getExecutor().execute(() -> {
+			for (int size : SIZES) {
+				logDirect(run(size, feet));
+			}
+		});
+	}
+
+	private static String run(int size, BetterBlockPos center) {
+		// the same seed each time so that runs can be compared
+		Random random = new Random(size);
+		Goal[] goals = new Goal[size];
+		for (int i = 0; i < size; i++) {
+			int x = center.x + random.nextInt(257) - 128;
+			int y = 5 + random.nextInt(60);
+			int z = center.z + random.nextInt(257) - 128;
+			goals[i] = random.nextBoolean() ? new GoalBlock(x, y, z) : new GoalTwoBlocks(x, y, z);
+		}
+		int[] queries = new int[QUERIES * 3];
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i * 3] = center.x + random.nextInt(385) - 192;
+			queries[i * 3 + 1] = random.nextInt(256);
+			queries[i * 3 + 2] = center.z + random.nextInt(385) - 192;
+		}
+		long start = System.nanoTime();
+		double linearSum = 0;
+		int linearHits = 0;
+		for (int i = 0; i < QUERIES; i++) {
+			int x = queries[i * 3], y = queries[i * 3 + 1], z = queries[i * 3 + 2];
+			double min = Double.MAX_VALUE;
+			boolean in = false;
+			for (Goal goal : goals) {
+				min = Math.min(min, goal.heuristic(x, y, z));
+				in |= goal.isInGoal(x, y, z);
+			}
+			linearSum += min;
+			linearHits += in ? 1 : 0;
+		}
+		long linear = System.nanoTime() - start;
+		start = System.nanoTime();
+		GoalIndex index = new GoalIndex(goals);
+		long build = System.nanoTime() - start;
+		start = System.nanoTime();
+		double indexedSum = 0;
+		int indexedHits = 0;
+		for (int i = 0; i < QUERIES; i++) {
+			int x = queries[i * 3], y = queries[i * 3 + 1], z = queries[i * 3 + 2];
+			indexedSum += index.heuristic(x, y, z);
+			indexedHits += index.isInGoal(x, y, z) ? 1 : 0;
+		}
+		long indexed = System.nanoTime() - start;
+		// the sums mostly keep either loop from being optimized away, every query is checked on its own after the timing
+		boolean same = Math.abs(linearSum - indexedSum) < 1e-6 * Math.abs(linearSum) && linearHits == indexedHits;
+		for (int i = 0; i < QUERIES && same; i++) {
+			int x = queries[i * 3], y = queries[i * 3 + 1], z = queries[i * 3 + 2];
+			double min = Double.MAX_VALUE;
+			boolean in = false;
+			for (Goal goal : goals) {
+				min = Math.min(min, goal.heuristic(x, y, z));
+				in |= goal.isInGoal(x, y, z);
+			}
+			same = Math.abs(min - index.heuristic(x, y, z)) <= 1e-9 * Math.max(1, Math.abs(min)) && in == index.isInGoal(x, y, z);
+		}
+		return size + " goals: linear " + linear / QUERIES + "ns per node, indexed " + indexed / QUERIES + "ns per node (built in " + build / 1000 + "us)" + (same ? "" : ", RESULTS DIFFER");
+	}
+
+	@Override
+	public List<String> getLongDesc() {
+		return Arrays.asList("The goalbenchmark command times the heuristic and isInGoal of composite goals with 10, 100 and 1000 random block goals around you, checking every goal one by one and with the spatial index that GoalComposite uses above goalIndexThreshold goals.", "", "Usage:", "> goalbenchmark");
+	}
+
+	@Override
+	public String getShortDesc() {
+		return "Times composite goals with and without the spatial index";
+	}
+
+	@Override
+	public Stream<String> tabComplete(String label, IArgConsumer args) {
+		return Stream.empty();
+	}
+}
@@ -13,6 +13,7 @@ package baritone.event;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import baritone.Baritone;
+import baritone.api.event.events.BlockChangeEvent;
 import baritone.api.event.events.BlockInteractEvent;
 import baritone.api.event.events.ChatEvent;
 import baritone.api.event.events.ChunkEvent;
@@ -32,6 +33,7 @@ import baritone.api.utils.Helper;
 import baritone.cache.WorldProvider;
 import baritone.utils.BlockStateInterface;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.EmptyChunk;
 import net.minecraft.world.chunk.WorldChunk;
 
 /**
@@ -77,6 +79,24 @@ public final class GameEventHandler implements IEventBus, Helper {
 		listeners.forEach(l -> l.onChunkEvent(event));
 	}
 
+	@Override
+	public void onBlockChange(BlockChangeEvent event) {
+		if (Baritone.settings().incrementalCacheUpdates.value) {
+			World world = baritone.getPlayerContext().world();
+			baritone.getWorldProvider().ifWorldLoaded(worldData -> {
+				// patching from a chunk that isn't there would cache it as all air
+				if (!world.getChunkManager().isChunkLoaded(event.getChunkX(), event.getChunkZ()))
+					return;
+				WorldChunk chunk = world.getChunk(event.getChunkX(), event.getChunkZ());
+				if (!(chunk instanceof EmptyChunk)) {
+					worldData.cache.blocksChanged(chunk, event.getPositions());
+				}
+			});
+		}
+
+		listeners.forEach(l -> l.onBlockChange(event));
+	}
+
 	@Override
 	public void onPathEvent(PathEvent event) {
 		listeners.forEach(l -> l.onPathEvent(event));
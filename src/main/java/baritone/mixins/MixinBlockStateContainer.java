@@ -37,4 +37,9 @@ public abstract class MixinBlockStateContainer implements IBlockStateContainer {
 	public int[] storageArray() {
 		return ((IBitArray) data).toArray();
 	}
+
+	@Override
+	public long[] storageWords() {
+		return data.getStorage();
+	}
 }
@@ -10,18 +10,25 @@
 
 package baritone.mixins;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import baritone.api.BaritoneAPI;
 import baritone.api.IBaritone;
+import baritone.api.event.events.BlockChangeEvent;
 import baritone.api.event.events.ChunkEvent;
 import baritone.api.event.events.type.EventState;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.network.packet.BlockUpdateS2CPacket;
 import net.minecraft.client.network.packet.ChunkDataS2CPacket;
+import net.minecraft.client.network.packet.ChunkDeltaUpdateS2CPacket;
 import net.minecraft.client.network.packet.CombatEventS2CPacket;
 import net.minecraft.client.network.packet.UnloadChunkS2CPacket;
+import net.minecraft.util.math.BlockPos;
 
 /**
  * @author Brady
@@ -70,4 +77,31 @@ public class MixinClientPlayNetHandler {
 			}
 		}
 	}
+
+	@Inject(method = "onBlockUpdate", at = @At("RETURN"))
+	private void postHandleBlockUpdate(BlockUpdateS2CPacket packet, CallbackInfo ci) {
+		BlockPos pos = packet.getPos();
+		for (IBaritone ibaritone : BaritoneAPI.getProvider().getAllBaritones()) {
+			if (ibaritone.getPlayerContext().player().networkHandler == (ClientPlayNetworkHandler) (Object) this) {
+				ibaritone.getGameEventHandler().onBlockChange(new BlockChangeEvent(pos.getX() >> 4, pos.getZ() >> 4, Collections.singletonList(pos)));
+			}
+		}
+	}
+
+	@Inject(method = "onChunkDeltaUpdate", at = @At("RETURN"))
+	private void postHandleChunkDeltaUpdate(ChunkDeltaUpdateS2CPacket packet, CallbackInfo ci) {
+		ChunkDeltaUpdateS2CPacket.ChunkDeltaRecord[] records = packet.getRecords();
+		if (records.length == 0)
+			return;
+		List<BlockPos> positions = new ArrayList<>(records.length);
+		for (ChunkDeltaUpdateS2CPacket.ChunkDeltaRecord record : records) {
+			positions.add(record.getBlockPos());
+		}
+		BlockPos first = positions.get(0);
+		for (IBaritone ibaritone : BaritoneAPI.getProvider().getAllBaritones()) {
+			if (ibaritone.getPlayerContext().player().networkHandler == (ClientPlayNetworkHandler) (Object) this) {
+				ibaritone.getGameEventHandler().onBlockChange(new BlockChangeEvent(first.getX() >> 4, first.getZ() >> 4, positions));
+			}
+		}
+	}
 }
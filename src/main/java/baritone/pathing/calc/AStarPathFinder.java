@@ -10,15 +10,22 @@
 
 package baritone.pathing.calc;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
 import java.util.Optional;
 import baritone.Baritone;
 import baritone.api.pathing.calc.IPath;
 import baritone.api.pathing.goals.Goal;
 import baritone.api.pathing.movement.ActionCosts;
 import baritone.api.utils.BetterBlockPos;
-import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.calc.openset.IOpenSet;
+import baritone.pathing.calc.openset.NodeStoreBinaryHeapOpenSet;
+import baritone.pathing.calc.openset.OpenSetType;
 import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.FallCache;
 import baritone.pathing.movement.Moves;
+import baritone.utils.ToolSet;
 import baritone.utils.pathing.BetterWorldBorder;
 import baritone.utils.pathing.Favoring;
 import baritone.utils.pathing.MutableMoveResult;
@@ -33,25 +40,96 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
 	private final Favoring favoring;
 	private final CalculationContext calcContext;
 
+	/**
+	 * What the open set is ordered by is {@code costWeight * cost + heuristicWeight * estimatedCostToGoal}, normally both 1
+	 */
+	private double costWeight = 1;
+	private double heuristicWeight = 1;
+
+	/**
+	 * Search state that {@link #relax} updates, only meaningful during {@link #calculate0}
+	 */
+	private boolean failing;
+	private long firstSegmentTime; // compare with the first complete path of BidirectionalAStarPathFinder
+	private int peakOpenSetSize;
+
+	/**
+	 * The highest combined cost taken out of the open set so far, published every so often for {@link PortfolioPathFinder}. Unweighted and with a heuristic that doesn't overestimate, no path to the goal can cost less than this.
+	 */
+	private volatile double lowerBound;
+
+	/**
+	 * The other half of a {@link BidirectionalAStarPathFinder}, {@code null} for a normal search
+	 */
+	private Meeting meeting;
+
+	/**
+	 * The cost (as searched, so with favoring) of the path this found to the goal, or {@link ActionCosts#COST_INF} if it didn't get there
+	 */
+	private volatile double goalCost = ActionCosts.COST_INF;
+
 	public AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context) {
-		super(startX, startY, startZ, goal, context);
+		this(startX, startY, startZ, goal, favoring, context, null);
+	}
+
+	public AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context, SearchArena arena) {
+		super(startX, startY, startZ, goal, context, arena);
 		this.favoring = favoring;
 		calcContext = context;
 	}
 
+	/**
+	 * Weighted A* (or greedy best first, with a cost weight of 0) instead of the normal search. Has to be called before the search starts.
+	 */
+	AStarPathFinder weighted(double costWeight, double heuristicWeight) {
+		this.costWeight = costWeight;
+		this.heuristicWeight = heuristicWeight;
+		return this;
+	}
+
+	/**
+	 * Runs this as the forward half of a search that's also coming from the other end. Has to be called before the search starts.
+	 */
+	AStarPathFinder meetWith(Meeting meeting) {
+		this.meeting = meeting;
+		return this;
+	}
+
+	double lowerBound() {
+		return lowerBound;
+	}
+
+	double goalCost() {
+		return goalCost;
+	}
+
+	private double combinedCost(double cost, double estimatedCostToGoal) {
+		return costWeight * cost + heuristicWeight * estimatedCostToGoal;
+	}
+
 	@Override
 	protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
-		startNode = getNodeAtPosition(startX, startY, startZ, BetterBlockPos.longHash(startX, startY, startZ));
-		startNode.cost = 0;
-		startNode.combinedCost = startNode.estimatedCostToGoal;
-		BinaryHeapOpenSet openSet = new BinaryHeapOpenSet();
-		openSet.insert(startNode);
-		double[] bestHeuristicSoFar = new double[COEFFICIENTS.length];//keep track of the best node by the metric of (estimatedCostToGoal + cost / COEFFICIENTS[i])
+		long[] gcBefore = logStatistics() ? gcSnapshot() : null;
+		long lookupsBefore = calcContext.bsi.getLookups();
+		long readsBefore = calcContext.bsi.getReads();
+		OpenSetType openSetType = null; // the primitive node store always uses its own binary heap
+		Nodes nodes;
+		if (store == null) {
+			openSetType = chooseOpenSet();
+			nodes = new ObjectNodes(arena != null ? arena.openSet(openSetType) : openSetType.create());
+		} else {
+			nodes = new StoreNodes(arena != null ? arena.storeOpenSet(store) : new NodeStoreBinaryHeapOpenSet(store));
+		}
+		int start = nodes.getOrCreate(startX, startY, startZ, BetterBlockPos.longHash(startX, startY, startZ));
+		nodes.setStart(start);
+		nodes.improve(start, PathNodeStore.NONE, 0, combinedCost(0, nodes.getEstimatedCostToGoal(start)));
+		peakOpenSetSize = 1;
+		double[] bestHeuristicSoFar = arena != null ? arena.bestHeuristicSoFar : new double[COEFFICIENTS.length];//keep track of the best node by the metric of (estimatedCostToGoal + cost / COEFFICIENTS[i])
 		for (int i = 0; i < bestHeuristicSoFar.length; i++) {
-			bestHeuristicSoFar[i] = startNode.estimatedCostToGoal;
-			bestSoFar[i] = startNode;
+			bestHeuristicSoFar[i] = nodes.getEstimatedCostToGoal(start);
+			nodes.setBestSoFar(i, start);
 		}
-		MutableMoveResult res = new MutableMoveResult();
+		MutableMoveResult res = arena != null ? arena.moveResult : new MutableMoveResult();
 		BetterWorldBorder worldBorder = new BetterWorldBorder(calcContext.world.getWorldBorder());
 		long startTime = System.currentTimeMillis();
 		boolean slowPath = Baritone.settings().slowPath.value;
@@ -60,8 +138,10 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
 		}
 		long primaryTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout);
 		long failureTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : failureTimeout);
-		boolean failing = true;
+		failing = true;
+		firstSegmentTime = 0;
 		int numNodes = 0;
+		int numPolled = 0; // nodes plus lazy edges
 		int numMovementsConsidered = 0;
 		int numEmptyChunk = 0;
 		boolean isFavoring = !favoring.isEmpty();
@@ -69,10 +149,15 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
 		int pathingMaxChunkBorderFetch = Baritone.settings().pathingMaxChunkBorderFetch.value; // grab all settings beforehand so that changing settings during pathing doesn't cause a crash or unpredictable behavior
 		double minimumImprovement = Baritone.settings().minimumImprovementRepropagation.value ? MIN_IMPROVEMENT : 0;
 		Moves[] allMoves = Moves.values();
-		while (!openSet.isEmpty() && numEmptyChunk < pathingMaxChunkBorderFetch && !cancelRequested) {
-			if ((numNodes & timeCheckInterval - 1) == 0) { // only call this once every 64 nodes (about half a millisecond)
+		double[] lazyBounds = Baritone.settings().lazyEdgeEvaluation.value ? lazyLowerBounds(calcContext) : null;
+		int numLazyEdges = 0; // edges that would have been calculated right away without lazy evaluation
+		int numLazyCalculated = 0; // of those, how many got calculated anyway
+		double highestCombinedCost = nodes.getCombinedCost(start);
+		while (!nodes.isOpenSetEmpty() && numEmptyChunk < pathingMaxChunkBorderFetch && !cancelRequested && (meeting == null || !meeting.stopped())) {
+			if ((numPolled++ & timeCheckInterval - 1) == 0) { // only call this once every 64 nodes (about half a millisecond)
+				lowerBound = highestCombinedCost;
 				long now = System.currentTimeMillis(); // since nanoTime is slow on windows (takes many microseconds)
-				if (now - failureTimeoutTime >= 0 || !failing && now - primaryTimeoutTime >= 0) {
+				if (now - failureTimeoutTime >= 0 || (!failing || meeting != null && meeting.bestCost() < ActionCosts.COST_INF) && now - primaryTimeoutTime >= 0) {
 					break;
 				}
 			}
@@ -82,17 +167,59 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
 				} catch (InterruptedException ignored) {
 				}
 			}
-			PathNode currentNode = openSet.removeLowest();
-			mostRecentConsidered = currentNode;
+			int currentNode = nodes.removeLowest();
+			if (nodes.getCombinedCost(currentNode) > highestCombinedCost) {
+				highestCombinedCost = nodes.getCombinedCost(currentNode);
+			}
+			if (meeting != null && nodes.getCombinedCost(currentNode) >= meeting.bestCost()) {
+				break; // nothing left on this side can beat the path through the meeting point
+			}
+			int currentX = nodes.getX(currentNode);
+			int currentY = nodes.getY(currentNode);
+			int currentZ = nodes.getZ(currentNode);
+			Moves lazyMove = nodes.getLazyMove(currentNode);
+			if (lazyMove != null) {
+				// not a node but a lazy edge into one, with only a lower bound on its cost. time to find out what it really is
+				int parent = nodes.getPrevious(currentNode);
+				int neighbor = nodes.getOrCreate(currentX, currentY, currentZ, BetterBlockPos.longHash(currentX, currentY, currentZ));
+				if (nodes.getCost(neighbor) - nodes.getCost(currentNode) <= minimumImprovement) {
+					continue; // got there at least as cheaply some other way in the meantime, this edge never has to be calculated
+				}
+				int parentX = nodes.getX(parent);
+				int parentY = nodes.getY(parent);
+				int parentZ = nodes.getZ(parent);
+				res.reset();
+				calcContext.bsi.centerNeighborhood(parentX, parentY, parentZ);
+				lazyMove.apply(calcContext, parentX, parentY, parentZ, res);
+				numMovementsConsidered++;
+				numLazyCalculated++;
+				double actionCost = res.cost;
+				if (actionCost >= ActionCosts.COST_INF) {
+					continue; // impossible after all, but any other way to the same place has its own edge, so nothing else is lost
+				}
+				if (isFavoring) {
+					actionCost *= favoring.calculate(BetterBlockPos.longHash(currentX, currentY, currentZ));
+				}
+				relax(nodes, parent, neighbor, nodes.getCost(parent) + actionCost, bestHeuristicSoFar, minimumImprovement);
+				continue;
+			}
+			nodes.setMostRecentConsidered(currentNode);
 			numNodes++;
-			if (goal.isInGoal(currentNode.x, currentNode.y, currentNode.z)) {
+			if (goal.isInGoal(currentX, currentY, currentZ)) {
 				logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
-				return Optional.of(new Path(startNode, currentNode, numNodes, goal, calcContext));
+				logLazyEvaluation(numLazyEdges, numLazyCalculated);
+				logLookups(lookupsBefore, readsBefore, numNodes);
+				recordOpenSetStats(openSetType, numNodes, System.currentTimeMillis() - startTime, peakOpenSetSize);
+				lowerBound = highestCombinedCost;
+				goalCost = nodes.getCost(currentNode);
+				return Optional.of(nodes.path(currentNode, numNodes));
 			}
+			double currentCost = nodes.getCost(currentNode);
+			calcContext.bsi.centerNeighborhood(currentX, currentY, currentZ);
 			for (Moves moves : allMoves) {
-				int newX = currentNode.x + moves.xOffset;
-				int newZ = currentNode.z + moves.zOffset;
-				if ((newX >> 4 != currentNode.x >> 4 || newZ >> 4 != currentNode.z >> 4) && !calcContext.isLoaded(newX, newZ)) {
+				int newX = currentX + moves.xOffset;
+				int newZ = currentZ + moves.zOffset;
+				if ((newX >> 4 != currentX >> 4 || newZ >> 4 != currentZ >> 4) && !calcContext.isLoaded(newX, newZ)) {
 					// only need to check if the destination is a loaded chunk if it's in a different chunk than the start of the movement
 					if (!moves.dynamicXZ) { // only increment the counter if the movement would have gone out of bounds guaranteed
 						numEmptyChunk++;
@@ -102,11 +229,32 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
 				if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ)) {
 					continue;
 				}
-				if (currentNode.y + moves.yOffset > 256 || currentNode.y + moves.yOffset < 0) {
+				if (currentY + moves.yOffset > 256 || currentY + moves.yOffset < 0) {
+					continue;
+				}
+				if (lazyBounds != null && lazyBounds[moves.ordinal()] > 0) {
+					// a move that always ends up in the same place, so it can go in the open set with a lower bound and only be calculated if it's ever the best option
+					numLazyEdges++;
+					int newY = currentY + moves.yOffset;
+					long hashCode = BetterBlockPos.longHash(newX, newY, newZ);
+					double bound = lazyBounds[moves.ordinal()];
+					if (isFavoring) {
+						bound *= favoring.calculate(hashCode);
+					}
+					int neighbor = nodes.getOrCreate(newX, newY, newZ, hashCode);
+					double tentativeCost = currentCost + bound;
+					if (nodes.getCost(neighbor) - tentativeCost <= minimumImprovement) {
+						continue; // couldn't possibly be an improvement, no need to ever calculate it
+					}
+					// an open set entry of its own, rather than a bound on the neighbor itself, so that whatever else could get there isn't pushed out by a bound that might not hold up
+					nodes.lazyEdge(neighbor, currentNode, moves, tentativeCost, combinedCost(tentativeCost, nodes.getEstimatedCostToGoal(neighbor)));
+					if (nodes.openSetSize() > peakOpenSetSize) {
+						peakOpenSetSize = nodes.openSetSize();
+					}
 					continue;
 				}
 				res.reset();
-				moves.apply(calcContext, currentNode.x, currentNode.y, currentNode.z, res);
+				moves.apply(calcContext, currentX, currentY, currentZ, res);
 				numMovementsConsidered++;
 				double actionCost = res.cost;
 				if (actionCost >= ActionCosts.COST_INF) {
@@ -120,47 +268,473 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
 				}
 				if (!moves.dynamicXZ && (res.x != newX || res.z != newZ))
 					throw new IllegalStateException(moves + " " + res.x + " " + newX + " " + res.z + " " + newZ);
-				if (!moves.dynamicY && res.y != currentNode.y + moves.yOffset)
-					throw new IllegalStateException(moves + " " + res.y + " " + (currentNode.y + moves.yOffset));
+				if (!moves.dynamicY && res.y != currentY + moves.yOffset)
+					throw new IllegalStateException(moves + " " + res.y + " " + (currentY + moves.yOffset));
 				long hashCode = BetterBlockPos.longHash(res.x, res.y, res.z);
 				if (isFavoring) {
 					// see issue #18
 					actionCost *= favoring.calculate(hashCode);
 				}
-				PathNode neighbor = getNodeAtPosition(res.x, res.y, res.z, hashCode);
-				double tentativeCost = currentNode.cost + actionCost;
-				if (neighbor.cost - tentativeCost > minimumImprovement) {
-					neighbor.previous = currentNode;
-					neighbor.cost = tentativeCost;
-					neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
-					if (neighbor.isOpen()) {
-						openSet.update(neighbor);
-					} else {
-						openSet.insert(neighbor);//dont double count, dont insert into open set if it's already there
-					}
-					for (int i = 0; i < COEFFICIENTS.length; i++) {
-						double heuristic = neighbor.estimatedCostToGoal + neighbor.cost / COEFFICIENTS[i];
-						if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
-							bestHeuristicSoFar[i] = heuristic;
-							bestSoFar[i] = neighbor;
-							if (failing && getDistFromStartSq(neighbor) > MIN_DIST_PATH * MIN_DIST_PATH) {
-								failing = false;
-							}
-						}
-					}
-				}
+				int neighbor = nodes.getOrCreate(res.x, res.y, res.z, hashCode);
+				relax(nodes, currentNode, neighbor, currentCost + actionCost, bestHeuristicSoFar, minimumImprovement);
 			}
 		}
 		if (cancelRequested)
 			return Optional.empty();
 		System.out.println(numMovementsConsidered + " movements considered");
-		System.out.println("Open set size: " + openSet.size());
+		System.out.println("Open set size: " + nodes.openSetSize());
 		System.out.println("PathNode map size: " + mapSize());
 		System.out.println((int) (numNodes * 1.0 / ((System.currentTimeMillis() - startTime) / 1000F)) + " nodes per second");
+		if (logStatistics()) {
+			logDebug((int) (numMovementsConsidered * 1.0 / ((System.currentTimeMillis() - startTime) / 1000F)) + " movements considered per second" + (Baritone.settings().usePassabilityTable.value ? " (passability table)" : ""));
+			logDebug("Peak open set size " + peakOpenSetSize + (openSetType != null ? " (" + openSetType.settingName + ")" : ""));
+			if (store != null) {
+				logDebug("PathNodeStore takes up " + store.footprintBytes() / 1024 + " KiB");
+			}
+			if (firstSegmentTime != 0) {
+				logDebug("First usable path segment after " + (firstSegmentTime - startTime) + "ms");
+			}
+		}
+		logLazyEvaluation(numLazyEdges, numLazyCalculated);
+		logLookups(lookupsBefore, readsBefore, numNodes);
+		logGarbageCollection(gcBefore);
+		recordOpenSetStats(openSetType, numNodes, System.currentTimeMillis() - startTime, peakOpenSetSize);
 		Optional<IPath> result = bestSoFar(true, numNodes);
 		if (result.isPresent()) {
 			logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
 		}
 		return result;
 	}
+
+	/**
+	 * Has {@code neighbor} go through {@code currentNode} instead, if that's an improvement
+	 */
+	private void relax(Nodes nodes, int currentNode, int neighbor, double tentativeCost, double[] bestHeuristicSoFar, double minimumImprovement) {
+		if (nodes.getCost(neighbor) - tentativeCost <= minimumImprovement)
+			return;
+		double estimatedCostToGoal = nodes.getEstimatedCostToGoal(neighbor);
+		nodes.improve(neighbor, currentNode, tentativeCost, combinedCost(tentativeCost, estimatedCostToGoal));
+		if (nodes.openSetSize() > peakOpenSetSize) {
+			peakOpenSetSize = nodes.openSetSize();
+		}
+		if (meeting != null) {
+			meeting.reached(nodes.getX(neighbor), nodes.getY(neighbor), nodes.getZ(neighbor), tentativeCost);
+		}
+		for (int i = 0; i < COEFFICIENTS.length; i++) {
+			double heuristic = estimatedCostToGoal + tentativeCost / COEFFICIENTS[i];
+			if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
+				bestHeuristicSoFar[i] = heuristic;
+				nodes.setBestSoFar(i, neighbor);
+				if (failing) {
+					int xDiff = nodes.getX(neighbor) - startX;
+					int yDiff = nodes.getY(neighbor) - startY;
+					int zDiff = nodes.getZ(neighbor) - startZ;
+					if (xDiff * xDiff + yDiff * yDiff + zDiff * zDiff > MIN_DIST_PATH * MIN_DIST_PATH) {
+						failing = false;
+						firstSegmentTime = System.currentTimeMillis();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * How {@link BidirectionalAStarPathFinder} follows along with its forward half, see {@link #meetWith}
+	 */
+	interface Meeting {
+
+		/**
+		 * Called whenever the cost from the start to a position goes down
+		 */
+		void reached(int x, int y, int z, double cost);
+
+		/**
+		 * @return The cost of the cheapest complete path known so far, or {@link ActionCosts#COST_INF} if there isn't one yet
+		 */
+		double bestCost();
+
+		/**
+		 * @return Whether the other half already decided the search is over
+		 */
+		boolean stopped();
+	}
+
+	/**
+	 * Where the nodes of a search are kept, so that {@link #calculate0} is the same loop for {@link PathNode} objects and for {@link #store}. Either way a node is an int, for {@link #store} its id and for objects see
+	 * {@link ObjectNodes}.
+	 */
+	private interface Nodes {
+
+		int getOrCreate(int x, int y, int z, long hashCode);
+
+		int getX(int node);
+
+		int getY(int node);
+
+		int getZ(int node);
+
+		double getEstimatedCostToGoal(int node);
+
+		double getCost(int node);
+
+		double getCombinedCost(int node);
+
+		int getPrevious(int node);
+
+		/**
+		 * Has {@code node} go through {@code previous} at this cost, and puts it in the open set or moves it up in it
+		 */
+		void improve(int node, int previous, double cost, double combinedCost);
+
+		boolean isOpenSetEmpty();
+
+		int openSetSize();
+
+		int removeLowest();
+
+		/**
+		 * Puts a lazy edge from {@code previous} into {@code target} in the open set as an entry of its own, see {@link PathNode#PathNode(PathNode, PathNode, Moves)}
+		 */
+		void lazyEdge(int target, int previous, Moves move, double cost, double combinedCost);
+
+		/**
+		 * @return The move of a lazy edge, or {@code null} if it's a node
+		 */
+		Moves getLazyMove(int node);
+
+		void setStart(int node);
+
+		void setMostRecentConsidered(int node);
+
+		void setBestSoFar(int coefficient, int node);
+
+		Path path(int end, int numNodes);
+	}
+
+	/**
+	 * {@link PathNode} objects in the map. They're numbered in the order this search first sees them, with {@link PathNode#searchId} holding the number, and lazy edges are numbered along with them.
+	 */
+	private final class ObjectNodes implements Nodes {
+
+		private final IOpenSet openSet;
+
+		private PathNode[] byId = new PathNode[1024];
+
+		private int count;
+
+		ObjectNodes(IOpenSet openSet) {
+			this.openSet = openSet;
+		}
+
+		private int id(PathNode node) {
+			if (node.searchId == 0) {
+				if (count == byId.length) {
+					byId = Arrays.copyOf(byId, count << 1);
+				}
+				byId[count++] = node;
+				node.searchId = count;
+			}
+			return node.searchId - 1;
+		}
+
+		@Override
+		public int getOrCreate(int x, int y, int z, long hashCode) {
+			return id(getNodeAtPosition(x, y, z, hashCode));
+		}
+
+		@Override
+		public int getX(int node) {
+			return byId[node].x;
+		}
+
+		@Override
+		public int getY(int node) {
+			return byId[node].y;
+		}
+
+		@Override
+		public int getZ(int node) {
+			return byId[node].z;
+		}
+
+		@Override
+		public double getEstimatedCostToGoal(int node) {
+			return byId[node].estimatedCostToGoal;
+		}
+
+		@Override
+		public double getCost(int node) {
+			return byId[node].cost;
+		}
+
+		@Override
+		public double getCombinedCost(int node) {
+			return byId[node].combinedCost;
+		}
+
+		@Override
+		public int getPrevious(int node) {
+			PathNode previous = byId[node].previous;
+			return previous == null ? PathNodeStore.NONE : previous.searchId - 1;
+		}
+
+		@Override
+		public void improve(int node, int previous, double cost, double combinedCost) {
+			PathNode pathNode = byId[node];
+			pathNode.previous = previous == PathNodeStore.NONE ? null : byId[previous];
+			pathNode.cost = cost;
+			pathNode.combinedCost = combinedCost;
+			if (pathNode.isOpen()) {
+				openSet.update(pathNode);
+			} else {
+				openSet.insert(pathNode);//dont double count, dont insert into open set if it's already there
+			}
+		}
+
+		@Override
+		public boolean isOpenSetEmpty() {
+			return openSet.isEmpty();
+		}
+
+		@Override
+		public int openSetSize() {
+			return openSet.size();
+		}
+
+		@Override
+		public int removeLowest() {
+			return openSet.removeLowest().searchId - 1;
+		}
+
+		@Override
+		public void lazyEdge(int target, int previous, Moves move, double cost, double combinedCost) {
+			PathNode edge = new PathNode(byId[target], byId[previous], move);
+			edge.cost = cost;
+			edge.combinedCost = combinedCost;
+			id(edge);
+			openSet.insert(edge);
+		}
+
+		@Override
+		public Moves getLazyMove(int node) {
+			return byId[node].lazyMove;
+		}
+
+		@Override
+		public void setStart(int node) {
+			startNode = byId[node];
+		}
+
+		@Override
+		public void setMostRecentConsidered(int node) {
+			mostRecentConsidered = byId[node];
+		}
+
+		@Override
+		public void setBestSoFar(int coefficient, int node) {
+			bestSoFar[coefficient] = byId[node];
+		}
+
+		@Override
+		public Path path(int end, int numNodes) {
+			return new Path(startNode, byId[end], numNodes, goal, calcContext);
+		}
+	}
+
+	/**
+	 * Nodes in {@link #store}, with lazy edges as ids of their own that aren't in its position index
+	 */
+	private final class StoreNodes implements Nodes {
+
+		private final PathNodeStore store = AStarPathFinder.this.store;
+
+		private final NodeStoreBinaryHeapOpenSet openSet;
+
+		StoreNodes(NodeStoreBinaryHeapOpenSet openSet) {
+			this.openSet = openSet;
+		}
+
+		@Override
+		public int getOrCreate(int x, int y, int z, long hashCode) {
+			return store.getOrCreate(x, y, z, hashCode);
+		}
+
+		@Override
+		public int getX(int node) {
+			return store.getX(node);
+		}
+
+		@Override
+		public int getY(int node) {
+			return store.getY(node);
+		}
+
+		@Override
+		public int getZ(int node) {
+			return store.getZ(node);
+		}
+
+		@Override
+		public double getEstimatedCostToGoal(int node) {
+			return store.getEstimatedCostToGoal(node);
+		}
+
+		@Override
+		public double getCost(int node) {
+			return store.getCost(node);
+		}
+
+		@Override
+		public double getCombinedCost(int node) {
+			return store.getCombinedCost(node);
+		}
+
+		@Override
+		public int getPrevious(int node) {
+			return store.getPrevious(node);
+		}
+
+		@Override
+		public void improve(int node, int previous, double cost, double combinedCost) {
+			store.setPrevious(node, previous);
+			store.setCost(node, cost);
+			store.setCombinedCost(node, combinedCost);
+			if (store.isOpen(node)) {
+				openSet.update(node);
+			} else {
+				openSet.insert(node);
+			}
+		}
+
+		@Override
+		public boolean isOpenSetEmpty() {
+			return openSet.isEmpty();
+		}
+
+		@Override
+		public int openSetSize() {
+			return openSet.size();
+		}
+
+		@Override
+		public int removeLowest() {
+			return openSet.removeLowest();
+		}
+
+		@Override
+		public void lazyEdge(int target, int previous, Moves move, double cost, double combinedCost) {
+			int edge = store.createLazyEdge(target, previous, move);
+			store.setCost(edge, cost);
+			store.setCombinedCost(edge, combinedCost);
+			openSet.insert(edge);
+		}
+
+		@Override
+		public Moves getLazyMove(int node) {
+			return store.getLazyMove(node);
+		}
+
+		@Override
+		public void setStart(int node) {
+			startId = node;
+		}
+
+		@Override
+		public void setMostRecentConsidered(int node) {
+			mostRecentConsideredId = node;
+		}
+
+		@Override
+		public void setBestSoFar(int coefficient, int node) {
+			bestSoFarIds[coefficient] = node;
+		}
+
+		@Override
+		public Path path(int end, int numNodes) {
+			return new Path(store, startId, end, numNodes, goal, calcContext);
+		}
+	}
+
+	/**
+	 * The least each move could possibly cost, for the moves that always end up in the same place and so can be evaluated lazily, 0 for the rest
+	 */
+	private static double[] lazyLowerBounds(CalculationContext context) {
+		double[] bounds = new double[Moves.values().length];
+		for (Moves moves : Moves.values()) {
+			if (moves.dynamicXZ || moves.dynamicY) {
+				continue;
+			}
+			if (moves.yOffset == 0) {
+				// traverse, sprinting with nothing in the way, or walking through water
+				bounds[moves.ordinal()] = Math.min(ActionCosts.SPRINT_ONE_BLOCK_COST, context.waterWalkSpeed);
+			} else if (moves.yOffset == 1 && (moves.xOffset != 0 || moves.zOffset != 0)) {
+				// ascend, the cheapest is walking up a slab
+				bounds[moves.ordinal()] = ActionCosts.WALK_ONE_BLOCK_COST;
+			}
+			// pillar and downward have ladders and vines, not worth it
+		}
+		return bounds;
+	}
+
+	private void logLazyEvaluation(int numLazyEdges, int numLazyCalculated) {
+		if (numLazyEdges == 0 || !logStatistics())
+			return;
+		logDebug("Lazy evaluation: " + numLazyCalculated + " of " + numLazyEdges + " traverse and ascend costs calculated, " + (int) (100 * (1 - numLazyCalculated / (double) numLazyEdges)) + "% avoided");
+	}
+
+	private void logLookups(long lookupsBefore, long readsBefore, int numNodes) {
+		if (numNodes == 0 || !logStatistics())
+			return;
+		long lookups = calcContext.bsi.getLookups() - lookupsBefore;
+		long reads = calcContext.bsi.getReads() - readsBefore;
+		logDebug(lookups / numNodes + " block lookups per node, " + reads / numNodes + " of them read from the world" + (lookups == reads ? "" : " (neighborhood cache)"));
+		FallCache falls = calcContext.fallCache();
+		if (falls != null && falls.getHits() + falls.getMisses() > 0) {
+			logDebug("Fall cache: " + falls.size() + " columns, " + (int) (100 * falls.getHits() / (falls.getHits() + falls.getMisses())) + "% of falls didn't have to scan down the column");
+		}
+		ToolSet tools = calcContext.toolSet;
+		if (tools.getHits() + tools.getMisses() > 0) {
+			logDebug("Mining cost cache: " + (int) (100 * tools.getHits() / (tools.getHits() + tools.getMisses())) + "% hits, " + ToolSet.getInvalidations() + " invalidations so far");
+		}
+	}
+
+	private OpenSetType chooseOpenSet() {
+		if (Baritone.settings().openSetComparison.value)
+			return OpenSetType.nextForComparison();
+		OpenSetType type = OpenSetType.byName(Baritone.settings().openSetType.value);
+		if (type == null) {
+			logDebug("Unknown openSetType " + Baritone.settings().openSetType.value + ", using a binary heap");
+			return OpenSetType.BINARY_HEAP;
+		}
+		return type;
+	}
+
+	private void recordOpenSetStats(OpenSetType type, int numNodes, long durationMS, int peakOpenSetSize) {
+		if (type == null || !Baritone.settings().openSetComparison.value)
+			return;
+		type.record(numNodes, durationMS, peakOpenSetSize);
+		for (OpenSetType compared : OpenSetType.compared()) {
+			logDebug("Open set " + compared.summary());
+		}
+	}
+
+	/**
+	 * @return The total collection count and collection time in milliseconds of all garbage collectors so far
+	 */
+	private static long[] gcSnapshot() {
+		long count = 0;
+		long time = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(gc.getCollectionCount(), 0); // -1 if undefined for this collector
+			time += Math.max(gc.getCollectionTime(), 0);
+		}
+		return new long[] { count, time };
+	}
+
+	private void logGarbageCollection(long[] before) {
+		if (before == null)
+			return;
+		long[] after = gcSnapshot();
+		logDebug((after[0] - before[0]) + " garbage collections (" + (after[1] - before[1]) + "ms) during search");
+	}
 }
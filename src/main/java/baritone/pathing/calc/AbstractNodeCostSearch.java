@@ -10,6 +10,9 @@
 
 package baritone.pathing.calc;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
 import java.util.Optional;
 import baritone.Baritone;
 import baritone.api.pathing.calc.IPath;
@@ -58,7 +61,27 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
 	/**
 	 * @see <a href="https://github.com/cabaletta/baritone/issues/107">Issue #107</a>
 	 */
-	private final Long2ObjectOpenHashMap<PathNode> map;
+	private Long2ObjectOpenHashMap<PathNode> map;
+
+	/**
+	 * Struct-of-arrays replacement for {@link #map} and the {@link PathNode} objects in it, only non null if {@link #primitive}. Both are set up by {@link #runSearch}
+	 */
+	protected PathNodeStore store;
+
+	/**
+	 * Whether {@link baritone.api.Settings#usePrimitiveNodeStore} was on when this search was created
+	 */
+	protected final boolean primitive;
+
+	/**
+	 * The arena this search may borrow its storage from, it's only actually taken for as long as {@link #runSearch} runs
+	 */
+	private final SearchArena offeredArena;
+
+	/**
+	 * The arena this search borrowed its storage from, or {@code null} if it allocated its own
+	 */
+	protected SearchArena arena;
 
 	protected PathNode startNode;
 
@@ -66,17 +89,28 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
 
 	protected final PathNode[] bestSoFar = new PathNode[COEFFICIENTS.length];
 
+	/**
+	 * The same as {@link #startNode}, {@link #mostRecentConsidered} and {@link #bestSoFar}, but as ids into {@link #store}
+	 */
+	protected int startId = PathNodeStore.NONE;
+
+	protected int mostRecentConsideredId = PathNodeStore.NONE;
+
+	protected final int[] bestSoFarIds = new int[COEFFICIENTS.length];
+
 	private volatile boolean isFinished;
 
 	protected boolean cancelRequested;
 
-	AbstractNodeCostSearch(int startX, int startY, int startZ, Goal goal, CalculationContext context) {
+	AbstractNodeCostSearch(int startX, int startY, int startZ, Goal goal, CalculationContext context, SearchArena arena) {
 		this.startX = startX;
 		this.startY = startY;
 		this.startZ = startZ;
 		this.goal = goal;
 		this.context = context;
-		map = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+		this.primitive = Baritone.settings().usePrimitiveNodeStore.value;
+		this.offeredArena = arena != null && Baritone.settings().reuseSearchArena.value ? arena : null;
+		Arrays.fill(bestSoFarIds, PathNodeStore.NONE);
 	}
 
 	@Override
@@ -85,14 +119,14 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
 	}
 
 	protected Optional<IPath> bestSoFar(boolean logInfo, int numNodes) {
-		if (startNode == null)
+		if (store == null ? startNode == null : startId == PathNodeStore.NONE)
 			return Optional.empty();
 		double bestDist = 0;
 		for (int i = 0; i < COEFFICIENTS.length; i++) {
-			if (bestSoFar[i] == null) {
+			if (store == null ? bestSoFar[i] == null : bestSoFarIds[i] == PathNodeStore.NONE) {
 				continue;
 			}
-			double dist = getDistFromStartSq(bestSoFar[i]);
+			double dist = store == null ? getDistFromStartSq(bestSoFar[i]) : getDistFromStartSq(bestSoFarIds[i]);
 			if (dist > bestDist) {
 				bestDist = dist;
 			}
@@ -106,6 +140,8 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
 					System.out.println("Path goes for " + Math.sqrt(dist) + " blocks");
 					logDebug("A* cost coefficient " + COEFFICIENTS[i]);
 				}
+				if (store != null)
+					return Optional.of(new Path(store, startId, bestSoFarIds[i], numNodes, goal, context));
 				return Optional.of(new Path(startNode, bestSoFar[i], numNodes, goal, context));
 			}
 		}
@@ -123,8 +159,10 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
 		if (isFinished)
 			throw new IllegalStateException("Path finder cannot be reused!");
 		cancelRequested = false;
+		long allocatedBefore = logStatistics() ? allocatedBytes() : -1;
 		try {
-			IPath path = calculate0(primaryTimeout, failureTimeout).map(IPath::postProcess).orElse(null);
+			Optional<IPath> result = runSearch(primaryTimeout, failureTimeout);
+			IPath path = result.map(IPath::postProcess).orElse(null);
 			if (cancelRequested)
 				return new PathCalculationResult(PathCalculationResult.Type.CANCELLATION);
 			if (path == null)
@@ -153,6 +191,58 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
 		} finally {
 			// this is run regardless of what exception may or may not be raised by calculate0
 			isFinished = true;
+			long allocatedAfter = allocatedBytes();
+			if (allocatedBefore >= 0 && allocatedAfter >= 0 && logStatistics()) {
+				logDebug("Allocated " + (allocatedAfter - allocatedBefore) / 1024 + " KiB during search" + (arena != null ? " (reused search arena)" : ""));
+			}
+		}
+	}
+
+	/**
+	 * @return Whether to log statistics about the search, see {@link baritone.api.Settings#searchStatistics}. Check this before building the message, most of them aren't free
+	 */
+	protected static boolean logStatistics() {
+		return Baritone.settings().searchStatistics.value;
+	}
+
+	/**
+	 * @return Bytes allocated by the current thread so far, or -1 if the JVM can't tell us
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+			if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled())
+				return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * Sets up the node storage, borrowing it from the arena if nobody else has it, and runs {@link #calculate0}. The arena is given back before this returns, whatever happens, so a search that's created but never run doesn't hold on to it.
+	 * <p>
+	 * Wrappers that run another search as part of theirs call this instead of its calculate0
+	 */
+	protected final Optional<IPath> runSearch(long primaryTimeout, long failureTimeout) {
+		arena = offeredArena != null && offeredArena.acquire() ? offeredArena : null;
+		try {
+			int size = Baritone.settings().pathingMapDefaultSize.value;
+			float loadFactor = Baritone.settings().pathingMapLoadFactor.value;
+			if (primitive) {
+				store = arena != null ? arena.store(goal, size, loadFactor) : new PathNodeStore(goal, size, loadFactor);
+			} else {
+				map = arena != null ? arena.map(size, loadFactor) : new Long2ObjectOpenHashMap<>(size, loadFactor);
+			}
+			Optional<IPath> result = calculate0(primaryTimeout, failureTimeout);
+			// before the release, after it the map can be cleared by the next search
+			if (!cancelRequested && map != null && goal instanceof CostToGoCache.Learning) {
+				((CostToGoCache.Learning) goal).learn(map.values());
+			}
+			return result;
+		} finally {
+			if (arena != null) {
+				arena.release();
+			}
 		}
 	}
 
@@ -175,6 +265,19 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
 		return xDiff * xDiff + yDiff * yDiff + zDiff * zDiff;
 	}
 
+	/**
+	 * Same as {@link #getDistFromStartSq(PathNode)}, for a node id in {@link #store}
+	 *
+	 * @param id A node id
+	 * @return The distance, squared
+	 */
+	protected double getDistFromStartSq(int id) {
+		int xDiff = store.getX(id) - startX;
+		int yDiff = store.getY(id) - startY;
+		int zDiff = store.getZ(id) - startZ;
+		return xDiff * xDiff + yDiff * yDiff + zDiff * zDiff;
+	}
+
 	@Override
 	public final Goal getGoal() {
 		return goal;
@@ -210,11 +313,15 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
 	}
 
 	protected int mapSize() {
-		return map.size();
+		return store == null ? map.size() : store.size();
 	}
 
 	@Override
 	public Optional<IPath> pathToMostRecentNodeConsidered() {
+		if (store != null) {
+			int node = mostRecentConsideredId;
+			return node == PathNodeStore.NONE ? Optional.empty() : Optional.of(new Path(store, startId, node, 0, goal, context));
+		}
 		return Optional.ofNullable(mostRecentConsidered).map(node -> new Path(startNode, node, 0, goal, context));
 	}
 }
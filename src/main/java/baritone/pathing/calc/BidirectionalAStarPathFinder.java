@@ -0,0 +1,375 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.Helper;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.calc.openset.IOpenSet;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.MovementHelper;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.Favoring;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * A* from the player towards the goal and, at the same time on another thread, from the goal back towards the player. Once the two frontiers touch there's a complete path, long before a forward only search would have dragged its frontier
+ * all the way over.
+ * <p>
+ * The forward half is a normal {@link AStarPathFinder} that reports what it reaches, see {@link AStarPathFinder#meetWith}. The backward search has no moves of its own. To find the predecessors of a position it guesses every source a {@link Moves} could have started from, runs the normal forward cost calculation from there, and keeps it if it lands on the
+ * position, which is the same trick {@link Path} uses to turn positions back into movements. So every edge of the stitched path is a real forward movement with its real cost.
+ * <p>
+ * Only used when the goal is a single position, see {@link #backwardStart(Goal, CalculationContext)}.
+ */
+public final class BidirectionalAStarPathFinder extends AbstractNodeCostSearch {
+
+	private final Favoring favoring;
+	private final CalculationContext calcContext;
+
+	/**
+	 * The backward search can't share {@link #calcContext}, the block state interface and tool set aren't thread safe
+	 */
+	private final CalculationContext backwardContext;
+
+	private final int goalX;
+	private final int goalY;
+	private final int goalZ;
+
+	/**
+	 * Lowest known cost from the start to each position reached by the forward search, and from each position to the goal for the backward search
+	 */
+	private final CostTable forwardCosts = new CostTable();
+	private final CostTable backwardCosts = new CostTable();
+
+	private volatile double bestMeetingCost = ActionCosts.COST_INF;
+	private int meetingX;
+	private int meetingY;
+	private int meetingZ;
+	private long firstMeetingTime;
+
+	/**
+	 * Set by whichever side decides the search is over
+	 */
+	private volatile boolean stop;
+
+	private long startTime;
+
+	/**
+	 * The search from the start towards the goal, a normal {@link AStarPathFinder} that tells this what it reaches
+	 */
+	private volatile AStarPathFinder forward;
+
+	public BidirectionalAStarPathFinder(int startX, int startY, int startZ, Goal goal, BetterBlockPos backwardStart, Favoring favoring, CalculationContext context, CalculationContext backwardContext) {
+		super(startX, startY, startZ, goal, context, null);
+		if (primitive)
+			throw new IllegalStateException("Bidirectional search needs the PathNode map, turn off usePrimitiveNodeStore");
+		this.favoring = favoring;
+		this.calcContext = context;
+		this.backwardContext = backwardContext;
+		this.goalX = backwardStart.x;
+		this.goalY = backwardStart.y;
+		this.goalZ = backwardStart.z;
+	}
+
+	/**
+	 * Where the backward search should start for this goal, or {@code null} if it can't be run and a plain {@link AStarPathFinder} should be used instead
+	 *
+	 * @param goal    The goal of the search
+	 * @param context The context the forward search will run with
+	 * @return The single position the backward search starts from
+	 */
+	public static BetterBlockPos backwardStart(Goal goal, CalculationContext context) {
+		if (context.getClass() != CalculationContext.class) {
+			// a custom context (e.g. the builder's) can't be copied for the backward thread
+			return null;
+		}
+		if (goal instanceof GoalBlock) {
+			GoalBlock block = (GoalBlock) goal;
+			return new BetterBlockPos(block.x, block.y, block.z);
+		}
+		if (goal instanceof GoalXZ) {
+			// a column, but whatever we stand on at the top of it is where the path is going to end anyway
+			GoalXZ xz = (GoalXZ) goal;
+			int x = xz.getX();
+			int z = xz.getZ();
+			if (!context.isLoaded(x, z))
+				return null;
+			for (int y = 255; y > 0; y--) {
+				if (MovementHelper.canWalkOn(context.bsi, x, y - 1, z) && MovementHelper.canWalkThrough(context.bsi, x, y, z) && MovementHelper.canWalkThrough(context.bsi, x, y + 1, z))
+					return new BetterBlockPos(x, y, z);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+		startTime = System.currentTimeMillis();
+		boolean slowPath = Baritone.settings().slowPath.value;
+		long primaryTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout);
+		long failureTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : failureTimeout);
+		// no arena, its map is still needed for the stitching after its search is over
+		AStarPathFinder search = new AStarPathFinder(startX, startY, startZ, goal, favoring, calcContext).meetWith(new AStarPathFinder.Meeting() {
+
+			@Override
+			public void reached(int x, int y, int z, double cost) {
+				long hashCode = BetterBlockPos.longHash(x, y, z);
+				forwardCosts.put(hashCode, cost);
+				double toGoal = backwardCosts.get(hashCode);
+				if (toGoal < ActionCosts.COST_INF) {
+					offerMeeting(x, y, z, cost + toGoal);
+				}
+			}
+
+			@Override
+			public double bestCost() {
+				return bestMeetingCost;
+			}
+
+			@Override
+			public boolean stopped() {
+				return stop;
+			}
+		});
+		forward = search;
+		forwardCosts.put(BetterBlockPos.longHash(startX, startY, startZ), 0);
+		BackwardSearch backward = new BackwardSearch();
+		CountDownLatch backwardDone = new CountDownLatch(1);
+		Baritone.getExecutor().execute(() -> {
+			try {
+				backward.run(primaryTimeoutTime, failureTimeoutTime);
+			} catch (Exception e) {
+				// the forward search is still a perfectly good A* on its own
+				Helper.HELPER.logDebug("Backward search exception: " + e);
+				e.printStackTrace();
+			} finally {
+				backwardDone.countDown();
+			}
+		});
+		Optional<IPath> result;
+		try {
+			if (cancelRequested)
+				return Optional.empty();
+			result = search.runSearch(primaryTimeout, failureTimeout);
+		} finally {
+			stop = true;
+			try {
+				backwardDone.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (logStatistics()) {
+			logDebug("Backward search: " + backward.numNodes + " nodes, " + backward.numMovementsConsidered + " movements considered, map size " + backward.map.size());
+		}
+		if (cancelRequested)
+			return Optional.empty();
+		if (result.isPresent() && goal.isInGoal(result.get().getDest()))
+			return result; // reached the goal before meeting the backward search
+		if (bestMeetingCost < ActionCosts.COST_INF) {
+			logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, first complete path after " + (firstMeetingTime - startTime) + "ms, met at " + new BetterBlockPos(meetingX, meetingY, meetingZ));
+			return Optional.of(stitch(search, backward));
+		}
+		return result;
+	}
+
+	private synchronized void offerMeeting(int x, int y, int z, double cost) {
+		if (cost >= bestMeetingCost)
+			return;
+		if (bestMeetingCost >= ActionCosts.COST_INF) {
+			firstMeetingTime = System.currentTimeMillis();
+			if (logStatistics()) {
+				logDebug("Bidirectional search found its first complete path after " + (firstMeetingTime - startTime) + "ms");
+			}
+		}
+		meetingX = x;
+		meetingY = y;
+		meetingZ = z;
+		bestMeetingCost = cost;
+	}
+
+	/**
+	 * Joins the forward chain from the start to the meeting point with the backward chain from the meeting point to the goal. Only called once both searches have stopped.
+	 */
+	private IPath stitch(AStarPathFinder forward, BackwardSearch backward) {
+		long hash = BetterBlockPos.longHash(meetingX, meetingY, meetingZ);
+		PathNode forwardMeet = forward.getNodeAtPosition(meetingX, meetingY, meetingZ, hash);
+		PathNode backwardMeet = backward.map.get(hash);
+		PathNode end = forwardMeet;
+		for (PathNode node = backwardMeet.previous; node != null; node = node.previous) {
+			PathNode next = new PathNode(node.x, node.y, node.z, goal);
+			next.cost = forwardMeet.cost + backwardMeet.cost - node.cost;
+			next.previous = end;
+			end = next;
+		}
+		return new Path(forward.startNode, end, forward.mapSize() + backward.map.size(), goal, calcContext);
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+		AStarPathFinder search = forward;
+		if (search != null) {
+			search.cancel();
+		}
+	}
+
+	@Override
+	public Optional<IPath> bestPathSoFar() {
+		AStarPathFinder search = forward;
+		return search == null ? Optional.empty() : search.bestPathSoFar();
+	}
+
+	@Override
+	public Optional<IPath> pathToMostRecentNodeConsidered() {
+		AStarPathFinder search = forward;
+		return search == null ? Optional.empty() : search.pathToMostRecentNodeConsidered();
+	}
+
+	/**
+	 * A* from the goal position towards the start, where {@link PathNode#previous} points one step closer to the goal and {@link PathNode#cost} is the cost from the node to the goal
+	 */
+	private final class BackwardSearch {
+
+		private final Goal towardsStart = new GoalBlock(startX, startY, startZ);
+
+		private final Long2ObjectOpenHashMap<PathNode> map = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+
+		private final MutableMoveResult res = new MutableMoveResult();
+
+		private int numNodes;
+
+		private int numMovementsConsidered;
+
+		private PathNode getNode(int x, int y, int z, long hashCode) {
+			PathNode node = map.get(hashCode);
+			if (node == null) {
+				node = new PathNode(x, y, z, towardsStart);
+				map.put(hashCode, node);
+			}
+			return node;
+		}
+
+		void run(long primaryTimeoutTime, long failureTimeoutTime) {
+			long goalHash = BetterBlockPos.longHash(goalX, goalY, goalZ);
+			PathNode goalNode = getNode(goalX, goalY, goalZ, goalHash);
+			goalNode.cost = 0;
+			goalNode.combinedCost = goalNode.estimatedCostToGoal;
+			backwardCosts.put(goalHash, 0);
+			IOpenSet openSet = new BinaryHeapOpenSet();
+			openSet.insert(goalNode);
+			BetterWorldBorder worldBorder = new BetterWorldBorder(backwardContext.world.getWorldBorder());
+			boolean isFavoring = !favoring.isEmpty();
+			double minimumImprovement = Baritone.settings().minimumImprovementRepropagation.value ? MIN_IMPROVEMENT : 0;
+			int maxFall = Predecessors.maxFall(backwardContext);
+			int[] sources = new int[Predecessors.BUFFER_SIZE];
+			Moves[] allMoves = Moves.values();
+			while (!openSet.isEmpty() && !stop && !cancelRequested) {
+				if ((numNodes & (1 << 6) - 1) == 0) {
+					long now = System.currentTimeMillis();
+					if (now - failureTimeoutTime >= 0 || bestMeetingCost < ActionCosts.COST_INF && now - primaryTimeoutTime >= 0) {
+						break;
+					}
+				}
+				PathNode currentNode = openSet.removeLowest();
+				numNodes++;
+				if (currentNode.combinedCost >= bestMeetingCost) {
+					stop = true;
+					break;
+				}
+				long currentHash = BetterBlockPos.longHash(currentNode.x, currentNode.y, currentNode.z);
+				double favor = isFavoring ? favoring.calculate(currentHash) : 1;
+				for (Moves moves : allMoves) {
+					int count = Predecessors.candidateSources(backwardContext, moves, currentNode.x, currentNode.y, currentNode.z, maxFall, sources);
+					for (int i = 0; i < count; i++) {
+						int srcX = sources[i * 3];
+						int srcY = sources[i * 3 + 1];
+						int srcZ = sources[i * 3 + 2];
+						if (srcY > 256 || srcY < 0 || !backwardContext.isLoaded(srcX, srcZ) || !worldBorder.entirelyContains(srcX, srcZ)) {
+							continue;
+						}
+						res.reset();
+						moves.apply(backwardContext, srcX, srcY, srcZ, res);
+						numMovementsConsidered++;
+						if (res.cost >= ActionCosts.COST_INF || res.x != currentNode.x || res.y != currentNode.y || res.z != currentNode.z) {
+							continue; // that source can't actually get here with this move
+						}
+						double tentativeCost = currentNode.cost + res.cost * favor;
+						long hashCode = BetterBlockPos.longHash(srcX, srcY, srcZ);
+						PathNode neighbor = getNode(srcX, srcY, srcZ, hashCode);
+						if (neighbor.cost - tentativeCost > minimumImprovement) {
+							neighbor.previous = currentNode;
+							neighbor.cost = tentativeCost;
+							neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
+							if (neighbor.isOpen()) {
+								openSet.update(neighbor);
+							} else {
+								openSet.insert(neighbor);
+							}
+							backwardCosts.put(hashCode, tentativeCost);
+							double fromStart = forwardCosts.get(hashCode);
+							if (fromStart < ActionCosts.COST_INF) {
+								offerMeeting(srcX, srcY, srcZ, fromStart + tentativeCost);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A long to cost map that both searches write their own side of and read the other side of, striped so that the two threads rarely wait on the same lock
+	 */
+	private static final class CostTable {
+
+		private static final int STRIPES = 16;
+
+		private final Long2DoubleOpenHashMap[] stripes = new Long2DoubleOpenHashMap[STRIPES];
+
+		CostTable() {
+			for (int i = 0; i < STRIPES; i++) {
+				stripes[i] = new Long2DoubleOpenHashMap();
+				stripes[i].defaultReturnValue(ActionCosts.COST_INF);
+			}
+		}
+
+		private Long2DoubleOpenHashMap stripe(long hashCode) {
+			return stripes[(int) HashCommon.mix(hashCode) & STRIPES - 1];
+		}
+
+		void put(long hashCode, double cost) {
+			Long2DoubleOpenHashMap stripe = stripe(hashCode);
+			synchronized (stripe) {
+				stripe.put(hashCode, cost);
+			}
+		}
+
+		double get(long hashCode) {
+			Long2DoubleOpenHashMap stripe = stripe(hashCode);
+			synchronized (stripe) {
+				return stripe.get(hashCode);
+			}
+		}
+	}
+}
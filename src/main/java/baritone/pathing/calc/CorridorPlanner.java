@@ -0,0 +1,123 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.cache.CachedWorld;
+import baritone.cache.ChunkGraph;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.movement.CalculationContext;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * A* over whole chunks instead of blocks, using only what {@link CachedWorld} knows about each chunk (see {@link ChunkGraph}), to find the corridor a long path should follow.
+ */
+final class CorridorPlanner {
+
+	/**
+	 * How many chunks the corridor may stray outside of the box around the start and goal
+	 */
+	private static final int MARGIN = 32;
+
+	private static final int MAX_NODES = 1 << 18;
+
+	private final ChunkGraph graph;
+
+	private int numNodes;
+
+	CorridorPlanner(CalculationContext context) {
+		// on the search's thread, so regions that aren't in memory are just unknown this time
+		graph = new ChunkGraph(context.worldData == null ? null : context.worldData.cache, context.worldData != null && context.worldData.dimension != -1, context.maxFallHeightNoWater, false);
+	}
+
+	/**
+	 * @return The chunks the corridor passes through, from the start chunk to the goal chunk, as alternating x and z. {@code null} if the goal chunk couldn't be reached.
+	 */
+	int[] plan(int startChunkX, int startChunkZ, int goalChunkX, int goalChunkZ) {
+		int minX = Math.min(startChunkX, goalChunkX) - MARGIN;
+		int maxX = Math.max(startChunkX, goalChunkX) + MARGIN;
+		int minZ = Math.min(startChunkZ, goalChunkZ) - MARGIN;
+		int maxZ = Math.max(startChunkZ, goalChunkZ) + MARGIN;
+		Goal goalChunk = new Goal() {
+			@Override
+			public boolean isInGoal(int x, int y, int z) {
+				return x == goalChunkX && z == goalChunkZ;
+			}
+
+			@Override
+			public double heuristic(int x, int y, int z) {
+				return (Math.abs(x - goalChunkX) + Math.abs(z - goalChunkZ)) * ChunkGraph.CHUNK_COST;
+			}
+		};
+		// reusing PathNode with chunk coordinates, y is always 0
+		Long2ObjectOpenHashMap<PathNode> nodes = new Long2ObjectOpenHashMap<>();
+		PathNode start = new PathNode(startChunkX, 0, startChunkZ, goalChunk);
+		start.cost = 0;
+		start.combinedCost = start.estimatedCostToGoal;
+		nodes.put(ChunkGraph.chunkKey(startChunkX, startChunkZ), start);
+		BinaryHeapOpenSet openSet = new BinaryHeapOpenSet();
+		openSet.insert(start);
+		while (!openSet.isEmpty() && numNodes < MAX_NODES) {
+			PathNode current = openSet.removeLowest();
+			numNodes++;
+			if (goalChunk.isInGoal(current.x, 0, current.z))
+				return corridor(current);
+			for (int dir = 0; dir < 4; dir++) {
+				int x = current.x + ChunkGraph.DIRECTIONS_X[dir];
+				int z = current.z + ChunkGraph.DIRECTIONS_Z[dir];
+				if (x < minX || x > maxX || z < minZ || z > maxZ) {
+					continue;
+				}
+				double cost = graph.cost(current.x, current.z, dir);
+				long key = ChunkGraph.chunkKey(x, z);
+				PathNode neighbor = nodes.get(key);
+				if (neighbor == null) {
+					neighbor = new PathNode(x, 0, z, goalChunk);
+					nodes.put(key, neighbor);
+				}
+				double tentativeCost = current.cost + cost;
+				if (neighbor.cost > tentativeCost) {
+					neighbor.previous = current;
+					neighbor.cost = tentativeCost;
+					neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
+					if (neighbor.isOpen()) {
+						openSet.update(neighbor);
+					} else {
+						openSet.insert(neighbor);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return Chunks expanded by the last {@link #plan(int, int, int, int)}
+	 */
+	int getNumNodes() {
+		return numNodes;
+	}
+
+	private static int[] corridor(PathNode end) {
+		int length = 0;
+		for (PathNode node = end; node != null; node = node.previous) {
+			length++;
+		}
+		int[] result = new int[length * 2];
+		int i = length;
+		for (PathNode node = end; node != null; node = node.previous) {
+			i--;
+			result[i * 2] = node.x;
+			result[i * 2 + 1] = node.z;
+		}
+		return result;
+	}
+}
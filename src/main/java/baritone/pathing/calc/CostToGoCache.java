@@ -0,0 +1,263 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.Collection;
+import java.util.Objects;
+import baritone.Baritone;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.Helper;
+import baritone.cache.ChunkGraph;
+import baritone.utils.pathing.Favoring;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+/**
+ * Learned heuristics (real-time adaptive A*) kept between segment calculations to the same goal. Once a search is done, every node it expanded learns that its cost to the goal is at least
+ * {@code f - cost}, where {@code f} is the lowest cost + heuristic of anything still in the open set (or the cost of the goal, if it got there). The next search to the same goal uses that instead of the normal heuristic wherever
+ * it's higher, so it doesn't go poking around the same dead ends again.
+ * <p>
+ * Only searches without favoring learn anything. Favoring scales costs differently from one segment to the next (along the previous path, around mobs), so {@code f - cost} under one search's favoring could overestimate what it
+ * costs under the next one's.
+ * <p>
+ * Everything is dropped when the goal changes. When blocks or chunks change, what was learned in and right around those chunks is dropped. Since a search might still be reading it, nothing that was handed out is ever modified,
+ * changes are made to a copy.
+ */
+public final class CostToGoCache implements Helper {
+
+	/**
+	 * Once there's this many values, start over
+	 */
+	private static final int MAX_VALUES = 1 << 20;
+
+	/**
+	 * The goal everything was learned for, without the landmark heuristic on top
+	 */
+	private Goal goal;
+	private BlockPos goalPos;
+	private World world;
+
+	/**
+	 * Learned cost to the goal by chunk, then by position
+	 */
+	private Long2ObjectOpenHashMap<Long2DoubleOpenHashMap> learned = new Long2ObjectOpenHashMap<>();
+
+	private int size;
+
+	/**
+	 * Bumped whenever everything is dropped, so that a search that started before that doesn't put back what it learned
+	 */
+	private int generation;
+
+	/**
+	 * Chunks whose learned costs were dropped since the last search started, what that search learned there doesn't hold anymore
+	 */
+	private final LongOpenHashSet droppedSinceWrap = new LongOpenHashSet();
+
+	/**
+	 * Has to be called on the main thread, before the search starts
+	 *
+	 * @param favoring What the search it's used in favors, it only learns from the search if that's nothing
+	 * @return The goal with what was learned for it so far on top, which will also learn from the search it's used in
+	 */
+	public synchronized Goal wrap(Goal goal, World world, Favoring favoring) {
+		Goal plain = goal instanceof LandmarkGoal ? ((LandmarkGoal) goal).getGoal() : goal;
+		BlockPos goalPos = HierarchicalPathFinder.goalPosition(plain);
+		if (goalPos == null)
+			return goal;
+		if (!sameGoal(plain, goalPos, world)) {
+			reset();
+			this.goal = plain;
+			this.goalPos = goalPos;
+			this.world = world;
+		} else if (size > 0) {
+			logDebug("Reusing " + size + " learned costs to the goal");
+		}
+		droppedSinceWrap.clear();
+		return new Learning(goal, learned, generation, favoring.isEmpty() ? this : null);
+	}
+
+	/**
+	 * @return The goal without learned costs on top, if it had any
+	 */
+	public static Goal unwrap(Goal goal) {
+		return goal instanceof Learning ? ((Learning) goal).getGoal() : goal;
+	}
+
+	private boolean sameGoal(Goal goal, BlockPos goalPos, World world) {
+		// goals don't have equals, but the same kind of goal at the same place that prints the same is the same goal
+		return this.goal != null && world == this.world && goal.getClass() == this.goal.getClass() && goalPos.equals(this.goalPos) && Objects.equals(goal.toString(), this.goal.toString());
+	}
+
+	public synchronized void reset() {
+		goal = null;
+		goalPos = null;
+		world = null;
+		learned = new Long2ObjectOpenHashMap<>();
+		size = 0;
+		generation++;
+	}
+
+	/**
+	 * These blocks changed, forget everything learned around them
+	 */
+	public void blocksChanged(Collection<? extends BlockPos> positions) {
+		LongOpenHashSet chunks = new LongOpenHashSet();
+		for (BlockPos pos : positions) {
+			chunks.add(ChunkGraph.chunkKey(pos.getX() >> 4, pos.getZ() >> 4));
+		}
+		synchronized (this) {
+			for (long chunk : chunks) {
+				chunkChanged((int) chunk, (int) (chunk >> 32));
+			}
+		}
+	}
+
+	/**
+	 * This chunk changed, forget everything learned in it and the chunks around it, since paths through there could have gotten cheaper
+	 */
+	public synchronized void chunkChanged(int chunkX, int chunkZ) {
+		if (goal == null)
+			return;
+		Long2ObjectOpenHashMap<Long2DoubleOpenHashMap> copy = null;
+		for (int x = chunkX - 1; x <= chunkX + 1; x++) {
+			for (int z = chunkZ - 1; z <= chunkZ + 1; z++) {
+				long key = ChunkGraph.chunkKey(x, z);
+				droppedSinceWrap.add(key);
+				if (!learned.containsKey(key)) {
+					continue;
+				}
+				if (copy == null) {
+					copy = new Long2ObjectOpenHashMap<>(learned);
+				}
+				size -= copy.remove(key).size();
+			}
+		}
+		if (copy != null) {
+			learned = copy;
+		}
+	}
+
+	private synchronized void learn(int generation, Collection<PathNode> nodes, Goal goal) {
+		if (generation != this.generation)
+			return; // the goal changed while this was searching
+		double f = Double.POSITIVE_INFINITY;
+		for (PathNode node : nodes) {
+			if (node.isOpen()) {
+				f = Math.min(f, node.cost + node.estimatedCostToGoal);
+			} else if (node.cost < ActionCosts.COST_INF && goal.isInGoal(node.x, node.y, node.z)) {
+				f = Math.min(f, node.cost);
+			}
+		}
+		if (f >= ActionCosts.COST_INF)
+			return; // searched everything there was to search without getting there, nothing to go by
+		Long2ObjectOpenHashMap<Long2DoubleOpenHashMap> copy = new Long2ObjectOpenHashMap<>(learned);
+		LongOpenHashSet copied = new LongOpenHashSet();
+		int numLearned = 0;
+		for (PathNode node : nodes) {
+			if (node.isOpen() || node.cost >= ActionCosts.COST_INF) {
+				continue;
+			}
+			double costToGo = f - node.cost;
+			if (costToGo - node.estimatedCostToGoal <= AbstractNodeCostSearch.MIN_IMPROVEMENT) {
+				continue;
+			}
+			long chunk = ChunkGraph.chunkKey(node.x >> 4, node.z >> 4);
+			if (droppedSinceWrap.contains(chunk)) {
+				continue;
+			}
+			Long2DoubleOpenHashMap values = copy.get(chunk);
+			if (copied.add(chunk)) {
+				values = values == null ? new Long2DoubleOpenHashMap() : new Long2DoubleOpenHashMap(values);
+				values.defaultReturnValue(Double.NaN);
+				copy.put(chunk, values);
+			}
+			if (Double.isNaN(values.put(BetterBlockPos.longHash(node.x, node.y, node.z), costToGo))) {
+				size++;
+			}
+			numLearned++;
+		}
+		learned = copy;
+		logDebug("Learned better costs to the goal for " + numLearned + " of " + nodes.size() + " nodes, " + size + " in total");
+		if (size > MAX_VALUES) {
+			Goal plain = this.goal;
+			BlockPos pos = goalPos;
+			World world = this.world;
+			reset();
+			this.goal = plain;
+			this.goalPos = pos;
+			this.world = world;
+		}
+	}
+
+	/**
+	 * A goal with learned costs on top of its heuristic
+	 */
+	static final class Learning implements Goal {
+
+		private final Goal goal;
+
+		private final Long2ObjectOpenHashMap<Long2DoubleOpenHashMap> learned;
+
+		private final int generation;
+
+		/**
+		 * Where to put what's learned, {@code null} if this search's costs were favored and it shouldn't learn anything
+		 */
+		private final CostToGoCache cache;
+
+		private Learning(Goal goal, Long2ObjectOpenHashMap<Long2DoubleOpenHashMap> learned, int generation, CostToGoCache cache) {
+			this.goal = goal;
+			this.learned = learned;
+			this.generation = generation;
+			this.cache = cache;
+		}
+
+		Goal getGoal() {
+			return goal;
+		}
+
+		/**
+		 * Learn from the nodes of a search that used this goal, now that it's done
+		 */
+		void learn(Collection<PathNode> nodes) {
+			if (cache != null && Baritone.settings().learnCostToGo.value) {
+				cache.learn(generation, nodes, goal);
+			}
+		}
+
+		@Override
+		public double heuristic(int x, int y, int z) {
+			double heuristic = goal.heuristic(x, y, z);
+			Long2DoubleOpenHashMap values = learned.get(ChunkGraph.chunkKey(x >> 4, z >> 4));
+			if (values == null)
+				return heuristic;
+			double costToGo = values.get(BetterBlockPos.longHash(x, y, z));
+			return costToGo > heuristic ? costToGo : heuristic; // NaN if nothing was learned here, which is never greater
+		}
+
+		@Override
+		public boolean isInGoal(int x, int y, int z) {
+			return goal.isInGoal(x, y, z);
+		}
+
+		@Override
+		public String toString() {
+			// the same as the goal, things compare goals by their string
+			return goal.toString();
+		}
+	}
+}
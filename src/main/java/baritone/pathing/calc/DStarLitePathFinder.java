@@ -0,0 +1,105 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.Optional;
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+
+/**
+ * Replans using a {@link DStarLiteTree} kept from the previous calculation to the same goal, so that after a few blocks change under the path only the affected part of the search is redone.
+ * <p>
+ * If the tree can't find a way to the start in time (the first calculation to a far away goal, say), falls back to a normal {@link AStarPathFinder} for whatever time is left. Favoring isn't applied to the tree, it changes every
+ * segment and would make the whole tree out of date each time, so it's only used by the fallback.
+ */
+public final class DStarLitePathFinder extends AbstractNodeCostSearch {
+
+	private final Favoring favoring;
+	private final CalculationContext calcContext;
+	private final SearchArena innerArena;
+	private final DStarLiteTree tree;
+	private final BetterBlockPos goalPos;
+
+	/**
+	 * The fallback search, {@code null} unless the tree didn't work out
+	 */
+	private volatile AStarPathFinder fallback;
+
+	public DStarLitePathFinder(int startX, int startY, int startZ, Goal goal, BetterBlockPos goalPos, DStarLiteTree tree, Favoring favoring, CalculationContext context, SearchArena arena) {
+		super(startX, startY, startZ, goal, context, null);
+		this.favoring = favoring;
+		this.calcContext = context;
+		this.innerArena = arena;
+		this.tree = tree;
+		this.goalPos = goalPos;
+	}
+
+	@Override
+	protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+		long startTime = System.currentTimeMillis();
+		boolean slowPath = Baritone.settings().slowPath.value;
+		// only the primary timeout for the tree, the fallback needs most of the rest if the tree doesn't work out
+		long timeout = slowPath ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout;
+		BetterBlockPos start = new BetterBlockPos(startX, startY, startZ);
+		boolean reused = tree.prepare(goal, goalPos, start, calcContext);
+		long prepared = System.currentTimeMillis();
+		boolean settled = tree.computeShortestPath(startTime + timeout, this);
+		if (cancelRequested)
+			return Optional.empty();
+		long now = System.currentTimeMillis();
+		if (logStatistics()) {
+			logDebug((reused ? "Repaired the D* Lite tree around " + tree.numRepaired + " nodes in " + (prepared - startTime) + "ms, then" : "New D* Lite tree,") + " expanded " + tree.numNodesExpanded + " nodes (" + tree.numMovementsConsidered + " movements considered) in " + (now - prepared) + "ms, tree size " + tree.size());
+		}
+		if (settled) {
+			PathNode end = tree.extractPath(goal);
+			if (end != null) {
+				logDebug("Took " + (now - startTime) + "ms" + (reused ? " to replan incrementally" : ""));
+				PathNode first = end;
+				while (first.previous != null) {
+					first = first.previous;
+				}
+				return Optional.of(new Path(first, end, tree.numNodesExpanded, goal, calcContext));
+			}
+		}
+		logDebug("D* Lite didn't find a path in " + (now - startTime) + "ms, falling back to A*");
+		long elapsed = now - startTime;
+		AStarPathFinder search = new AStarPathFinder(startX, startY, startZ, goal, favoring, calcContext, innerArena);
+		fallback = search;
+		if (cancelRequested)
+			return Optional.empty();
+		return search.runSearch(Math.max(primaryTimeout - elapsed, 1), Math.max(failureTimeout - elapsed, 1));
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+		AStarPathFinder search = fallback;
+		if (search != null) {
+			search.cancel();
+		}
+	}
+
+	@Override
+	public Optional<IPath> bestPathSoFar() {
+		AStarPathFinder search = fallback;
+		return search == null ? Optional.empty() : search.bestPathSoFar();
+	}
+
+	@Override
+	public Optional<IPath> pathToMostRecentNodeConsidered() {
+		AStarPathFinder search = fallback;
+		return search == null ? Optional.empty() : search.pathToMostRecentNodeConsidered();
+	}
+}
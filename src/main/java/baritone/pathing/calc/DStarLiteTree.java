@@ -0,0 +1,515 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.Arrays;
+import java.util.Collection;
+import baritone.Baritone;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * The search tree of a D* Lite search, kept between path calculations to the same goal so that when a few blocks change only the part of the tree around them has to be worked out again.
+ * <p>
+ * D* Lite searches backwards from a single goal position, so the cost to the goal it knows for each position stays valid as the start moves along the path. When blocks change, every position that has a movement near them gets its
+ * cost recalculated, and only the changes that actually matter ripple out from there.
+ * <p>
+ * Owned by {@link baritone.behavior.PathingBehavior}, which only ever runs one calculation at a time. Blocks changing are reported from the main thread, everything else happens on the calculation's thread.
+ */
+public final class DStarLiteTree {
+
+	/**
+	 * Changes we weren't told about pile up in the tree as time goes on, start from scratch after this long
+	 */
+	private static final long MAX_AGE_MS = 30000;
+
+	private static final int MAX_NODES = 1 << 20;
+
+	/**
+	 * How far from a changed block a movement can start and still be affected by it, horizontally. Parkour is the furthest reaching at 4 blocks.
+	 */
+	private static final int AFFECTED_RADIUS = 4;
+
+	private final Long2ObjectOpenHashMap<Node> nodes = new Long2ObjectOpenHashMap<>();
+
+	private final KeyHeap open = new KeyHeap();
+
+	/**
+	 * Blocks reported changed since the last calculation, as {@link BlockPos#asLong}
+	 */
+	private final LongOpenHashSet changed = new LongOpenHashSet();
+
+	private final MutableMoveResult res = new MutableMoveResult();
+
+	private final int[] candidates = new int[Predecessors.BUFFER_SIZE];
+
+	/**
+	 * The output of {@link #predecessors(Node)}, positions as x y z triples and the cost of the move from each
+	 */
+	private final int[] sources = new int[Predecessors.BUFFER_SIZE];
+	private final double[] predecessorCosts = new double[Predecessors.BUFFER_SIZE / 3];
+
+	private Goal goal;
+
+	private Node goalNode;
+
+	/**
+	 * The D* Lite key modifier, how much the heuristic of everything in the open set is out of date by because the start has moved
+	 */
+	private double km;
+
+	private BetterBlockPos lastStart;
+
+	private long created;
+
+	/**
+	 * Per calculation, set by {@link #prepare}
+	 */
+	private CalculationContext context;
+	private BetterWorldBorder worldBorder;
+	private int maxFall;
+	private Node startNode;
+
+	int numNodesExpanded;
+	int numMovementsConsidered;
+	int numRepaired;
+
+	/**
+	 * Called from the main thread when blocks have changed under the current path. Thread safe.
+	 */
+	public void blocksChanged(Collection<? extends BlockPos> positions) {
+		if (!Baritone.settings().incrementalReplanning.value)
+			return;
+		synchronized (changed) {
+			for (BlockPos pos : positions) {
+				changed.add(pos.asLong());
+			}
+		}
+	}
+
+	/**
+	 * Throws away the whole tree
+	 */
+	public void reset() {
+		nodes.clear();
+		open.clear();
+		goal = null;
+		goalNode = null;
+		km = 0;
+		lastStart = null;
+		synchronized (changed) {
+			changed.clear();
+		}
+	}
+
+	/**
+	 * Gets the tree ready for a calculation from this start: starts a new one if the goal moved or the old one is too old or too big, otherwise moves the start and repairs everything near the blocks that changed since the last
+	 * calculation.
+	 *
+	 * @return Whether the existing tree is being reused
+	 */
+	boolean prepare(Goal goal, BetterBlockPos goalPos, BetterBlockPos start, CalculationContext context) {
+		this.context = context;
+		worldBorder = new BetterWorldBorder(context.world.getWorldBorder());
+		maxFall = Predecessors.maxFall(context);
+		numNodesExpanded = 0;
+		numMovementsConsidered = 0;
+		numRepaired = 0;
+		// only the goal position matters to the tree, the same kind of goal at the same place is as good as the same goal
+		boolean reuse = this.goal != null && goal.getClass() == this.goal.getClass() && goalNode != null && goalNode.x == goalPos.x && goalNode.y == goalPos.y && goalNode.z == goalPos.z && System.currentTimeMillis() - created < MAX_AGE_MS && nodes.size() < MAX_NODES;
+		if (!reuse) {
+			reset();
+			this.goal = goal;
+			created = System.currentTimeMillis();
+			lastStart = start;
+			goalNode = node(goalPos.x, goalPos.y, goalPos.z);
+			goalNode.rhs = 0;
+			startNode = node(start.x, start.y, start.z);
+			insert(goalNode);
+			return false;
+		}
+		km += heuristic(lastStart, start.x, start.y, start.z);
+		lastStart = start;
+		startNode = node(start.x, start.y, start.z);
+		long[] positions;
+		synchronized (changed) {
+			positions = changed.toLongArray();
+			changed.clear();
+		}
+		Arrays.sort(positions); // the same nodes get looked at in the same order every time, makes it easier to reason about
+		LongOpenHashSet updated = new LongOpenHashSet();
+		for (long packed : positions) {
+			int x = BlockPos.unpackLongX(packed);
+			int y = BlockPos.unpackLongY(packed);
+			int z = BlockPos.unpackLongZ(packed);
+			// anything that could have a movement going through, onto, or falling down past this block
+			for (int dx = -AFFECTED_RADIUS; dx <= AFFECTED_RADIUS; dx++) {
+				for (int dz = -AFFECTED_RADIUS; dz <= AFFECTED_RADIUS; dz++) {
+					for (int dy = -2; dy <= maxFall + 2; dy++) {
+						long nodeHash = BetterBlockPos.longHash(x + dx, y + dy, z + dz);
+						Node node = nodes.get(nodeHash);
+						if (node != null && node != goalNode && updated.add(nodeHash)) {
+							updateVertex(node);
+						}
+					}
+				}
+			}
+		}
+		numRepaired = updated.size();
+		return true;
+	}
+
+	/**
+	 * Runs D* Lite until the cost from the start is settled, or until the deadline or a cancellation
+	 *
+	 * @return Whether the start's cost is settled, it's infinite if there's no way to the goal
+	 */
+	boolean computeShortestPath(long deadline, AbstractNodeCostSearch search) {
+		while (!open.isEmpty() && (compareKeys(open.peek(), startNode) < 0 || startNode.rhs != startNode.g)) {
+			if ((numNodesExpanded & (1 << 6) - 1) == 0 && (System.currentTimeMillis() - deadline >= 0 || search.cancelRequested)) {
+				return false;
+			}
+			if (nodes.size() >= MAX_NODES)
+				return false;
+			numNodesExpanded++;
+			Node u = open.peek();
+			double oldKey1 = u.key1;
+			double oldKey2 = u.key2;
+			calculateKey(u);
+			if (oldKey1 < u.key1 || oldKey1 == u.key1 && oldKey2 < u.key2) {
+				// its key was out of date because the start moved, put it back where it belongs now
+				open.update(u);
+			} else if (u.g > u.rhs) {
+				u.g = u.rhs;
+				open.remove(u);
+				int count = predecessors(u);
+				for (int i = 0; i < count; i++) {
+					Node p = node(sources[i * 3], sources[i * 3 + 1], sources[i * 3 + 2]);
+					double viaU = predecessorCosts[i] + u.g;
+					if (p != goalNode && viaU < p.rhs) {
+						p.rhs = viaU;
+						place(p);
+					}
+				}
+			} else {
+				u.g = ActionCosts.COST_INF;
+				updateVertex(u);
+				int count = predecessors(u);
+				for (int i = 0; i < count; i++) {
+					Node p = nodes.get(BetterBlockPos.longHash(sources[i * 3], sources[i * 3 + 1], sources[i * 3 + 2]));
+					if (p != null && p != goalNode) {
+						updateVertex(p);
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Follows the cheapest next move from the start until the goal
+	 *
+	 * @return The end of the path, or {@code null} if it's broken somewhere along the way
+	 */
+	PathNode extractPath(Goal goal) {
+		PathNode current = new PathNode(startNode.x, startNode.y, startNode.z, goal);
+		current.cost = 0;
+		Node at = startNode;
+		for (int steps = 0; at != goalNode; steps++) {
+			if (at.g >= ActionCosts.COST_INF || steps > nodes.size())
+				return null;
+			Node best = null;
+			double bestCost = ActionCosts.COST_INF;
+			double bestTotal = ActionCosts.COST_INF;
+			for (Moves moves : Moves.values()) {
+				if (!successor(moves, at)) {
+					continue;
+				}
+				Node next = nodes.get(BetterBlockPos.longHash(res.x, res.y, res.z));
+				if (next != null && res.cost + next.g < bestTotal) {
+					best = next;
+					bestCost = res.cost;
+					bestTotal = res.cost + next.g;
+				}
+			}
+			if (best == null)
+				return null;
+			PathNode next = new PathNode(best.x, best.y, best.z, goal);
+			next.previous = current;
+			next.cost = current.cost + bestCost;
+			current = next;
+			at = best;
+		}
+		return current;
+	}
+
+	int size() {
+		return nodes.size();
+	}
+
+	/**
+	 * Recalculates the cheapest way from this node to the goal out of its own moves, and fixes up where it is in the open set
+	 */
+	private void updateVertex(Node u) {
+		if (u != goalNode) {
+			double rhs = ActionCosts.COST_INF;
+			for (Moves moves : Moves.values()) {
+				if (!successor(moves, u)) {
+					continue;
+				}
+				Node next = nodes.get(BetterBlockPos.longHash(res.x, res.y, res.z));
+				if (next != null && res.cost + next.g < rhs) {
+					rhs = res.cost + next.g;
+				}
+			}
+			u.rhs = rhs;
+		}
+		place(u);
+	}
+
+	/**
+	 * Puts this node in the open set if it's inconsistent, or takes it out if it isn't
+	 */
+	private void place(Node u) {
+		if (u.g != u.rhs) {
+			calculateKey(u);
+			if (u.heapPosition == -1) {
+				open.insert(u);
+			} else {
+				open.update(u);
+			}
+		} else if (u.heapPosition != -1) {
+			open.remove(u);
+		}
+	}
+
+	private void insert(Node u) {
+		calculateKey(u);
+		open.insert(u);
+	}
+
+	/**
+	 * Runs this move forward from this node into {@link #res}
+	 *
+	 * @return Whether it's possible
+	 */
+	private boolean successor(Moves moves, Node from) {
+		int newX = from.x + moves.xOffset;
+		int newZ = from.z + moves.zOffset;
+		if ((newX >> 4 != from.x >> 4 || newZ >> 4 != from.z >> 4) && !context.isLoaded(newX, newZ))
+			return false;
+		if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ))
+			return false;
+		if (from.y + moves.yOffset > 256 || from.y + moves.yOffset < 0)
+			return false;
+		res.reset();
+		moves.apply(context, from.x, from.y, from.z, res);
+		numMovementsConsidered++;
+		if (res.cost >= ActionCosts.COST_INF)
+			return false;
+		return !moves.dynamicXZ || worldBorder.entirelyContains(res.x, res.z);
+	}
+
+	/**
+	 * Every position with a move that ends up at this node, written over {@link #sources} with the cost of each move in {@link #predecessorCosts}
+	 *
+	 * @return How many there are
+	 */
+	private int predecessors(Node u) {
+		int found = 0;
+		for (Moves moves : Moves.values()) {
+			int count = Predecessors.candidateSources(context, moves, u.x, u.y, u.z, maxFall, candidates);
+			for (int i = 0; i < count && found < predecessorCosts.length; i++) {
+				int srcX = candidates[i * 3];
+				int srcY = candidates[i * 3 + 1];
+				int srcZ = candidates[i * 3 + 2];
+				if (srcY > 256 || srcY < 0 || !context.isLoaded(srcX, srcZ) || !worldBorder.entirelyContains(srcX, srcZ)) {
+					continue;
+				}
+				res.reset();
+				moves.apply(context, srcX, srcY, srcZ, res);
+				numMovementsConsidered++;
+				if (res.cost >= ActionCosts.COST_INF || res.x != u.x || res.y != u.y || res.z != u.z) {
+					continue;
+				}
+				sources[found * 3] = srcX;
+				sources[found * 3 + 1] = srcY;
+				sources[found * 3 + 2] = srcZ;
+				predecessorCosts[found] = res.cost;
+				found++;
+			}
+		}
+		return found;
+	}
+
+	private Node node(int x, int y, int z) {
+		long hash = BetterBlockPos.longHash(x, y, z);
+		Node node = nodes.get(hash);
+		if (node == null) {
+			node = new Node(x, y, z);
+			nodes.put(hash, node);
+		}
+		return node;
+	}
+
+	private void calculateKey(Node u) {
+		double min = Math.min(u.g, u.rhs);
+		u.key1 = min + heuristic(lastStart, u.x, u.y, u.z) + km;
+		u.key2 = min;
+	}
+
+	/**
+	 * Keys of nodes compare by the first key and then the second, the start's key is worked out fresh
+	 */
+	private int compareKeys(Node a, Node start) {
+		calculateKey(start);
+		if (a.key1 != start.key1)
+			return a.key1 < start.key1 ? -1 : 1;
+		return Double.compare(a.key2, start.key2);
+	}
+
+	private static double heuristic(BetterBlockPos from, int x, int y, int z) {
+		return GoalBlock.calculate(x - from.x, y - from.y, z - from.z);
+	}
+
+	private static final class Node {
+
+		final int x;
+		final int y;
+		final int z;
+
+		/**
+		 * Cost to the goal, as of the last time this node was expanded
+		 */
+		double g = ActionCosts.COST_INF;
+
+		/**
+		 * Cost to the goal, looking one move ahead
+		 */
+		double rhs = ActionCosts.COST_INF;
+
+		double key1;
+		double key2;
+
+		int heapPosition = -1;
+
+		Node(int x, int y, int z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+	}
+
+	/**
+	 * The same binary heap as {@link baritone.pathing.calc.openset.BinaryHeapOpenSet}, but on the two part D* Lite key and with removal from the middle
+	 */
+	private static final class KeyHeap {
+
+		private Node[] array = new Node[1024];
+
+		private int size;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		Node peek() {
+			return array[1];
+		}
+
+		void clear() {
+			for (int i = 1; i <= size; i++) {
+				array[i].heapPosition = -1;
+				array[i] = null;
+			}
+			size = 0;
+		}
+
+		void insert(Node node) {
+			if (size >= array.length - 1) {
+				array = Arrays.copyOf(array, array.length << 1);
+			}
+			size++;
+			array[size] = node;
+			node.heapPosition = size;
+			siftUp(size);
+		}
+
+		void update(Node node) {
+			siftUp(node.heapPosition);
+			siftDown(node.heapPosition);
+		}
+
+		void remove(Node node) {
+			int index = node.heapPosition;
+			Node last = array[size];
+			array[size] = null;
+			size--;
+			node.heapPosition = -1;
+			if (index <= size) {
+				array[index] = last;
+				last.heapPosition = index;
+				siftUp(index);
+				siftDown(last.heapPosition);
+			}
+		}
+
+		private void siftUp(int index) {
+			Node node = array[index];
+			while (index > 1) {
+				int parentIndex = index >>> 1;
+				Node parent = array[parentIndex];
+				if (!less(node, parent)) {
+					break;
+				}
+				array[index] = parent;
+				parent.heapPosition = index;
+				index = parentIndex;
+			}
+			array[index] = node;
+			node.heapPosition = index;
+		}
+
+		private void siftDown(int index) {
+			Node node = array[index];
+			while (true) {
+				int child = index << 1;
+				if (child > size) {
+					break;
+				}
+				if (child < size && less(array[child + 1], array[child])) {
+					child++;
+				}
+				if (!less(array[child], node)) {
+					break;
+				}
+				array[index] = array[child];
+				array[index].heapPosition = index;
+				index = child;
+			}
+			array[index] = node;
+			node.heapPosition = index;
+		}
+
+		private static boolean less(Node a, Node b) {
+			return a.key1 < b.key1 || a.key1 == b.key1 && a.key2 < b.key2;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.Optional;
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.utils.interfaces.IGoalRenderPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * For long trips, first plans a corridor of chunks all the way to the goal with {@link CorridorPlanner}, then only runs block level A* as far as the next waypoint along it.
+ * <p>
+ * Each calculation returns one segment towards the waypoint. The next segment is planned from the end of this one against the real goal like any other, which plans the corridor again from there, so waypoints keep moving down the
+ * corridor until the goal is close enough to go for directly.
+ */
+public final class HierarchicalPathFinder extends AbstractNodeCostSearch {
+
+	private final Favoring favoring;
+	private final CalculationContext calcContext;
+	private final SearchArena innerArena;
+
+	private final int goalX;
+	private final int goalZ;
+
+	/**
+	 * The block level search towards the current waypoint, {@code null} until the corridor has been planned
+	 */
+	private volatile AStarPathFinder inner;
+
+	public HierarchicalPathFinder(int startX, int startY, int startZ, Goal goal, BlockPos goalPos, Favoring favoring, CalculationContext context, SearchArena arena) {
+		super(startX, startY, startZ, goal, context, null);
+		this.favoring = favoring;
+		this.calcContext = context;
+		this.innerArena = arena;
+		this.goalX = goalPos.getX();
+		this.goalZ = goalPos.getZ();
+	}
+
+	/**
+	 * @return Where the goal is, or {@code null} if it isn't a single place we can plan a corridor to
+	 */
+	public static BlockPos goalPosition(Goal goal) {
+		if (goal instanceof IGoalRenderPos)
+			return ((IGoalRenderPos) goal).getGoalPos();
+		if (goal instanceof GoalXZ)
+			return new BlockPos(((GoalXZ) goal).getX(), 0, ((GoalXZ) goal).getZ());
+		return null;
+	}
+
+	@Override
+	protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+		long startTime = System.currentTimeMillis();
+		int waypointDistance = Baritone.settings().hierarchicalWaypointDistance.value;
+		Goal innerGoal = goal;
+		if (distanceSq(startX, startZ, goalX, goalZ) > (long) waypointDistance * waypointDistance) {
+			CorridorPlanner planner = new CorridorPlanner(calcContext);
+			int[] corridor = planner.plan(startX >> 4, startZ >> 4, goalX >> 4, goalZ >> 4);
+			if (corridor == null) {
+				logDebug("No chunk corridor to the goal after " + planner.getNumNodes() + " chunks, searching for it directly");
+			} else {
+				// the furthest chunk along the corridor that's in range and that we know anything about
+				int waypoint = 0;
+				for (int i = 0; i < corridor.length / 2; i++) {
+					int x = corridor[i * 2] << 4 | 8;
+					int z = corridor[i * 2 + 1] << 4 | 8;
+					if (distanceSq(startX, startZ, x, z) > (long) waypointDistance * waypointDistance) {
+						break;
+					}
+					if (calcContext.isLoaded(x, z)) {
+						waypoint = i;
+					}
+				}
+				if (waypoint > 0) {
+					innerGoal = new GoalXZ(corridor[waypoint * 2] << 4 | 8, corridor[waypoint * 2 + 1] << 4 | 8);
+				}
+				logDebug("Planned a corridor of " + corridor.length / 2 + " chunks in " + (System.currentTimeMillis() - startTime) + "ms, " + planner.getNumNodes() + " chunks considered, heading for " + innerGoal);
+			}
+		}
+		if (cancelRequested)
+			return Optional.empty();
+		long elapsed = System.currentTimeMillis() - startTime;
+		AStarPathFinder search = new AStarPathFinder(startX, startY, startZ, innerGoal, favoring, calcContext, innerArena);
+		inner = search;
+		if (cancelRequested)
+			return Optional.empty();
+		return search.runSearch(Math.max(primaryTimeout - elapsed, 1), Math.max(failureTimeout - elapsed, 1));
+	}
+
+	private static long distanceSq(int x1, int z1, int x2, int z2) {
+		long xDiff = x1 - x2;
+		long zDiff = z1 - z2;
+		return xDiff * xDiff + zDiff * zDiff;
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+		AStarPathFinder search = inner;
+		if (search != null) {
+			search.cancel();
+		}
+	}
+
+	@Override
+	public Optional<IPath> bestPathSoFar() {
+		AStarPathFinder search = inner;
+		return search == null ? Optional.empty() : search.bestPathSoFar();
+	}
+
+	@Override
+	public Optional<IPath> pathToMostRecentNodeConsidered() {
+		AStarPathFinder search = inner;
+		return search == null ? Optional.empty() : search.pathToMostRecentNodeConsidered();
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.cache.ChunkGraph;
+import baritone.cache.LandmarkTables;
+import baritone.pathing.movement.CalculationContext;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * The same goal, but with a heuristic that's never less than what the landmark tables say (the ALT heuristic). By the triangle inequality, getting from a chunk to the goal's chunk costs at least the difference between their
+ * distances to any landmark, which in hilly or cave-heavy terrain is a lot more than the straight line distance the normal heuristic goes by.
+ * <p>
+ * The tables are in {@link ChunkGraph} costs, between the middles of chunks, with no diagonals and walking instead of sprinting, so they're scaled down and have a couple chunks taken off before comparing them to the normal
+ * heuristic. It's still only an estimate, like costHeuristic.
+ */
+public final class LandmarkGoal implements Goal {
+
+	/**
+	 * Chunk costs are walking straight along the grid, the real path could sprint diagonally
+	 */
+	private static final double SCALE = ActionCosts.SPRINT_ONE_BLOCK_COST / ActionCosts.WALK_ONE_BLOCK_COST / Math.sqrt(2);
+
+	/**
+	 * The start and end could each be anywhere in their chunks, not the middle
+	 */
+	private static final double SLACK = 2 * ChunkGraph.CHUNK_COST;
+
+	private final Goal goal;
+
+	private final LandmarkTables.Table[] tables;
+
+	private final float[] goalFrom;
+	private final float[] goalTo;
+
+	private LandmarkGoal(Goal goal, LandmarkTables.Table[] tables, int goalChunkX, int goalChunkZ) {
+		this.goal = goal;
+		this.tables = tables;
+		goalFrom = new float[tables.length];
+		goalTo = new float[tables.length];
+		for (int i = 0; i < tables.length; i++) {
+			goalFrom[i] = tables[i].from(goalChunkX, goalChunkZ);
+			goalTo[i] = tables[i].to(goalChunkX, goalChunkZ);
+		}
+	}
+
+	/**
+	 * Has to be called on the main thread
+	 *
+	 * @return The goal with the landmark heuristic on top, or just the goal if there aren't any tables for where it is yet
+	 */
+	public static Goal wrap(Goal goal, BlockPos start, CalculationContext context) {
+		BlockPos goalPos = HierarchicalPathFinder.goalPosition(goal);
+		if (goalPos == null || context.worldData == null)
+			return goal;
+		LandmarkTables landmarks = context.worldData.cache.getLandmarks();
+		int goalChunkX = goalPos.getX() >> 4;
+		int goalChunkZ = goalPos.getZ() >> 4;
+		// for next time, if they aren't there already
+		landmarks.request(start.getX() >> 4, start.getZ() >> 4);
+		landmarks.request(goalChunkX, goalChunkZ);
+		LandmarkTables.Table[] tables = landmarks.usable(goalChunkX, goalChunkZ);
+		if (tables.length == 0)
+			return goal;
+		return new LandmarkGoal(goal, tables, goalChunkX, goalChunkZ);
+	}
+
+	/**
+	 * @return The goal this adds the landmark heuristic to
+	 */
+	public Goal getGoal() {
+		return goal;
+	}
+
+	public int getNumLandmarks() {
+		return tables.length;
+	}
+
+	@Override
+	public double heuristic(int x, int y, int z) {
+		double heuristic = goal.heuristic(x, y, z);
+		int chunkX = x >> 4;
+		int chunkZ = z >> 4;
+		double best = 0;
+		for (int i = 0; i < tables.length; i++) {
+			LandmarkTables.Table table = tables[i];
+			if (!table.covers(chunkX, chunkZ)) {
+				continue;
+			}
+			// landmark -> here -> goal is at least landmark -> goal, and here -> goal -> landmark is at least here -> landmark
+			double bound = Math.max(goalFrom[i] - table.from(chunkX, chunkZ), table.to(chunkX, chunkZ) - goalTo[i]);
+			if (bound > best && bound != Double.POSITIVE_INFINITY) { // not NaN or infinite, which would only mean the chunk grid couldn't get there
+				best = bound;
+			}
+		}
+		return Math.max(heuristic, best * SCALE - SLACK);
+	}
+
+	@Override
+	public boolean isInGoal(int x, int y, int z) {
+		return goal.isInGoal(x, y, z);
+	}
+
+	@Override
+	public String toString() {
+		// the same as the goal, things compare goals by their string
+		return goal.toString();
+	}
+}
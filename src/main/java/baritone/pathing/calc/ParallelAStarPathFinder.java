@@ -0,0 +1,419 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.Helper;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.Favoring;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Hash distributed A* (HDA*): each worker thread owns the positions whose hash falls in its share, with its own node map and open set. A worker that reaches a position owned by another hands it over through that worker's queue
+ * instead of touching its nodes.
+ * <p>
+ * Each worker needs a {@link CalculationContext} of its own since the block lookups in one aren't thread safe, so those have to be made on the main thread ahead of time. The first worker runs on the calculating thread and uses the
+ * normal context.
+ * <p>
+ * A goal node taken out of an open set doesn't end the search right away, another worker could still be holding something cheaper. It becomes the incumbent, everything whose cost plus heuristic is at least the incumbent's cost is
+ * thrown away from then on, and the search ends once there's nothing else left anywhere.
+ * <p>
+ * Nodes are only ever touched by the worker that owns them while the search is running, so nothing else reads them (the best path so far and the most recently considered node included) until all the workers are done.
+ */
+public final class ParallelAStarPathFinder extends AbstractNodeCostSearch {
+
+	/**
+	 * Nodes per second with each number of workers, for {@link baritone.api.Settings#parallelSearchBenchmark}, index is the worker count
+	 */
+	private static final long[][] benchmark = new long[65][2];
+
+	private static final AtomicInteger benchmarkCounter = new AtomicInteger();
+
+	private final Favoring favoring;
+	private final CalculationContext[] contexts;
+	private final Worker[] workers;
+
+	/**
+	 * Nodes in open sets plus offers in queues, across all workers. When it hits zero there's nothing left to search anywhere.
+	 */
+	private final AtomicLong outstanding = new AtomicLong();
+
+	private final AtomicInteger numEmptyChunk = new AtomicInteger();
+
+	private volatile boolean stop;
+
+	private final Object incumbentLock = new Object();
+
+	/**
+	 * The cheapest goal node taken out of an open set so far, guarded by {@link #incumbentLock}
+	 */
+	private PathNode goalNode;
+
+	/**
+	 * What {@link #goalNode} cost, {@link ActionCosts#COST_INF} until there is one. Only written with {@link #incumbentLock} held.
+	 */
+	private volatile double incumbent = ActionCosts.COST_INF;
+
+	/**
+	 * Whether all the workers are done, before that their nodes can't be read from anywhere else
+	 */
+	private volatile boolean joined;
+
+	private volatile boolean failing = true;
+
+	/**
+	 * @param contexts One per worker, the first one is the context of this search and the rest have to have been made on the main thread
+	 */
+	public ParallelAStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext[] contexts) {
+		super(startX, startY, startZ, goal, contexts[0], null);
+		this.favoring = favoring;
+		this.contexts = contexts;
+		workers = new Worker[contexts.length];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(i, contexts[i]);
+		}
+	}
+
+	/**
+	 * @return How many workers the next search should have, cycling from 1 up to the setting when benchmarking
+	 */
+	public static int nextWorkerCount() {
+		int max = Math.max(1, Math.min(Baritone.settings().parallelSearchThreads.value, benchmark.length - 1));
+		if (Baritone.settings().parallelSearchBenchmark.value)
+			return 1 + Math.floorMod(benchmarkCounter.getAndIncrement(), max);
+		return max;
+	}
+
+	@Override
+	protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+		long startTime = System.currentTimeMillis();
+		boolean slowPath = Baritone.settings().slowPath.value;
+		long primaryTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout);
+		long failureTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : failureTimeout);
+		long startHash = BetterBlockPos.longHash(startX, startY, startZ);
+		Worker startOwner = workers[owner(startHash)];
+		startNode = startOwner.getNode(startX, startY, startZ, startHash);
+		startNode.cost = 0;
+		startNode.combinedCost = startNode.estimatedCostToGoal;
+		for (Worker worker : workers) {
+			for (int i = 0; i < COEFFICIENTS.length; i++) {
+				worker.bestHeuristicSoFar[i] = startNode.estimatedCostToGoal;
+				worker.bestSoFar[i] = startNode;
+			}
+		}
+		outstanding.incrementAndGet();
+		startOwner.openSet.insert(startNode);
+		CountDownLatch done = new CountDownLatch(workers.length - 1);
+		for (int i = 1; i < workers.length; i++) {
+			Worker worker = workers[i];
+			Baritone.getExecutor().execute(() -> {
+				try {
+					worker.run(primaryTimeoutTime, failureTimeoutTime);
+				} catch (Exception e) {
+					Helper.HELPER.logDebug("Parallel search worker exception: " + e);
+					e.printStackTrace();
+				} finally {
+					stop = true;
+					done.countDown();
+				}
+			});
+		}
+		try {
+			workers[0].run(primaryTimeoutTime, failureTimeoutTime);
+		} finally {
+			stop = true;
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		joined = true;
+		long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+		int numNodes = 0;
+		long numOffered = 0;
+		long numSent = 0;
+		for (Worker worker : workers) {
+			numNodes += worker.numNodes;
+			numOffered += worker.numOffered;
+			numSent += worker.numSent;
+		}
+		if (logStatistics()) {
+			logDebug("Parallel A* with " + workers.length + " workers: " + numNodes + " nodes, " + numNodes * 1000L / duration + " nodes per second, " + (numOffered == 0 ? 0 : numSent * 100 / numOffered) + "% of generated nodes handed to another worker");
+		}
+		recordBenchmark(numNodes, duration);
+		if (cancelRequested)
+			return Optional.empty();
+		PathNode end;
+		synchronized (incumbentLock) {
+			end = goalNode;
+		}
+		if (end != null) {
+			logDebug("Took " + duration + "ms, " + numNodes + " nodes with " + workers.length + " workers");
+			return Optional.of(new Path(startNode, end, numNodes, goal, contexts[0]));
+		}
+		mergeBestSoFar();
+		return bestSoFar(true, numNodes);
+	}
+
+	@Override
+	public Optional<IPath> bestPathSoFar() {
+		return joined ? super.bestPathSoFar() : Optional.empty();
+	}
+
+	@Override
+	public Optional<IPath> pathToMostRecentNodeConsidered() {
+		return joined ? super.pathToMostRecentNodeConsidered() : Optional.empty();
+	}
+
+	/**
+	 * Picks the best node for each coefficient out of all the workers into {@link #bestSoFar}, once they're all done
+	 */
+	private void mergeBestSoFar() {
+		for (int i = 0; i < COEFFICIENTS.length; i++) {
+			double best = Double.MAX_VALUE;
+			for (Worker worker : workers) {
+				PathNode node = worker.bestSoFar[i];
+				if (node != null && worker.bestHeuristicSoFar[i] < best) {
+					best = worker.bestHeuristicSoFar[i];
+					bestSoFar[i] = node;
+				}
+			}
+		}
+	}
+
+	@Override
+	protected int mapSize() {
+		int size = 0;
+		for (Worker worker : workers) {
+			size += worker.map.size();
+		}
+		return size;
+	}
+
+	private int owner(long hashCode) {
+		// spread out the bits, neighboring positions should land on different workers as evenly as possible
+		long mixed = hashCode * 0x9E3779B97F4A7C15L;
+		return Math.floorMod((int) (mixed ^ mixed >>> 32), workers.length);
+	}
+
+	private void recordBenchmark(int numNodes, long duration) {
+		if (!Baritone.settings().parallelSearchBenchmark.value)
+			return;
+		synchronized (benchmark) {
+			benchmark[workers.length][0] += numNodes;
+			benchmark[workers.length][1] += duration;
+			StringBuilder summary = new StringBuilder("Parallel A* nodes per second by worker count:");
+			for (int i = 1; i < benchmark.length; i++) {
+				if (benchmark[i][1] > 0) {
+					summary.append(' ').append(i).append(": ").append(benchmark[i][0] * 1000 / benchmark[i][1]);
+				}
+			}
+			logDebug(summary.toString());
+		}
+	}
+
+	/**
+	 * A node reached by some worker, on its way to the worker that owns it
+	 */
+	private static final class Offer {
+
+		final int x;
+		final int y;
+		final int z;
+		final long hashCode;
+		final double cost;
+		final PathNode previous;
+
+		Offer(int x, int y, int z, long hashCode, double cost, PathNode previous) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.hashCode = hashCode;
+			this.cost = cost;
+			this.previous = previous;
+		}
+	}
+
+	private final class Worker {
+
+		private final int index;
+
+		private final CalculationContext context;
+
+		private final Long2ObjectOpenHashMap<PathNode> map = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+
+		private final BinaryHeapOpenSet openSet = new BinaryHeapOpenSet();
+
+		private final ConcurrentLinkedQueue<Offer> incoming = new ConcurrentLinkedQueue<>();
+
+		private final MutableMoveResult res = new MutableMoveResult();
+
+		/**
+		 * Written by this worker only, read by {@link #mergeBestSoFar()} once it's done
+		 */
+		private final PathNode[] bestSoFar = new PathNode[COEFFICIENTS.length];
+		private final double[] bestHeuristicSoFar = new double[COEFFICIENTS.length];
+
+		private int numNodes;
+		private long numOffered;
+		private long numSent;
+
+		Worker(int index, CalculationContext context) {
+			this.index = index;
+			this.context = context;
+		}
+
+		PathNode getNode(int x, int y, int z, long hashCode) {
+			PathNode node = map.get(hashCode);
+			if (node == null) {
+				node = new PathNode(x, y, z, goal);
+				map.put(hashCode, node);
+			}
+			return node;
+		}
+
+		void run(long primaryTimeoutTime, long failureTimeoutTime) {
+			BetterWorldBorder worldBorder = new BetterWorldBorder(context.world.getWorldBorder());
+			boolean isFavoring = !favoring.isEmpty();
+			int pathingMaxChunkBorderFetch = Baritone.settings().pathingMaxChunkBorderFetch.value;
+			double minimumImprovement = Baritone.settings().minimumImprovementRepropagation.value ? MIN_IMPROVEMENT : 0;
+			Moves[] allMoves = Moves.values();
+			int iterations = 0;
+			while (!stop && !cancelRequested && numEmptyChunk.get() < pathingMaxChunkBorderFetch) {
+				if ((iterations++ & (1 << 6) - 1) == 0) {
+					long now = System.currentTimeMillis();
+					if (now - failureTimeoutTime >= 0 || !failing && now - primaryTimeoutTime >= 0) {
+						break;
+					}
+				}
+				Offer offer;
+				while ((offer = incoming.poll()) != null) {
+					relax(offer.x, offer.y, offer.z, offer.hashCode, offer.cost, offer.previous, minimumImprovement);
+					outstanding.decrementAndGet();
+				}
+				if (openSet.isEmpty()) {
+					if (outstanding.get() == 0)
+						break; // nothing left anywhere
+					LockSupport.parkNanos(20000);
+					continue;
+				}
+				PathNode currentNode = openSet.removeLowest();
+				if (currentNode.combinedCost >= incumbent) {
+					// can't lead anywhere cheaper than the goal that was already found
+					outstanding.decrementAndGet();
+					continue;
+				}
+				if (index == 0) {
+					mostRecentConsidered = currentNode;
+				}
+				numNodes++;
+				if (goal.isInGoal(currentNode.x, currentNode.y, currentNode.z)) {
+					synchronized (incumbentLock) {
+						if (currentNode.cost < incumbent) {
+							goalNode = currentNode;
+							incumbent = currentNode.cost;
+						}
+					}
+					failing = false; // there's a path to the goal, it can stop at the primary timeout
+					outstanding.decrementAndGet();
+					continue;
+				}
+				context.bsi.centerNeighborhood(currentNode.x, currentNode.y, currentNode.z);
+				for (Moves moves : allMoves) {
+					int newX = currentNode.x + moves.xOffset;
+					int newZ = currentNode.z + moves.zOffset;
+					if ((newX >> 4 != currentNode.x >> 4 || newZ >> 4 != currentNode.z >> 4) && !context.isLoaded(newX, newZ)) {
+						if (!moves.dynamicXZ) {
+							numEmptyChunk.incrementAndGet();
+						}
+						continue;
+					}
+					if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ)) {
+						continue;
+					}
+					if (currentNode.y + moves.yOffset > 256 || currentNode.y + moves.yOffset < 0) {
+						continue;
+					}
+					res.reset();
+					moves.apply(context, currentNode.x, currentNode.y, currentNode.z, res);
+					double actionCost = res.cost;
+					if (actionCost >= ActionCosts.COST_INF) {
+						continue;
+					}
+					if (actionCost <= 0 || Double.isNaN(actionCost))
+						throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
+					if (moves.dynamicXZ && !worldBorder.entirelyContains(res.x, res.z)) {
+						continue;
+					}
+					if (!moves.dynamicXZ && (res.x != newX || res.z != newZ))
+						throw new IllegalStateException(moves + " " + res.x + " " + newX + " " + res.z + " " + newZ);
+					if (!moves.dynamicY && res.y != currentNode.y + moves.yOffset)
+						throw new IllegalStateException(moves + " " + res.y + " " + (currentNode.y + moves.yOffset));
+					long hashCode = BetterBlockPos.longHash(res.x, res.y, res.z);
+					if (isFavoring) {
+						actionCost *= favoring.calculate(hashCode);
+					}
+					numOffered++;
+					double tentativeCost = currentNode.cost + actionCost;
+					int owner = owner(hashCode);
+					if (owner == index) {
+						relax(res.x, res.y, res.z, hashCode, tentativeCost, currentNode, minimumImprovement);
+					} else {
+						numSent++;
+						outstanding.incrementAndGet();
+						workers[owner].incoming.add(new Offer(res.x, res.y, res.z, hashCode, tentativeCost, currentNode));
+					}
+				}
+				outstanding.decrementAndGet(); // for currentNode, only now that everything it led to is accounted for
+			}
+		}
+
+		private void relax(int x, int y, int z, long hashCode, double tentativeCost, PathNode previous, double minimumImprovement) {
+			PathNode neighbor = getNode(x, y, z, hashCode);
+			if (neighbor.cost - tentativeCost <= minimumImprovement)
+				return;
+			neighbor.previous = previous;
+			neighbor.cost = tentativeCost;
+			neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
+			if (neighbor.isOpen()) {
+				openSet.update(neighbor);
+			} else {
+				outstanding.incrementAndGet();
+				openSet.insert(neighbor);
+			}
+			for (int i = 0; i < COEFFICIENTS.length; i++) {
+				double heuristic = neighbor.estimatedCostToGoal + neighbor.cost / COEFFICIENTS[i];
+				if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
+					bestHeuristicSoFar[i] = heuristic;
+					bestSoFar[i] = neighbor;
+					if (failing && getDistFromStartSq(neighbor) > MIN_DIST_PATH * MIN_DIST_PATH) {
+						failing = false;
+					}
+				}
+			}
+		}
+	}
+}
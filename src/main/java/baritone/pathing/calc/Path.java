@@ -11,6 +11,7 @@
 package baritone.pathing.calc;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -49,7 +50,10 @@ class Path extends PathBase {
 
 	private final List<Movement> movements;
 
-	private final List<PathNode> nodes;
+	/**
+	 * The cost from the start to each position in {@link #path}, used to get the cost of each movement
+	 */
+	private final double[] costs;
 
 	private final Goal goal;
 
@@ -80,14 +84,41 @@ class Path extends PathBase {
 		// inserting into a LinkedList<E> keeps track of length, then when we addall (which calls .toArray) it's able
 		// to performantly do that conversion since it knows the length.
 		path = new ArrayList<>(tempPath);
-		nodes = new ArrayList<>(tempNodes);
+		costs = new double[tempNodes.size()];
+		int i = 0;
+		for (PathNode node : tempNodes) {
+			costs[i++] = node.cost;
+		}
+	}
+
+	Path(PathNodeStore store, int start, int end, int numNodes, Goal goal, CalculationContext context) {
+		this.start = new BetterBlockPos(store.getX(start), store.getY(start), store.getZ(start));
+		this.end = new BetterBlockPos(store.getX(end), store.getY(end), store.getZ(end));
+		this.numNodes = numNodes;
+		movements = new ArrayList<>();
+		this.goal = goal;
+		this.context = context;
+		// same idea as above, but the previous pointers are ids so we can count the length first and fill arrays from the back
+		int length = 0;
+		for (int current = end; current != PathNodeStore.NONE; current = store.getPrevious(current)) {
+			length++;
+		}
+		BetterBlockPos[] tempPath = new BetterBlockPos[length];
+		costs = new double[length];
+		int current = end;
+		for (int i = length - 1; i >= 0; i--) {
+			tempPath[i] = new BetterBlockPos(store.getX(current), store.getY(current), store.getZ(current));
+			costs[i] = store.getCost(current);
+			current = store.getPrevious(current);
+		}
+		path = new ArrayList<>(Arrays.asList(tempPath));
 	}
 
 	private boolean assembleMovements() {
 		if (path.isEmpty() || !movements.isEmpty())
 			throw new IllegalStateException();
 		for (int i = 0; i < path.size() - 1; i++) {
-			double cost = nodes.get(i + 1).cost - nodes.get(i).cost;
+			double cost = costs[i + 1] - costs[i];
 			Movement move = runBackwards(path.get(i), path.get(i + 1), cost);
 			if (move == null)
 				return true;
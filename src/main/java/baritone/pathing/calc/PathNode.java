@@ -11,6 +11,7 @@
 package baritone.pathing.calc;
 
 import baritone.api.pathing.goals.Goal;
+import baritone.pathing.movement.Moves;
 import baritone.api.pathing.movement.ActionCosts;
 import baritone.api.utils.BetterBlockPos;
 
@@ -53,6 +54,16 @@ public final class PathNode {
 	 */
 	public int heapPosition;
 
+	/**
+	 * Only set on the open set entries for lazy edges, see {@link #PathNode(PathNode, PathNode, Moves)}. The move from previous to here, whose cost hasn't actually been calculated yet, so {@link #cost} is only a lower bound.
+	 */
+	public Moves lazyMove;
+
+	/**
+	 * This node's number in {@link AStarPathFinder}, plus one so that 0 can mean it hasn't been numbered yet. Free, the object is padded to 8 bytes anyway
+	 */
+	int searchId;
+
 	public PathNode(int x, int y, int z, Goal goal) {
 		previous = null;
 		cost = ActionCosts.COST_INF;
@@ -65,6 +76,19 @@ public final class PathNode {
 		this.z = z;
 	}
 
+	/**
+	 * An open set entry for a lazy edge from {@code previous} into {@code target}, which isn't in the node map. Nodes in the map always have real costs, so a bound that doesn't hold up never replaces anything.
+	 */
+	PathNode(PathNode target, PathNode previous, Moves lazyMove) {
+		this.previous = previous;
+		this.lazyMove = lazyMove;
+		estimatedCostToGoal = target.estimatedCostToGoal;
+		heapPosition = -1;
+		x = target.x;
+		y = target.y;
+		z = target.z;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		// GOTTA GO FAST
@@ -0,0 +1,276 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.Arrays;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.pathing.movement.Moves;
+import it.unimi.dsi.fastutil.HashCommon;
+
+/**
+ * The same data as a {@link PathNode}, but stored as parallel primitive arrays indexed by an int id instead of one object per position.
+ * <p>
+ * Positions are looked up through an open addressing long to int index keyed by {@link baritone.api.utils.BetterBlockPos#longHash(int, int, int)}, so a search that visits millions of positions allocates a handful of arrays instead of millions of
+ * objects and map entries.
+ */
+public final class PathNodeStore {
+
+	/**
+	 * Sentinel for "no node", used for the previous pointer of the start node and for an empty open set slot
+	 */
+	public static final int NONE = -1;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private static final Moves[] MOVES = Moves.values();
+
+	private Goal goal;
+
+	private int size;
+
+	/**
+	 * How many of the ids are positions in the index, the rest are lazy edges
+	 */
+	private int numIndexed;
+
+	private int[] x;
+	private int[] y;
+	private int[] z;
+	private double[] estimatedCostToGoal;
+	private double[] cost;
+	private double[] combinedCost;
+	private int[] previous;
+	private int[] heapPosition;
+
+	/**
+	 * Ordinal + 1 of the move of a lazy edge, 0 for a node, see {@link #createLazyEdge}
+	 */
+	private byte[] lazyMove;
+
+	/**
+	 * Keys of the position index, a longHash per slot
+	 */
+	private long[] keys;
+
+	/**
+	 * Values of the position index, node id + 1 so that 0 can mean an empty slot
+	 */
+	private int[] slots;
+
+	private int mask;
+
+	private int maxFill;
+
+	private final float loadFactor;
+
+	public PathNodeStore(Goal goal, int expectedSize, float loadFactor) {
+		this.goal = goal;
+		this.loadFactor = loadFactor;
+		int capacity = Math.max(expectedSize, MIN_CAPACITY);
+		x = new int[capacity];
+		y = new int[capacity];
+		z = new int[capacity];
+		estimatedCostToGoal = new double[capacity];
+		cost = new double[capacity];
+		combinedCost = new double[capacity];
+		previous = new int[capacity];
+		heapPosition = new int[capacity];
+		lazyMove = new byte[capacity];
+		int tableSize = HashCommon.arraySize(capacity, loadFactor);
+		keys = new long[tableSize];
+		slots = new int[tableSize];
+		mask = tableSize - 1;
+		maxFill = HashCommon.maxFill(tableSize, loadFactor);
+	}
+
+	/**
+	 * Returns the id of the node at the specified position, creating it if it doesn't exist yet. Same contract as {@link AbstractNodeCostSearch#getNodeAtPosition(int, int, int, long)}.
+	 *
+	 * @param x        The x position of the node
+	 * @param y        The y position of the node
+	 * @param z        The z position of the node
+	 * @param hashCode The hash code of the node, provided by {@link baritone.api.utils.BetterBlockPos#longHash(int, int, int)}
+	 * @return The associated node id
+	 */
+	public int getOrCreate(int x, int y, int z, long hashCode) {
+		int pos = (int) HashCommon.mix(hashCode) & mask;
+		int slot;
+		while ((slot = slots[pos]) != 0) {
+			if (keys[pos] == hashCode)
+				return slot - 1;
+			pos = pos + 1 & mask;
+		}
+		double heuristic = goal.heuristic(x, y, z);
+		if (Double.isNaN(heuristic))
+			throw new IllegalStateException(goal + " calculated implausible heuristic");
+		int id = allocate(x, y, z, heuristic);
+		keys[pos] = hashCode;
+		slots[pos] = id + 1;
+		if (++numIndexed >= maxFill) {
+			rehash(HashCommon.arraySize(numIndexed + 1, loadFactor));
+		}
+		return id;
+	}
+
+	/**
+	 * An open set entry for a lazy edge from {@code previous} into {@code target}, the same as {@link PathNode#PathNode(PathNode, PathNode, Moves)}. It gets an id like a node, but isn't in the position index, so
+	 * {@link #getOrCreate} still always returns the node itself.
+	 *
+	 * @return The id of the edge, with the cost of {@code target} and no previous
+	 */
+	public int createLazyEdge(int target, int previous, Moves move) {
+		int id = allocate(x[target], y[target], z[target], estimatedCostToGoal[target]);
+		this.previous[id] = previous;
+		lazyMove[id] = (byte) (move.ordinal() + 1);
+		return id;
+	}
+
+	private int allocate(int x, int y, int z, double heuristic) {
+		int id = size;
+		if (id == this.x.length) {
+			grow();
+		}
+		this.x[id] = x;
+		this.y[id] = y;
+		this.z[id] = z;
+		estimatedCostToGoal[id] = heuristic;
+		cost[id] = ActionCosts.COST_INF;
+		combinedCost[id] = 0;
+		previous[id] = NONE;
+		heapPosition[id] = NONE;
+		lazyMove[id] = 0;
+		size = id + 1;
+		return id;
+	}
+
+	private void grow() {
+		int capacity = x.length << 1;
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		z = Arrays.copyOf(z, capacity);
+		estimatedCostToGoal = Arrays.copyOf(estimatedCostToGoal, capacity);
+		cost = Arrays.copyOf(cost, capacity);
+		combinedCost = Arrays.copyOf(combinedCost, capacity);
+		previous = Arrays.copyOf(previous, capacity);
+		heapPosition = Arrays.copyOf(heapPosition, capacity);
+		lazyMove = Arrays.copyOf(lazyMove, capacity);
+	}
+
+	private void rehash(int tableSize) {
+		long[] oldKeys = keys;
+		int[] oldSlots = slots;
+		long[] newKeys = new long[tableSize];
+		int[] newSlots = new int[tableSize];
+		int newMask = tableSize - 1;
+		for (int i = 0; i < oldSlots.length; i++) {
+			if (oldSlots[i] == 0) {
+				continue;
+			}
+			int pos = (int) HashCommon.mix(oldKeys[i]) & newMask;
+			while (newSlots[pos] != 0) {
+				pos = pos + 1 & newMask;
+			}
+			newKeys[pos] = oldKeys[i];
+			newSlots[pos] = oldSlots[i];
+		}
+		keys = newKeys;
+		slots = newSlots;
+		mask = newMask;
+		maxFill = HashCommon.maxFill(tableSize, loadFactor);
+	}
+
+	/**
+	 * Forgets every node so that the store can be reused for another search, keeping all allocated capacity
+	 *
+	 * @param goal The goal of the next search, used for the heuristic of new nodes
+	 */
+	public void reset(Goal goal) {
+		this.goal = goal;
+		Arrays.fill(slots, 0);
+		size = 0;
+		numIndexed = 0;
+	}
+
+	/**
+	 * @return How many nodes there are, lazy edges included
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getX(int id) {
+		return x[id];
+	}
+
+	public int getY(int id) {
+		return y[id];
+	}
+
+	public int getZ(int id) {
+		return z[id];
+	}
+
+	public double getEstimatedCostToGoal(int id) {
+		return estimatedCostToGoal[id];
+	}
+
+	public double getCost(int id) {
+		return cost[id];
+	}
+
+	public void setCost(int id, double cost) {
+		this.cost[id] = cost;
+	}
+
+	public double getCombinedCost(int id) {
+		return combinedCost[id];
+	}
+
+	public void setCombinedCost(int id, double combinedCost) {
+		this.combinedCost[id] = combinedCost;
+	}
+
+	public int getPrevious(int id) {
+		return previous[id];
+	}
+
+	public void setPrevious(int id, int previous) {
+		this.previous[id] = previous;
+	}
+
+	public int getHeapPosition(int id) {
+		return heapPosition[id];
+	}
+
+	public void setHeapPosition(int id, int heapPosition) {
+		this.heapPosition[id] = heapPosition;
+	}
+
+	public boolean isOpen(int id) {
+		return heapPosition[id] != NONE;
+	}
+
+	/**
+	 * @return The move of a lazy edge, or {@code null} if it's a node
+	 */
+	public Moves getLazyMove(int id) {
+		byte move = lazyMove[id];
+		return move == 0 ? null : MOVES[move - 1];
+	}
+
+	/**
+	 * @return Approximate number of bytes held by the backing arrays, for comparison against the PathNode object graph
+	 */
+	public long footprintBytes() {
+		return (long) x.length * (4 + 4 + 4 + 8 + 8 + 8 + 4 + 4 + 1) + (long) slots.length * (8 + 4);
+	}
+}
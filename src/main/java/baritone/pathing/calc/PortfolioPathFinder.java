@@ -0,0 +1,265 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.Helper;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+
+/**
+ * Runs a few differently weighted {@link AStarPathFinder}s from the same start at once, each on its own thread. Normal A* wins as soon as it gets to the goal. A weighted one that gets there first only wins if its path costs at most
+ * {@link baritone.api.Settings#portfolioSuboptimalityBound} times the least that normal A* has shown any path could cost. Otherwise it waits until the primary timeout for normal A* to finish, and only wins if it doesn't. If none of
+ * them get to the goal before they time out, goes with whichever path ends closest to the goal.
+ * <p>
+ * Each variant needs its own {@link CalculationContext} for the same reason as {@link BidirectionalAStarPathFinder}, so they're made on the main thread ahead of time.
+ */
+public final class PortfolioPathFinder extends AbstractNodeCostSearch {
+
+	/**
+	 * The searches in the portfolio, as the weight on cost so far and the weight on the heuristic
+	 */
+	enum Variant {
+		ASTAR("A*", 1, 1),
+		WEIGHTED_1_5("weighted A* w=1.5", 1, 1.5),
+		WEIGHTED_3("weighted A* w=3", 1, 3),
+		GREEDY("greedy best first", 0, 1);
+
+		final String name;
+		final double costWeight;
+		final double heuristicWeight;
+
+		Variant(String name, double costWeight, double heuristicWeight) {
+			this.name = name;
+			this.costWeight = costWeight;
+			this.heuristicWeight = heuristicWeight;
+		}
+	}
+
+	/**
+	 * How many searches run at once, and so how many contexts the constructor needs
+	 */
+	public static final int SIZE = Variant.values().length;
+
+	/**
+	 * How many times each variant won so far, logged to help pick the portfolio
+	 */
+	private static final int[] wins = new int[SIZE];
+
+	private final AStarPathFinder[] searches;
+
+	private final Object lock = new Object();
+
+	/**
+	 * The search whose path is used, -1 until one is chosen
+	 */
+	private int winner = -1;
+
+	/**
+	 * Whether normal A* is done, after which there's nothing better left to wait for
+	 */
+	private boolean exactDone;
+
+	/**
+	 * What each search's path to the goal cost, {@link ActionCosts#COST_INF} until it has one
+	 */
+	private final double[] goalCosts;
+
+	private double suboptimalityBound;
+
+	private long primaryTimeoutTime;
+
+	/**
+	 * @param contexts One per {@link Variant}, the first one is the context of this search and the rest have to have been made on the main thread
+	 */
+	public PortfolioPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext[] contexts, SearchArena arena) {
+		super(startX, startY, startZ, goal, contexts[0], null);
+		Variant[] variants = Variant.values();
+		if (contexts.length != SIZE)
+			throw new IllegalArgumentException("need one context per variant");
+		searches = new AStarPathFinder[variants.length];
+		goalCosts = new double[variants.length];
+		Arrays.fill(goalCosts, ActionCosts.COST_INF);
+		for (int i = 0; i < variants.length; i++) {
+			// only the first one gets the arena, there's only one to go around
+			searches[i] = new AStarPathFinder(startX, startY, startZ, goal, favoring, contexts[i], i == 0 ? arena : null).weighted(variants[i].costWeight, variants[i].heuristicWeight);
+		}
+	}
+
+	@Override
+	protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+		long startTime = System.currentTimeMillis();
+		suboptimalityBound = Baritone.settings().portfolioSuboptimalityBound.value;
+		primaryTimeoutTime = startTime + (Baritone.settings().slowPath.value ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout);
+		@SuppressWarnings("unchecked")
+		Optional<IPath>[] results = new Optional[searches.length];
+		long[] durations = new long[searches.length];
+		CountDownLatch done = new CountDownLatch(searches.length - 1);
+		for (int i = 1; i < searches.length; i++) {
+			int index = i;
+			Baritone.getExecutor().execute(() -> {
+				try {
+					run(index, primaryTimeout, failureTimeout, results, durations, startTime);
+				} catch (Exception e) {
+					Helper.HELPER.logDebug("Portfolio search exception: " + e);
+					e.printStackTrace();
+				} finally {
+					done.countDown();
+				}
+			});
+		}
+		try {
+			run(0, primaryTimeout, failureTimeout, results, durations, startTime);
+		} finally {
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (cancelRequested)
+			return Optional.empty();
+		Variant[] variants = Variant.values();
+		int chosen;
+		synchronized (lock) {
+			chosen = winner;
+		}
+		boolean reachedGoal = chosen != -1;
+		if (!reachedGoal) {
+			// nobody made it, go with whichever got closest
+			double best = Double.MAX_VALUE;
+			for (int i = 0; i < searches.length; i++) {
+				if (results[i] == null || !results[i].isPresent())
+					continue;
+				BetterBlockPos dest = results[i].get().getDest();
+				double heuristic = goal.heuristic(dest.x, dest.y, dest.z);
+				if (heuristic < best) {
+					best = heuristic;
+					chosen = i;
+				}
+			}
+		}
+		if (chosen == -1) {
+			logDebug("Portfolio search: no variant found a path");
+			return Optional.empty();
+		}
+		StringBuilder tally = new StringBuilder();
+		synchronized (wins) {
+			wins[chosen]++;
+			for (int i = 0; i < variants.length; i++) {
+				tally.append(i == 0 ? "" : ", ").append(variants[i].name).append(' ').append(wins[i]);
+			}
+		}
+		String how = reachedGoal ? " reaching the goal (cost " + (int) goalCosts[chosen] + ", at least " + (int) searches[0].lowerBound() + ")" : " getting closest to the goal";
+		logDebug("Portfolio search won by " + variants[chosen].name + how + " in " + durations[chosen] + "ms (wins so far: " + tally + ")");
+		return results[chosen];
+	}
+
+	private void run(int index, long primaryTimeout, long failureTimeout, Optional<IPath>[] results, long[] durations, long startTime) {
+		AStarPathFinder search = searches[index];
+		Optional<IPath> result = search.runSearch(primaryTimeout, failureTimeout);
+		durations[index] = System.currentTimeMillis() - startTime;
+		results[index] = result;
+		boolean reached = result.isPresent() && goal.isInGoal(result.get().getDest());
+		synchronized (lock) {
+			if (reached) {
+				goalCosts[index] = search.goalCost();
+			}
+			if (index == 0) {
+				// normal A* is as good as it gets, and if it didn't get there, the weighted paths are all there is
+				exactDone = true;
+				if (winner == -1) {
+					choose(reached ? 0 : cheapest());
+				}
+				return;
+			}
+			if (!reached || winner != -1)
+				return;
+			// wait for normal A* to finish, or show that this path is good enough, until the primary timeout
+			while (winner == -1 && !cancelRequested) {
+				int cheapest = cheapest();
+				if (exactDone || goalCosts[cheapest] <= suboptimalityBound * searches[0].lowerBound()) {
+					choose(cheapest);
+					return;
+				}
+				long left = primaryTimeoutTime - System.currentTimeMillis();
+				if (left <= 0) {
+					// normal A* didn't make it in time, the cheapest weighted path it is
+					choose(cheapest);
+					return;
+				}
+				try {
+					lock.wait(Math.min(left, 50)); // the lower bound goes up as normal A* goes on
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The search with the cheapest path to the goal so far, -1 if none of them have one
+	 */
+	private int cheapest() {
+		int cheapest = -1;
+		for (int i = 0; i < goalCosts.length; i++) {
+			if (goalCosts[i] < ActionCosts.COST_INF && (cheapest == -1 || goalCosts[i] < goalCosts[cheapest])) {
+				cheapest = i;
+			}
+		}
+		return cheapest;
+	}
+
+	/**
+	 * Goes with {@code index}, if it isn't -1, and stops the rest right away. Has to hold {@link #lock}.
+	 */
+	private void choose(int index) {
+		if (index == -1)
+			return;
+		winner = index;
+		lock.notifyAll();
+		for (int i = 0; i < searches.length; i++) {
+			if (i != index) {
+				searches[i].cancel();
+			}
+		}
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+		for (AStarPathFinder search : searches) {
+			search.cancel();
+		}
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+	}
+
+	@Override
+	public Optional<IPath> bestPathSoFar() {
+		// the unweighted one, it's the most representative of what normal A* would be showing right now
+		return searches[0].bestPathSoFar();
+	}
+
+	@Override
+	public Optional<IPath> pathToMostRecentNodeConsidered() {
+		return searches[0].pathToMostRecentNodeConsidered();
+	}
+}
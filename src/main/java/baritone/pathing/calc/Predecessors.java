@@ -0,0 +1,85 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.MovementHelper;
+import baritone.pathing.movement.Moves;
+
+/**
+ * Searches that run backwards from the goal have no moves of their own. To find the predecessors of a position they guess every source a {@link Moves} could have started from, run the normal forward cost calculation from there, and
+ * keep it if it lands on the position.
+ */
+final class Predecessors {
+
+	/**
+	 * Big enough for the output of {@link #candidateSources} for any move, as x y z triples
+	 */
+	static final int BUFFER_SIZE = 3 * 258;
+
+	private Predecessors() {}
+
+	/**
+	 * @return One more than the furthest any move can fall in this context
+	 */
+	static int maxFall(CalculationContext context) {
+		return Math.max(context.maxFallHeightNoWater, context.hasWaterBucket ? context.maxFallHeightBucket : 0) + 1;
+	}
+
+	/**
+	 * Every position the given move could have started from to end up at x, y, z. Most of them won't check out, the caller runs the move forward to find out.
+	 *
+	 * @return How many positions were written to {@code out}, as x y z triples
+	 */
+	static int candidateSources(CalculationContext context, Moves moves, int x, int y, int z, int maxFall, int[] out) {
+		if (moves.dynamicXZ) {
+			// parkour, 2 to 4 blocks back along its axis, either level or one block lower for parkour ascend
+			int dx = Integer.signum(moves.xOffset);
+			int dz = Integer.signum(moves.zOffset);
+			int count = 0;
+			for (int dist = 2; dist <= 4; dist++) {
+				count = addSource(out, count, x - dx * dist, y, z - dz * dist);
+				count = addSource(out, count, x - dx * dist, y - 1, z - dz * dist);
+			}
+			return count;
+		}
+		int srcX = x - moves.xOffset;
+		int srcZ = z - moves.zOffset;
+		if (!moves.dynamicY)
+			return addSource(out, 0, srcX, y - moves.yOffset, srcZ);
+		if (moves.yOffset == 0) {
+			// diagonal, possibly one block up or down
+			int count = addSource(out, 0, srcX, y, srcZ);
+			count = addSource(out, count, srcX, y + 1, srcZ);
+			return addSource(out, count, srcX, y - 1, srcZ);
+		}
+		// descend or fall, from anywhere up the column we could have fallen down
+		boolean water = MovementHelper.isWater(context.get(x, y, z));
+		int count = 0;
+		for (int fall = 1; y + fall <= 256 && count < out.length / 3; fall++) {
+			if (!water && fall > maxFall) {
+				break;
+			}
+			if (fall > 3 && !MovementHelper.canWalkThrough(context.bsi, x, y + fall - 3, z)) {
+				break; // the fall column is blocked, and only the top of it gets mined out
+			}
+			count = addSource(out, count, srcX, y + fall, srcZ);
+		}
+		return count;
+	}
+
+	private static int addSource(int[] out, int count, int x, int y, int z) {
+		out[count * 3] = x;
+		out[count * 3 + 1] = y;
+		out[count * 3 + 2] = z;
+		return count + 1;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.EnumMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import baritone.api.pathing.goals.Goal;
+import baritone.pathing.calc.openset.IOpenSet;
+import baritone.pathing.calc.openset.NodeStoreBinaryHeapOpenSet;
+import baritone.pathing.calc.openset.OpenSetType;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * The big allocations of a search (node map, open set, move result, best so far arrays), kept around and cleared between searches so that back to back segment calculations don't regrow them from scratch.
+ * <p>
+ * Only one search can hold the arena at a time, a search that can't acquire it just allocates its own like before.
+ */
+public final class SearchArena {
+
+	private final AtomicBoolean inUse = new AtomicBoolean();
+
+	private Long2ObjectOpenHashMap<PathNode> map;
+
+	private PathNodeStore store;
+
+	private NodeStoreBinaryHeapOpenSet storeOpenSet;
+
+	private final EnumMap<OpenSetType, IOpenSet> openSets = new EnumMap<>(OpenSetType.class);
+
+	final MutableMoveResult moveResult = new MutableMoveResult();
+
+	final double[] bestHeuristicSoFar = new double[AbstractNodeCostSearch.COEFFICIENTS.length];
+
+	/**
+	 * @return {@code true} if the caller now owns this arena and must {@link #release()} it once its search is done
+	 */
+	boolean acquire() {
+		return inUse.compareAndSet(false, true);
+	}
+
+	void release() {
+		inUse.set(false);
+	}
+
+	Long2ObjectOpenHashMap<PathNode> map(int expectedSize, float loadFactor) {
+		if (map == null) {
+			map = new Long2ObjectOpenHashMap<>(expectedSize, loadFactor);
+		} else {
+			map.clear(); // keeps the capacity of the biggest search so far
+		}
+		return map;
+	}
+
+	PathNodeStore store(Goal goal, int expectedSize, float loadFactor) {
+		if (store == null) {
+			store = new PathNodeStore(goal, expectedSize, loadFactor);
+		} else {
+			store.reset(goal);
+		}
+		return store;
+	}
+
+	NodeStoreBinaryHeapOpenSet storeOpenSet(PathNodeStore store) {
+		if (storeOpenSet == null) {
+			storeOpenSet = new NodeStoreBinaryHeapOpenSet(store);
+		} else {
+			storeOpenSet.clear();
+		}
+		return storeOpenSet;
+	}
+
+	IOpenSet openSet(OpenSetType type) {
+		IOpenSet openSet = openSets.get(type);
+		if (openSet == null) {
+			openSet = type.create();
+			openSets.put(type, openSet);
+		} else {
+			openSet.clear();
+		}
+		return openSet;
+	}
+}
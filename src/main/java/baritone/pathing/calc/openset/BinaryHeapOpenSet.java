@@ -100,10 +100,17 @@ public final class BinaryHeapOpenSet implements IOpenSet {
 		return result;
 	}
 
+	@Override
 	public int size() {
 		return size;
 	}
 
+	@Override
+	public void clear() {
+		Arrays.fill(array, 1, size + 1, null);
+		size = 0;
+	}
+
 	@Override
 	public void update(PathNode val) {
 		int index = val.heapPosition;
@@ -44,4 +44,14 @@ public interface IOpenSet {
 	 * @param node The node
 	 */
 	void update(PathNode node);
+
+	/**
+	 * @return The number of nodes currently in the open set
+	 */
+	int size();
+
+	/**
+	 * Removes every node, keeping any allocated capacity so that the open set can be reused for another search
+	 */
+	void clear();
 }
@@ -27,12 +27,16 @@ class LinkedListOpenSet implements IOpenSet {
 
 	private Node first = null;
 
+	private int size = 0;
+
 	@Override
 	public void insert(PathNode pathNode) {
 		Node node = new Node();
 		node.val = pathNode;
 		node.nextOpen = first;
 		first = node;
+		pathNode.heapPosition = 0; // not a real position, but isOpen needs to be true so that it isn't inserted twice
+		size++;
 	}
 
 	@Override
@@ -42,6 +46,15 @@ class LinkedListOpenSet implements IOpenSet {
 
 	@Override
 	public PathNode removeLowest() {
+		PathNode result = removeLowest0();
+		if (result != null) {
+			result.heapPosition = -1;
+			size--;
+		}
+		return result;
+	}
+
+	private PathNode removeLowest0() {
 		if (first == null)
 			return null;
 		Node current = first.nextOpen;
@@ -74,6 +87,17 @@ class LinkedListOpenSet implements IOpenSet {
 		return bestNode.val;
 	}
 
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		first = null;
+		size = 0;
+	}
+
 	@Override
 	public void update(PathNode node) {
 
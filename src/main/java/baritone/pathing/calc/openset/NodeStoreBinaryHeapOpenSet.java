@@ -0,0 +1,126 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import java.util.Arrays;
+import baritone.pathing.calc.PathNodeStore;
+
+/**
+ * The same binary heap as {@link BinaryHeapOpenSet}, but over node ids of a {@link PathNodeStore} instead of {@link baritone.pathing.calc.PathNode} objects. Costs are read from, and heap positions written to, the store.
+ */
+public final class NodeStoreBinaryHeapOpenSet {
+
+	/**
+	 * The initial capacity of the heap (2^10)
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final PathNodeStore store;
+
+	/**
+	 * The array backing the heap, holding node ids
+	 */
+	private int[] array;
+
+	/**
+	 * The size of the heap
+	 */
+	private int size;
+
+	public NodeStoreBinaryHeapOpenSet(PathNodeStore store) {
+		this(store, INITIAL_CAPACITY);
+	}
+
+	public NodeStoreBinaryHeapOpenSet(PathNodeStore store, int size) {
+		this.store = store;
+		this.size = 0;
+		array = new int[size];
+	}
+
+	public void insert(int value) {
+		if (size >= array.length - 1) {
+			array = Arrays.copyOf(array, array.length << 1);
+		}
+		size++;
+		store.setHeapPosition(value, size);
+		array[size] = value;
+		update(value);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int removeLowest() {
+		if (size == 0)
+			throw new IllegalStateException();
+		int result = array[1];
+		int val = array[size];
+		array[1] = val;
+		store.setHeapPosition(val, 1);
+		size--;
+		store.setHeapPosition(result, PathNodeStore.NONE);
+		if (size < 2)
+			return result;
+		int index = 1;
+		int smallerChild = 2;
+		double cost = store.getCombinedCost(val);
+		do {
+			int smallerChildNode = array[smallerChild];
+			double smallerChildCost = store.getCombinedCost(smallerChildNode);
+			if (smallerChild < size) {
+				int rightChildNode = array[smallerChild + 1];
+				double rightChildCost = store.getCombinedCost(rightChildNode);
+				if (smallerChildCost > rightChildCost) {
+					smallerChild++;
+					smallerChildCost = rightChildCost;
+					smallerChildNode = rightChildNode;
+				}
+			}
+			if (cost <= smallerChildCost) {
+				break;
+			}
+			array[index] = smallerChildNode;
+			array[smallerChild] = val;
+			store.setHeapPosition(val, smallerChild);
+			store.setHeapPosition(smallerChildNode, index);
+			index = smallerChild;
+		} while ((smallerChild <<= 1) <= size);
+		return result;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes every node, keeping the allocated capacity
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	public void update(int val) {
+		int index = store.getHeapPosition(val);
+		int parentInd = index >>> 1;
+		double cost = store.getCombinedCost(val);
+		int parentNode = array[parentInd];
+		while (index > 1 && store.getCombinedCost(parentNode) > cost) {
+			array[index] = parentNode;
+			array[parentInd] = val;
+			store.setHeapPosition(val, parentInd);
+			store.setHeapPosition(parentNode, index);
+			index = parentInd;
+			parentInd = index >>> 1;
+			parentNode = array[parentInd];
+		}
+	}
+}
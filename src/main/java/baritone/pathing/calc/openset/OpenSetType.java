@@ -0,0 +1,93 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The open set implementations that can be picked with {@link baritone.api.Settings#openSetType}, along with running totals for {@link baritone.api.Settings#openSetComparison}
+ */
+public enum OpenSetType {
+
+	BINARY_HEAP("binary", BinaryHeapOpenSet::new),
+	PAIRING_HEAP("pairing", PairingHeapOpenSet::new),
+	RADIX_HEAP("radix", RadixHeapOpenSet::new),
+	LINKED_LIST("linkedlist", LinkedListOpenSet::new);
+
+	/**
+	 * The ones worth comparing, the linked list is O(n) per removal and only here for completeness
+	 */
+	private static final OpenSetType[] COMPARED = { BINARY_HEAP, PAIRING_HEAP, RADIX_HEAP };
+
+	private static final AtomicInteger comparisonCounter = new AtomicInteger();
+
+	public final String settingName;
+
+	private final Supplier<IOpenSet> constructor;
+
+	private long searches;
+	private long nodes;
+	private long millis;
+	private int peakSize;
+
+	OpenSetType(String name, Supplier<IOpenSet> constructor) {
+		this.settingName = name;
+		this.constructor = constructor;
+	}
+
+	public IOpenSet create() {
+		return constructor.get();
+	}
+
+	/**
+	 * Add the results of one search to the running totals of this type
+	 *
+	 * @param numNodes        Nodes removed from the open set
+	 * @param durationMS      How long the search took
+	 * @param peakOpenSetSize The largest the open set got
+	 */
+	public synchronized void record(int numNodes, long durationMS, int peakOpenSetSize) {
+		searches++;
+		nodes += numNodes;
+		millis += durationMS;
+		peakSize = Math.max(peakSize, peakOpenSetSize);
+	}
+
+	public synchronized String summary() {
+		return settingName + ": " + searches + " searches, " + (millis == 0 ? 0 : nodes * 1000 / millis) + " nodes per second, peak open set size " + peakSize;
+	}
+
+	/**
+	 * @param name The value of {@link baritone.api.Settings#openSetType}
+	 * @return The matching type, or {@code null} if there is none
+	 */
+	public static OpenSetType byName(String name) {
+		String lower = name.trim().toLowerCase(Locale.US);
+		for (OpenSetType type : values()) {
+			if (type.settingName.equals(lower))
+				return type;
+		}
+		return null;
+	}
+
+	/**
+	 * @return The next type to use in comparison mode, each search gets the next one round robin
+	 */
+	public static OpenSetType nextForComparison() {
+		return COMPARED[Math.floorMod(comparisonCounter.getAndIncrement(), COMPARED.length)];
+	}
+
+	public static OpenSetType[] compared() {
+		return COMPARED.clone();
+	}
+}
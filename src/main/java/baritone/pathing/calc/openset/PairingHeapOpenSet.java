@@ -0,0 +1,224 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import java.util.Arrays;
+import baritone.pathing.calc.PathNode;
+
+/**
+ * A pairing heap implementation of an open set. Insert and decrease-key are O(1), removeLowest is amortized O(log n).
+ * <p>
+ * The tree links live in parallel int arrays indexed by a slot, and {@link PathNode#heapPosition} holds the slot of each open node, so no wrapper object is allocated per node.
+ */
+public final class PairingHeapOpenSet implements IOpenSet {
+
+	private static final int NONE = -1;
+
+	/**
+	 * The initial capacity of the slot arrays (2^10)
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private PathNode[] nodes;
+
+	/**
+	 * The leftmost child of each slot
+	 */
+	private int[] child;
+
+	/**
+	 * The next sibling to the right of each slot
+	 */
+	private int[] sibling;
+
+	/**
+	 * The left sibling of each slot, or its parent if it's the leftmost child
+	 */
+	private int[] prev;
+
+	/**
+	 * Scratch space for the two pass merge in removeLowest
+	 */
+	private int[] pairs;
+
+	/**
+	 * Head of the singly linked (through {@link #sibling}) list of free slots
+	 */
+	private int free = NONE;
+
+	/**
+	 * Slots below this have been handed out at least once
+	 */
+	private int used;
+
+	private int root = NONE;
+
+	private int size;
+
+	public PairingHeapOpenSet() {
+		this(INITIAL_CAPACITY);
+	}
+
+	public PairingHeapOpenSet(int size) {
+		nodes = new PathNode[size];
+		child = new int[size];
+		sibling = new int[size];
+		prev = new int[size];
+		pairs = new int[16];
+	}
+
+	@Override
+	public void insert(PathNode value) {
+		int slot = allocate();
+		nodes[slot] = value;
+		child[slot] = NONE;
+		sibling[slot] = NONE;
+		prev[slot] = NONE;
+		value.heapPosition = slot;
+		root = meld(root, slot);
+		size++;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public PathNode removeLowest() {
+		if (size == 0)
+			throw new IllegalStateException();
+		int slot = root;
+		PathNode result = nodes[slot];
+		root = mergePairs(child[slot]);
+		nodes[slot] = null;
+		sibling[slot] = free;
+		free = slot;
+		size--;
+		result.heapPosition = -1;
+		return result;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(nodes, 0, used, null);
+		used = 0;
+		free = NONE;
+		root = NONE;
+		size = 0;
+	}
+
+	@Override
+	public void update(PathNode val) {
+		int slot = val.heapPosition;
+		if (slot == root)
+			return; // still the minimum, nothing to do
+		// cut this subtree out of its parent and meld it back in at the root
+		int left = prev[slot];
+		int right = sibling[slot];
+		if (child[left] == slot) {
+			child[left] = right;
+		} else {
+			sibling[left] = right;
+		}
+		if (right != NONE) {
+			prev[right] = left;
+		}
+		sibling[slot] = NONE;
+		prev[slot] = NONE;
+		root = meld(root, slot);
+	}
+
+	private int allocate() {
+		if (free != NONE) {
+			int slot = free;
+			free = sibling[slot];
+			return slot;
+		}
+		if (used == nodes.length) {
+			int capacity = nodes.length << 1;
+			nodes = Arrays.copyOf(nodes, capacity);
+			child = Arrays.copyOf(child, capacity);
+			sibling = Arrays.copyOf(sibling, capacity);
+			prev = Arrays.copyOf(prev, capacity);
+		}
+		return used++;
+	}
+
+	/**
+	 * Links two trees, making the one with the higher root the leftmost child of the other
+	 *
+	 * @return The slot of the new root
+	 */
+	private int meld(int a, int b) {
+		if (a == NONE)
+			return b;
+		if (b == NONE)
+			return a;
+		if (nodes[b].combinedCost < nodes[a].combinedCost) {
+			int tmp = a;
+			a = b;
+			b = tmp;
+		}
+		int firstChild = child[a];
+		sibling[b] = firstChild;
+		if (firstChild != NONE) {
+			prev[firstChild] = b;
+		}
+		prev[b] = a;
+		child[a] = b;
+		sibling[a] = NONE;
+		prev[a] = NONE;
+		return a;
+	}
+
+	/**
+	 * Standard two pass pairing: meld siblings pairwise left to right, then meld the results right to left
+	 *
+	 * @param first The leftmost of the siblings to merge
+	 * @return The slot of the new root
+	 */
+	private int mergePairs(int first) {
+		if (first == NONE)
+			return NONE;
+		int count = 0;
+		int current = first;
+		while (current != NONE) {
+			int a = current;
+			int b = sibling[a];
+			if (count == pairs.length) {
+				pairs = Arrays.copyOf(pairs, pairs.length << 1);
+			}
+			if (b == NONE) {
+				sibling[a] = NONE;
+				prev[a] = NONE;
+				pairs[count++] = a;
+				break;
+			}
+			current = sibling[b];
+			sibling[a] = NONE;
+			prev[a] = NONE;
+			sibling[b] = NONE;
+			prev[b] = NONE;
+			pairs[count++] = meld(a, b);
+		}
+		int result = pairs[--count];
+		while (count > 0) {
+			result = meld(pairs[--count], result);
+		}
+		return result;
+	}
+}
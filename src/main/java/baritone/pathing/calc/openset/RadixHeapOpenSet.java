@@ -0,0 +1,203 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import java.util.Arrays;
+import baritone.pathing.calc.PathNode;
+
+/**
+ * A monotone radix heap keyed on {@link PathNode#combinedCost} quantized to {@link #KEYS_PER_TICK} steps per tick.
+ * <p>
+ * Bucket 0 holds nodes whose key equals the last removed key, bucket i holds nodes whose key first differs from it at bit i - 1. Insert and decrease-key are O(1), and each node is only ever redistributed into a lower bucket, so removeLowest is
+ * amortized O(log C).
+ * <p>
+ * A radix heap requires keys to never go below the last removed key. A* with an admissible but not perfectly consistent heuristic (or with favoring) can occasionally break that, so such keys are clamped up to the last removed key, which means
+ * they are removed next instead of strictly in order. Nodes with the same quantized key come out in no particular order.
+ */
+public final class RadixHeapOpenSet implements IOpenSet {
+
+	private static final int NONE = -1;
+
+	/**
+	 * A 64th of a tick is far finer than any cost difference that matters, see AbstractNodeCostSearch.MIN_IMPROVEMENT
+	 */
+	private static final double KEYS_PER_TICK = 64;
+
+	private static final int NUM_BUCKETS = 65;
+
+	/**
+	 * The initial capacity of the slot arrays (2^10)
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private PathNode[] nodes;
+
+	private long[] keys;
+
+	private int[] next;
+
+	private int[] prev;
+
+	private byte[] bucketOf;
+
+	/**
+	 * Head of the doubly linked list of each bucket
+	 */
+	private final int[] buckets = new int[NUM_BUCKETS];
+
+	private int free = NONE;
+
+	private int used;
+
+	/**
+	 * The last removed key, compared unsigned
+	 */
+	private long last;
+
+	private int size;
+
+	public RadixHeapOpenSet() {
+		this(INITIAL_CAPACITY);
+	}
+
+	public RadixHeapOpenSet(int size) {
+		nodes = new PathNode[size];
+		keys = new long[size];
+		next = new int[size];
+		prev = new int[size];
+		bucketOf = new byte[size];
+		Arrays.fill(buckets, NONE);
+	}
+
+	@Override
+	public void insert(PathNode value) {
+		int slot = allocate();
+		nodes[slot] = value;
+		value.heapPosition = slot;
+		push(slot, quantize(value.combinedCost));
+		size++;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public PathNode removeLowest() {
+		if (size == 0)
+			throw new IllegalStateException();
+		if (buckets[0] == NONE) {
+			int bucket = 1;
+			while (buckets[bucket] == NONE) {
+				bucket++;
+			}
+			// the new last is the minimum of the first nonempty bucket, everything in it then moves to a strictly lower bucket
+			long min = -1; // unsigned maximum
+			for (int slot = buckets[bucket]; slot != NONE; slot = next[slot]) {
+				if (Long.compareUnsigned(keys[slot], min) < 0) {
+					min = keys[slot];
+				}
+			}
+			last = min;
+			int slot = buckets[bucket];
+			buckets[bucket] = NONE;
+			while (slot != NONE) {
+				int following = next[slot];
+				push(slot, keys[slot]);
+				slot = following;
+			}
+		}
+		int slot = buckets[0];
+		unlink(slot);
+		PathNode result = nodes[slot];
+		nodes[slot] = null;
+		next[slot] = free;
+		free = slot;
+		size--;
+		result.heapPosition = -1;
+		return result;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(nodes, 0, used, null);
+		Arrays.fill(buckets, NONE);
+		used = 0;
+		free = NONE;
+		last = 0;
+		size = 0;
+	}
+
+	@Override
+	public void update(PathNode val) {
+		int slot = val.heapPosition;
+		long key = quantize(val.combinedCost);
+		if (Long.compareUnsigned(key, keys[slot]) >= 0)
+			return; // same bucket as before, or a key increase which A* never asks for
+		unlink(slot);
+		push(slot, key);
+	}
+
+	private long quantize(double combinedCost) {
+		// flip the sign bit so that unsigned order matches signed order, GoalInverted and GoalRunAway have negative heuristics
+		long key = (long) (combinedCost * KEYS_PER_TICK) ^ Long.MIN_VALUE;
+		return Long.compareUnsigned(key, last) < 0 ? last : key;
+	}
+
+	private void push(int slot, long key) {
+		keys[slot] = key;
+		int bucket = key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+		bucketOf[slot] = (byte) bucket;
+		int head = buckets[bucket];
+		next[slot] = head;
+		prev[slot] = NONE;
+		if (head != NONE) {
+			prev[head] = slot;
+		}
+		buckets[bucket] = slot;
+	}
+
+	private void unlink(int slot) {
+		int before = prev[slot];
+		int after = next[slot];
+		if (before == NONE) {
+			buckets[bucketOf[slot]] = after;
+		} else {
+			next[before] = after;
+		}
+		if (after != NONE) {
+			prev[after] = before;
+		}
+	}
+
+	private int allocate() {
+		if (free != NONE) {
+			int slot = free;
+			free = next[slot];
+			return slot;
+		}
+		if (used == nodes.length) {
+			int capacity = nodes.length << 1;
+			nodes = Arrays.copyOf(nodes, capacity);
+			keys = Arrays.copyOf(keys, capacity);
+			next = Arrays.copyOf(next, capacity);
+			prev = Arrays.copyOf(prev, capacity);
+			bucketOf = Arrays.copyOf(bucketOf, capacity);
+		}
+		return used++;
+	}
+}
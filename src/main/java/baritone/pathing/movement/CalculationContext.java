@@ -20,6 +20,7 @@ import baritone.utils.ToolSet;
 import baritone.utils.pathing.BetterWorldBorder;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.entity.player.PlayerInventory;
@@ -64,6 +65,11 @@ public class CalculationContext {
 	public final double walkOnWaterOnePenalty;
 	public final BetterWorldBorder worldBorder;
 
+	/**
+	 * Only for contexts made for a search, and only with useFallCache on
+	 */
+	private final FallCache fallCache;
+
 	public CalculationContext(IBaritone baritone) {
 		this(baritone, false);
 	}
@@ -105,6 +111,8 @@ public class CalculationContext {
 		// because if some movements are calculated one way and others are calculated another way,
 		// then you get a wildly inconsistent path that isn't optimal for either scenario.
 		worldBorder = new BetterWorldBorder(world.getWorldBorder());
+		fallCache = forUseOnAnotherThread && Baritone.settings().useFallCache.value ? new FallCache() : null;
+		PassabilityTable.refresh();
 	}
 
 	public double breakCostMultiplierAt(int x, int y, int z, BlockState current) {
@@ -151,6 +159,14 @@ public class CalculationContext {
 		return false;
 	}
 
+	/**
+	 * @return The falls this search has worked out so far, or {@code null} if there's no cache. Always {@code null} on the main thread, which only uses a search's context to recheck the current path, and that should go by the
+	 * world as it is now.
+	 */
+	public FallCache fallCache() {
+		return fallCache != null && !MinecraftClient.getInstance().isOnThread() ? fallCache : null;
+	}
+
 	public double placeBucketCost() {
 		return placeBlockCost; // shrug
 	}
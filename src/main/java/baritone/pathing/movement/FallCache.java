@@ -0,0 +1,108 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.movement;
+
+import java.util.Arrays;
+import baritone.api.utils.BetterBlockPos;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+/**
+ * Where a fall down a column ends up, by the column and the height it's walked off from, so that descending into the same column from each of its neighbors only scans down it once per search.
+ * <p>
+ * What's remembered is everything after walking off the edge: where it lands, whether that's in water or needs the bucket, and the cost, leaving out whatever the particular move has to break first. That only depends on the column and
+ * on the {@link CalculationContext} it was worked out with (maxFallHeightNoWater, maxFallHeightBucket, hasWaterBucket, assumeWalkOnWater), which is why there's one of these per context.
+ */
+public final class FallCache {
+
+	/**
+	 * Not in the cache yet
+	 */
+	public static final int UNKNOWN = -1;
+	/**
+	 * The fall doesn't end anywhere we'd want to be
+	 */
+	public static final int NO_LANDING = 0;
+	public static final int LANDING = 1;
+	public static final int WATER = 2;
+	/**
+	 * Too high to land on without placing water first
+	 */
+	public static final int BUCKET = 3;
+
+	/**
+	 * Stop remembering new columns after this many (about 24 bytes each plus the map), anything past that is scanned every time like normal
+	 */
+	private static final int MAX_COLUMNS = 1 << 20;
+
+	private final Long2IntOpenHashMap index = new Long2IntOpenHashMap();
+
+	private int[] outcomes = new int[1024];
+	private int[] landingY = new int[1024];
+	private double[] costs = new double[1024];
+	private int size;
+
+	private long hits;
+	private long misses;
+
+	FallCache() {
+		index.defaultReturnValue(-1);
+	}
+
+	/**
+	 * @return {@link #UNKNOWN} if this hasn't been worked out yet, otherwise the outcome, with {@code res} filled in unless it's {@link #NO_LANDING}
+	 */
+	public int get(int x, int y, int z, MutableMoveResult res) {
+		int i = index.get(BetterBlockPos.longHash(x, y, z));
+		if (i < 0) {
+			misses++;
+			return UNKNOWN;
+		}
+		hits++;
+		int outcome = outcomes[i];
+		if (outcome != NO_LANDING) {
+			res.x = x;
+			res.y = landingY[i];
+			res.z = z;
+			res.cost = costs[i];
+		}
+		return outcome;
+	}
+
+	/**
+	 * @param res What {@code outcome} filled in, ignored for {@link #NO_LANDING}
+	 */
+	public void put(int x, int y, int z, int outcome, MutableMoveResult res) {
+		if (size >= MAX_COLUMNS)
+			return;
+		if (size == outcomes.length) {
+			outcomes = Arrays.copyOf(outcomes, size << 1);
+			landingY = Arrays.copyOf(landingY, size << 1);
+			costs = Arrays.copyOf(costs, size << 1);
+		}
+		outcomes[size] = outcome;
+		landingY[size] = res.y;
+		costs[size] = res.cost;
+		index.put(BetterBlockPos.longHash(x, y, z), size++);
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -140,14 +140,25 @@ public interface MovementHelper extends ActionCosts, Helper {
 	}
 
 	static boolean avoidBreaking(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+		int remembered = bsi.rememberedFlag(x, y, z, state, BlockStateInterface.AVOID_BREAKING);
+		if (remembered != PassabilityTable.MAYBE)
+			return remembered == PassabilityTable.YES;
 		Block b = state.getBlock();
-		return b == Blocks.ICE // ice becomes water, and water can mess up the path
+		boolean avoid = b == Blocks.ICE // ice becomes water, and water can mess up the path
 				|| b instanceof InfestedBlock // obvious reasons
 				// call context.get directly with x,y,z. no need to make 5 new BlockPos for no reason
 				|| avoidAdjacentBreaking(bsi, x, y + 1, z, true) || avoidAdjacentBreaking(bsi, x + 1, y, z, false) || avoidAdjacentBreaking(bsi, x - 1, y, z, false) || avoidAdjacentBreaking(bsi, x, y, z + 1, false) || avoidAdjacentBreaking(bsi, x, y, z - 1, false);
+		bsi.rememberFlag(x, y, z, state, BlockStateInterface.AVOID_BREAKING, avoid);
+		return avoid;
 	}
 
 	static boolean avoidWalkingInto(BlockState state) {
+		if (Baritone.settings().usePassabilityTable.value)
+			return PassabilityTable.avoidWalkingInto(state);
+		return avoidWalkingIntoState(state);
+	}
+
+	static boolean avoidWalkingIntoState(BlockState state) {
 		Block block = state.getBlock();
 		return !state.getFluidState().isEmpty() || block == Blocks.MAGMA_BLOCK || block == Blocks.CACTUS || block == Blocks.FIRE || block == Blocks.END_PORTAL || block == Blocks.COBWEB || block == Blocks.BUBBLE_COLUMN;
 	}
@@ -172,7 +183,13 @@ public interface MovementHelper extends ActionCosts, Helper {
 	}
 
 	static boolean canWalkOn(BlockStateInterface bsi, int x, int y, int z) {
-		return canWalkOn(bsi, x, y, z, bsi.get0(x, y, z));
+		BlockState state = bsi.get0(x, y, z);
+		if (!bsi.usesSectionCache())
+			return canWalkOn(bsi, x, y, z, state);
+		int known = bsi.canWalkOnState(x, y, z, state);
+		if (known != PassabilityTable.MAYBE)
+			return known == PassabilityTable.YES;
+		return canWalkOnPosition(bsi, x, y, z, state);
 	}
 
 	/**
@@ -186,19 +203,54 @@ public interface MovementHelper extends ActionCosts, Helper {
 	 * @return Whether or not the specified block can be walked on
 	 */
 	static boolean canWalkOn(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+		int known = Baritone.settings().usePassabilityTable.value ? PassabilityTable.canWalkOn(state) : canWalkOnState(state);
+		if (known != PassabilityTable.MAYBE)
+			return known == PassabilityTable.YES;
+		known = bsi.rememberedFlag(x, y, z, state, BlockStateInterface.WALK_ON);
+		if (known != PassabilityTable.MAYBE)
+			return known == PassabilityTable.YES;
+		boolean result = canWalkOnPosition(bsi, x, y, z, state);
+		bsi.rememberFlag(x, y, z, state, BlockStateInterface.WALK_ON, result);
+		return result;
+	}
+
+	/**
+	 * The part of {@link #canWalkOn(BlockStateInterface, int, int, int, BlockState)} that only depends on the block state
+	 *
+	 * @return {@link PassabilityTable#YES}, {@link PassabilityTable#NO}, or {@link PassabilityTable#MAYBE} if it depends on the surroundings
+	 */
+	static int canWalkOnState(BlockState state) {
 		Block block = state.getBlock();
 		if (block instanceof AirBlock || block == Blocks.MAGMA_BLOCK || block == Blocks.BUBBLE_COLUMN)
 			// early return for most common case (air)
 			// plus magma, which is a normal cube but it hurts you
-			return false;
+			return PassabilityTable.NO;
 		if (isBlockNormalCube(state))
-			return true;
+			return PassabilityTable.YES;
 		if (block == Blocks.LADDER || block == Blocks.VINE && Baritone.settings().allowVines.value)
-			return true;
+			return PassabilityTable.YES;
 		if (block == Blocks.FARMLAND || block == Blocks.GRASS_PATH)
-			return true;
+			return PassabilityTable.YES;
 		if (block == Blocks.ENDER_CHEST || block == Blocks.CHEST)
-			return true;
+			return PassabilityTable.YES;
+		if (isWater(state))
+			return PassabilityTable.MAYBE;
+		if (Baritone.settings().assumeWalkOnLava.value && isLava(state))
+			return PassabilityTable.MAYBE;
+		if (block == Blocks.GLASS || block instanceof StainedGlassBlock)
+			return PassabilityTable.YES;
+		if (block instanceof SlabBlock) {
+			if (!Baritone.settings().allowWalkOnBottomSlab.value)
+				return state.get(SlabBlock.TYPE) != SlabType.BOTTOM ? PassabilityTable.YES : PassabilityTable.NO;
+			return PassabilityTable.YES;
+		}
+		return block instanceof StairsBlock ? PassabilityTable.YES : PassabilityTable.NO;
+	}
+
+	/**
+	 * The rest of {@link #canWalkOn(BlockStateInterface, int, int, int, BlockState)} for states where {@link #canWalkOnState(BlockState)} said maybe, water and (with assumeWalkOnLava) lava
+	 */
+	static boolean canWalkOnPosition(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
 		if (isWater(state)) {
 			// since this is called literally millions of times per second, the benefit of not allocating millions of useless "pos.up()"
 			// BlockPos s that we'd just garbage collect immediately is actually noticeable. I don't even think its a decrease in readability
@@ -213,16 +265,8 @@ public interface MovementHelper extends ActionCosts, Helper {
 			// if assumeWalkOnWater is off, we can only walk on water if there is water above it
 			return isWater(upState) ^ Baritone.settings().assumeWalkOnWater.value;
 		}
-		if (Baritone.settings().assumeWalkOnLava.value && isLava(state) && !isFlowing(x, y, z, state, bsi))
-			return true;
-		if (block == Blocks.GLASS || block instanceof StainedGlassBlock)
-			return true;
-		if (block instanceof SlabBlock) {
-			if (!Baritone.settings().allowWalkOnBottomSlab.value)
-				return state.get(SlabBlock.TYPE) != SlabType.BOTTOM;
-			return true;
-		}
-		return block instanceof StairsBlock;
+		// lava, and we're assuming we can walk on it as long as it's still
+		return isLava(state) && !isFlowing(x, y, z, state, bsi);
 	}
 
 	static boolean canWalkOn(IPlayerContext ctx, BetterBlockPos pos) {
@@ -238,22 +282,55 @@ public interface MovementHelper extends ActionCosts, Helper {
 	}
 
 	static boolean canWalkThrough(BlockStateInterface bsi, int x, int y, int z) {
-		return canWalkThrough(bsi, x, y, z, bsi.get0(x, y, z));
+		BlockState state = bsi.get0(x, y, z);
+		if (!bsi.usesSectionCache())
+			return canWalkThrough(bsi, x, y, z, state);
+		int known = bsi.canWalkThroughState(x, y, z, state);
+		if (known != PassabilityTable.MAYBE)
+			return known == PassabilityTable.YES;
+		return canWalkThroughPosition(bsi, x, y, z, state);
 	}
 
 	static boolean canWalkThrough(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+		int known = Baritone.settings().usePassabilityTable.value ? PassabilityTable.canWalkThrough(bsi, x, y, z, state) : canWalkThroughState(bsi, x, y, z, state);
+		if (known != PassabilityTable.MAYBE)
+			return known == PassabilityTable.YES;
+		known = bsi.rememberedFlag(x, y, z, state, BlockStateInterface.WALK_THROUGH);
+		if (known != PassabilityTable.MAYBE)
+			return known == PassabilityTable.YES;
+		boolean result = canWalkThroughPosition(bsi, x, y, z, state);
+		bsi.rememberFlag(x, y, z, state, BlockStateInterface.WALK_THROUGH, result);
+		return result;
+	}
+
+	/**
+	 * The part of {@link #canWalkThrough(BlockStateInterface, int, int, int, BlockState)} that only depends on the block state. The position is only there for canPlaceAtSide, which nothing that gets that far looks at.
+	 *
+	 * @return {@link PassabilityTable#YES}, {@link PassabilityTable#NO}, or {@link PassabilityTable#MAYBE} if it depends on the surroundings
+	 */
+	static int canWalkThroughState(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
 		Block block = state.getBlock();
 		if (block instanceof AirBlock)
-			return true;
+			return PassabilityTable.YES;
 		if (block == Blocks.FIRE || block == Blocks.TRIPWIRE || block == Blocks.COBWEB || block == Blocks.END_PORTAL || block == Blocks.COCOA || block instanceof AbstractSkullBlock || block == Blocks.BUBBLE_COLUMN || block instanceof ShulkerBoxBlock || block instanceof SlabBlock || block instanceof TrapdoorBlock)
-			return false;
+			return PassabilityTable.NO;
 		if (Baritone.settings().blocksToAvoid.value.contains(block))
-			return false;
+			return PassabilityTable.NO;
 		if (block instanceof DoorBlock || block instanceof FenceGateBlock)
 			// Because there's no nice method in vanilla to check if a door is openable or not, we just have to assume
 			// that anything that isn't an iron door isn't openable, ignoring that some doors introduced in mods can't
 			// be opened by just interacting.
-			return block != Blocks.IRON_DOOR;
+			return block != Blocks.IRON_DOOR ? PassabilityTable.YES : PassabilityTable.NO;
+		if (block instanceof CarpetBlock || block instanceof SnowBlock || !state.getFluidState().isEmpty())
+			return PassabilityTable.MAYBE;
+		return state.canPlaceAtSide(bsi.world, bsi.isPassableBlockPos.set(x, y, z), BlockPlacementEnvironment.LAND) ? PassabilityTable.YES : PassabilityTable.NO;
+	}
+
+	/**
+	 * The rest of {@link #canWalkThrough(BlockStateInterface, int, int, int, BlockState)} for states where {@link #canWalkThroughState} said maybe, carpet, snow and fluids
+	 */
+	static boolean canWalkThroughPosition(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+		Block block = state.getBlock();
 		if (block instanceof CarpetBlock)
 			return canWalkOn(bsi, x, y - 1, z);
 		if (block instanceof SnowBlock) {
@@ -0,0 +1,156 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.movement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import baritone.Baritone;
+import baritone.api.Settings;
+import baritone.utils.BlockStateInterface;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+/**
+ * The parts of {@link MovementHelper#canWalkThrough}, {@link MovementHelper#canWalkOn} and {@link MovementHelper#avoidWalkingInto} that only depend on the block state, worked out once per state and kept as bit flags in an array
+ * indexed by the state's raw id.
+ * <p>
+ * Each predicate is {@link #YES}, {@link #NO} or {@link #MAYBE}. Maybe means it depends on the position (snow, carpet, fluids) and the caller has to go the slow way.
+ */
+public final class PassabilityTable {
+
+	public static final int NO = 0;
+	public static final int YES = 1;
+	public static final int MAYBE = 2;
+
+	private static final int WALK_THROUGH_COMPUTED = 1;
+	private static final int WALK_THROUGH_SHIFT = 1; // 2 bits
+	private static final int WALK_ON_COMPUTED = 1 << 3;
+	private static final int WALK_ON_SHIFT = 4; // 2 bits
+	private static final int AVOID_WALKING_INTO_COMPUTED = 1 << 6;
+	private static final int AVOID_WALKING_INTO = 1 << 7;
+
+	/**
+	 * The table for the current settings, only replaced when they change, see {@link #tableFor}
+	 */
+	private static volatile Flags shared = new Flags(snapshot());
+
+	/**
+	 * How many times the settings changed and everything worked out so far had to be thrown away
+	 */
+	private static int invalidations;
+
+	private PassabilityTable() {}
+
+	/**
+	 * Called when a new {@link CalculationContext} is made. Keeps the table as it is unless a setting that goes into it changed since the last call, the same way {@link baritone.utils.ToolSet} shares its strength table.
+	 */
+	public static void refresh() {
+		tableFor(snapshot());
+	}
+
+	private static synchronized Flags tableFor(List<Object> snapshot) {
+		if (!shared.snapshot.equals(snapshot)) {
+			invalidations++;
+			shared = new Flags(snapshot);
+		}
+		return shared;
+	}
+
+	public static synchronized int getInvalidations() {
+		return invalidations;
+	}
+
+	private static List<Object> snapshot() {
+		Settings settings = Baritone.settings();
+		List<Object> values = new ArrayList<>();
+		values.add(new ArrayList<>(settings.blocksToAvoid.value)); // copy, the list is sometimes modified in place
+		values.add(settings.allowVines.value);
+		values.add(settings.allowWalkOnBottomSlab.value);
+		values.add(settings.assumeWalkOnLava.value);
+		return values;
+	}
+
+	public static int canWalkThrough(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+		int id = Block.getRawIdFromState(state);
+		int flags = flags(id);
+		if ((flags & WALK_THROUGH_COMPUTED) == 0) {
+			// the first position this state is seen at stands in for all of them, the state only part doesn't look at it
+			int result = MovementHelper.canWalkThroughState(bsi, x, y, z, state);
+			flags = store(id, WALK_THROUGH_COMPUTED | result << WALK_THROUGH_SHIFT);
+		}
+		return flags >> WALK_THROUGH_SHIFT & 3;
+	}
+
+	public static int canWalkOn(BlockState state) {
+		int id = Block.getRawIdFromState(state);
+		int flags = flags(id);
+		if ((flags & WALK_ON_COMPUTED) == 0) {
+			flags = store(id, WALK_ON_COMPUTED | MovementHelper.canWalkOnState(state) << WALK_ON_SHIFT);
+		}
+		return flags >> WALK_ON_SHIFT & 3;
+	}
+
+	public static boolean avoidWalkingInto(BlockState state) {
+		int id = Block.getRawIdFromState(state);
+		int flags = flags(id);
+		if ((flags & AVOID_WALKING_INTO_COMPUTED) == 0) {
+			flags = store(id, AVOID_WALKING_INTO_COMPUTED | (MovementHelper.avoidWalkingIntoState(state) ? AVOID_WALKING_INTO : 0));
+		}
+		return (flags & AVOID_WALKING_INTO) != 0;
+	}
+
+	private static int flags(int id) {
+		return shared.get(id);
+	}
+
+	private static int store(int id, int bits) {
+		return shared.add(id, bits);
+	}
+
+	/**
+	 * Flags by raw state id, along with the settings they were worked out with
+	 */
+	private static final class Flags {
+
+		final List<Object> snapshot;
+
+		private volatile int[] flags = new int[1 << 14]; // raw ids go up to about 12k in vanilla, this grows if there are more
+
+		Flags(List<Object> snapshot) {
+			this.snapshot = snapshot;
+		}
+
+		int get(int id) {
+			int[] current = flags;
+			return id < current.length ? current[id] : 0;
+		}
+
+		/**
+		 * Racing threads can lose each other's bits here, which only means working them out again later
+		 */
+		int add(int id, int bits) {
+			int[] current = flags;
+			if (id >= current.length) {
+				synchronized (this) {
+					current = flags;
+					if (id >= current.length) {
+						current = Arrays.copyOf(current, Integer.highestOneBit(id) << 1);
+						flags = current;
+					}
+				}
+			}
+			int result = current[id] | bits;
+			current[id] = result;
+			return result;
+		}
+	}
+}
@@ -19,6 +19,7 @@ import baritone.api.utils.BetterBlockPos;
 import baritone.api.utils.Rotation;
 import baritone.api.utils.input.Input;
 import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.FallCache;
 import baritone.pathing.movement.Movement;
 import baritone.pathing.movement.MovementHelper;
 import baritone.pathing.movement.MovementState;
@@ -89,8 +90,27 @@ public class MovementDescend extends Movement {
 			// but if frontBreak is nonzero, we're breaking blocks in front, so don't let anything fall through this column,
 			// and potentially replace the water we're going to fall into
 			return false;
-		if (!MovementHelper.canWalkThrough(context.bsi, destX, y - 2, destZ, below))
+		// everything from here on only depends on the column, not on where we're coming from
+		FallCache cache = context.fallCache();
+		int outcome = cache != null ? cache.get(destX, y, destZ, res) : FallCache.UNKNOWN;
+		if (outcome == FallCache.UNKNOWN) {
+			outcome = fallDownColumn(context, y, destX, destZ, below, res);
+			if (cache != null) {
+				cache.put(destX, y, destZ, outcome, res);
+			}
+		}
+		if (outcome == FallCache.NO_LANDING)
 			return false;
+		res.cost += frontBreak;
+		return outcome == FallCache.BUCKET;
+	}
+
+	/**
+	 * @return What {@link FallCache} calls the outcome of walking off into this column at this height, with res filled in (without the cost of breaking anything first) unless it's {@link FallCache#NO_LANDING}
+	 */
+	private static int fallDownColumn(CalculationContext context, int y, int destX, int destZ, BlockState below, MutableMoveResult res) {
+		if (!MovementHelper.canWalkThrough(context.bsi, destX, y - 2, destZ, below))
+			return FallCache.NO_LANDING;
 		double costSoFar = 0;
 		int effectiveStartHeight = y;
 		for (int fallHeight = 3; true; fallHeight++) {
@@ -98,26 +118,26 @@ public class MovementDescend extends Movement {
 			if (newY < 0)
 				// when pathing in the end, where you could plausibly fall into the void
 				// this check prevents it from getting the block at y=-1 and crashing
-				return false;
+				return FallCache.NO_LANDING;
 			BlockState ontoBlock = context.get(destX, newY, destZ);
 			int unprotectedFallHeight = fallHeight - (y - effectiveStartHeight); // equal to fallHeight - y + effectiveFallHeight, which is equal to -newY + effectiveFallHeight, which is equal to effectiveFallHeight - newY
-			double tentativeCost = WALK_OFF_BLOCK_COST + FALL_N_BLOCKS_COST[unprotectedFallHeight] + frontBreak + costSoFar;
+			double tentativeCost = WALK_OFF_BLOCK_COST + FALL_N_BLOCKS_COST[unprotectedFallHeight] + costSoFar;
 			if (MovementHelper.isWater(ontoBlock)) {
 				if (!MovementHelper.canWalkThrough(context.bsi, destX, newY, destZ, ontoBlock))
-					return false;
+					return FallCache.NO_LANDING;
 				if (context.assumeWalkOnWater)
-					return false; // TODO fix
+					return FallCache.NO_LANDING; // TODO fix
 				if (MovementHelper.isFlowing(destX, newY, destZ, ontoBlock, context.bsi))
-					return false; // TODO flowing check required here?
+					return FallCache.NO_LANDING; // TODO flowing check required here?
 				if (!MovementHelper.canWalkOn(context.bsi, destX, newY - 1, destZ))
 					// we could punch right through the water into something else
-					return false;
+					return FallCache.NO_LANDING;
 				// found a fall into water
 				res.x = destX;
 				res.y = newY;
 				res.z = destZ;
 				res.cost = tentativeCost;// TODO incorporate water swim up cost?
-				return false;
+				return FallCache.WATER;
 			}
 			if (unprotectedFallHeight <= 11 && (ontoBlock.getBlock() == Blocks.VINE || ontoBlock.getBlock() == Blocks.LADDER)) {
 				// if fall height is greater than or equal to 11, we don't actually grab on to vines or ladders. the more you know
@@ -131,25 +151,25 @@ public class MovementDescend extends Movement {
 				continue;
 			}
 			if (!MovementHelper.canWalkOn(context.bsi, destX, newY, destZ, ontoBlock))
-				return false;
+				return FallCache.NO_LANDING;
 			if (MovementHelper.isBottomSlab(ontoBlock))
-				return false; // falling onto a half slab is really glitchy, and can cause more fall damage than we'd expect
+				return FallCache.NO_LANDING; // falling onto a half slab is really glitchy, and can cause more fall damage than we'd expect
 			if (unprotectedFallHeight <= context.maxFallHeightNoWater + 1) {
 				// fallHeight = 4 means onto.up() is 3 blocks down, which is the max
 				res.x = destX;
 				res.y = newY + 1;
 				res.z = destZ;
 				res.cost = tentativeCost;
-				return false;
+				return FallCache.LANDING;
 			}
 			if (context.hasWaterBucket && unprotectedFallHeight <= context.maxFallHeightBucket + 1) {
 				res.x = destX;
 				res.y = newY + 1;// this is the block we're falling onto, so dest is +1
 				res.z = destZ;
 				res.cost = tentativeCost + context.placeBucketCost();
-				return true;
+				return FallCache.BUCKET;
 			} else
-				return false;
+				return FallCache.NO_LANDING;
 		}
 	}
 
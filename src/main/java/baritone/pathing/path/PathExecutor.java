@@ -149,6 +149,47 @@ public class PathExecutor implements IPathExecutor, Helper {
 		failed = true;
 	}
 
+	/**
+	 * Tells the incremental search which blocks to look at again next time, see {@link baritone.pathing.calc.DStarLiteTree}
+	 *
+	 * @param positions Any other positions to include, added to
+	 */
+	private void reportChanged(Movement movement, BlockStateInterface bsi, Set<BlockPos> positions) {
+		if (!reportingChanges())
+			return;
+		positions.add(movement.getSrc());
+		positions.add(movement.getDest());
+		positions.add(movement.getDest().down()); // the floor being broken out from under it
+		positions.addAll(movement.toBreak(bsi));
+		positions.addAll(movement.toPlace(bsi));
+		positions.addAll(movement.toWalkInto(bsi));
+		behavior.secretInternalGetIncrementalTree().blocksChanged(positions);
+		behavior.secretInternalGetCostToGoCache().blocksChanged(positions);
+	}
+
+	/**
+	 * @return Whether anything listens to {@link #reportChanged}, if not there's no point working out what changed
+	 */
+	private static boolean reportingChanges() {
+		return Baritone.settings().incrementalReplanning.value || Baritone.settings().learnCostToGo.value;
+	}
+
+	/**
+	 * Adds whatever is in only one of {@code before} and {@code after} to {@code into}
+	 */
+	private static void addDifference(Set<BlockPos> into, List<BlockPos> before, List<BlockPos> after) {
+		for (BlockPos pos : before) {
+			if (!after.contains(pos)) {
+				into.add(pos);
+			}
+		}
+		for (BlockPos pos : after) {
+			if (!before.contains(pos)) {
+				into.add(pos);
+			}
+		}
+	}
+
 	private void clearKeys() {
 		// i'm just sick and tired of this snippet being everywhere lol
 		behavior.baritone.getInputOverrideHandler().clearAllKeys();
@@ -274,6 +315,12 @@ public class PathExecutor implements IPathExecutor, Helper {
 		}
 		//long start = System.nanoTime() / 1000000L;
 		BlockStateInterface bsi = new BlockStateInterface(ctx);
+		// what the current movement breaks and places changes because the bot is doing it, which isn't news to the incremental search
+		HashSet<BlockPos> ownChanges = null;
+		if (reportingChanges()) {
+			ownChanges = new HashSet<>(movement.toBreak(bsi));
+			ownChanges.addAll(movement.toPlace(bsi));
+		}
 		for (int i = pathPosition - 10; i < pathPosition + 10; i++) {
 			if (i < 0 || i >= path.movements().size()) {
 				continue;
@@ -283,14 +330,28 @@ public class PathExecutor implements IPathExecutor, Helper {
 			List<BlockPos> prevPlace = m.toPlace(bsi);
 			List<BlockPos> prevWalkInto = m.toWalkInto(bsi);
 			m.resetBlockCache();
+			boolean changed = false;
 			if (!prevBreak.equals(m.toBreak(bsi))) {
 				recalcBP = true;
+				changed = true;
 			}
 			if (!prevPlace.equals(m.toPlace(bsi))) {
 				recalcBP = true;
+				changed = true;
 			}
 			if (!prevWalkInto.equals(m.toWalkInto(bsi))) {
 				recalcBP = true;
+				changed = true;
+			}
+			if (changed && ownChanges != null) {
+				HashSet<BlockPos> positions = new HashSet<>();
+				addDifference(positions, prevBreak, m.toBreak(bsi));
+				addDifference(positions, prevPlace, m.toPlace(bsi));
+				addDifference(positions, prevWalkInto, m.toWalkInto(bsi));
+				positions.removeAll(ownChanges);
+				if (!positions.isEmpty()) {
+					reportChanged(m, bsi, positions);
+				}
 			}
 		}
 		if (recalcBP) {
@@ -327,6 +388,7 @@ public class PathExecutor implements IPathExecutor, Helper {
 			for (int i = 1; i < Baritone.settings().costVerificationLookahead.value && pathPosition + i < path.length() - 1; i++) {
 				if (((Movement) path.movements().get(pathPosition + i)).calculateCost(behavior.secretInternalGetCalculationContext()) >= ActionCosts.COST_INF && canCancel) {
 					logDebug("Something has changed in the world and a future movement has become impossible. Cancelling.");
+					reportChanged((Movement) path.movements().get(pathPosition + i), bsi, new HashSet<>());
 					cancel();
 					return true;
 				}
@@ -335,6 +397,7 @@ public class PathExecutor implements IPathExecutor, Helper {
 		double currentCost = movement.recalculateCost(behavior.secretInternalGetCalculationContext());
 		if (currentCost >= ActionCosts.COST_INF && canCancel) {
 			logDebug("Something has changed in the world and this movement has become impossible. Cancelling.");
+			reportChanged(movement, bsi, new HashSet<>());
 			cancel();
 			return true;
 		}
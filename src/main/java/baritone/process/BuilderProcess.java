@@ -23,6 +23,7 @@ import baritone.api.pathing.goals.Goal;
 import baritone.api.pathing.goals.GoalBlock;
 import baritone.api.pathing.goals.GoalComposite;
 import baritone.api.pathing.goals.GoalGetToBlock;
+import baritone.api.pathing.goals.GoalIndex;
 import baritone.api.process.IBuilderProcess;
 import baritone.api.process.PathingCommand;
 import baritone.api.process.PathingCommandType;
@@ -161,7 +162,7 @@ public final class BuilderProcess extends BaritoneProcessHelper implements IBuil
 		}
 	}
 
-	public static class GoalAdjacent extends GoalGetToBlock {
+	public static class GoalAdjacent extends GoalGetToBlock implements GoalIndex.Indexable {
 
 		private boolean allowSameLevel;
 		private BlockPos no;
@@ -192,7 +193,7 @@ public final class BuilderProcess extends BaritoneProcessHelper implements IBuil
 		}
 	}
 
-	public static class GoalBreak extends GoalGetToBlock {
+	public static class GoalBreak extends GoalGetToBlock implements GoalIndex.Indexable {
 
 		public GoalBreak(BlockPos pos) {
 			super(pos);
@@ -210,7 +211,7 @@ public final class BuilderProcess extends BaritoneProcessHelper implements IBuil
 		}
 	}
 
-	public static class GoalPlace extends GoalBlock {
+	public static class GoalPlace extends GoalBlock implements GoalIndex.Indexable {
 
 		public GoalPlace(BlockPos placeAt) {
 			super(placeAt.up());
@@ -26,6 +26,7 @@ import baritone.Baritone;
 import baritone.api.pathing.goals.Goal;
 import baritone.api.pathing.goals.GoalBlock;
 import baritone.api.pathing.goals.GoalComposite;
+import baritone.api.pathing.goals.GoalIndex;
 import baritone.api.pathing.goals.GoalRunAway;
 import baritone.api.pathing.goals.GoalTwoBlocks;
 import baritone.api.process.IMineProcess;
@@ -68,7 +69,7 @@ import net.wurstclient.WurstClient;
  */
 public final class MineProcess extends BaritoneProcessHelper implements IMineProcess {
 
-	private static class GoalThreeBlocks extends GoalTwoBlocks {
+	private static class GoalThreeBlocks extends GoalTwoBlocks implements GoalIndex.Indexable {
 
 		public GoalThreeBlocks(BlockPos pos) {
 			super(pos);
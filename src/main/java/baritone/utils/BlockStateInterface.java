@@ -14,6 +14,7 @@ import baritone.Baritone;
 import baritone.api.utils.IPlayerContext;
 import baritone.cache.CachedRegion;
 import baritone.cache.WorldData;
+import baritone.pathing.movement.PassabilityTable;
 import baritone.utils.accessor.IClientChunkProvider;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
@@ -36,6 +37,13 @@ public class BlockStateInterface {
 
 	private static final BlockState AIR = Blocks.AIR.getDefaultState();
 
+	/**
+	 * Flags remembered per block around the node being expanded, see {@link #rememberedFlag}
+	 */
+	public static final int WALK_THROUGH = 0;
+	public static final int WALK_ON = 1;
+	public static final int AVOID_BREAKING = 2;
+
 	public static BlockState get(IPlayerContext ctx, BlockPos pos) {
 		return new BlockStateInterface(ctx).get0(pos.getX(), pos.getY(), pos.getZ()); // immense iq
 		// can't just do world().get because that doesn't work for out of bounds
@@ -65,8 +73,29 @@ public class BlockStateInterface {
 
 	private CachedRegion prevCached = null;
 
+	/**
+	 * Lookups in {@link #prevCached} since it was last touched, see {@link CachedRegion#touch()}
+	 */
+	private int untouchedLookups;
+
 	private final boolean useTheRealWorld;
 
+	/**
+	 * Copies of the loaded sections this has looked at, only for the thread safe copy a search gets, {@code null} otherwise
+	 */
+	private final SectionCache sections;
+
+	/**
+	 * The blocks around the node being expanded, only for the thread safe copy a search gets, {@code null} otherwise
+	 */
+	private final Neighborhood neighborhood;
+
+	/**
+	 * Calls to {@link #get0(int, int, int)}, and how many of those actually had to go to the world
+	 */
+	private long lookups;
+	private long reads;
+
 	public BlockStateInterface(IPlayerContext ctx) {
 		this(ctx, false);
 	}
@@ -84,6 +113,8 @@ public class BlockStateInterface {
 			provider = (ClientChunkManager) world.getChunkManager();
 		}
 		useTheRealWorld = !Baritone.settings().pathThroughCachedOnly.value;
+		sections = copyLoadedChunks && Baritone.settings().useSectionCache.value && Baritone.settings().usePassabilityTable.value ? new SectionCache() : null;
+		neighborhood = copyLoadedChunks && Baritone.settings().useNeighborhoodCache.value ? new Neighborhood() : null;
 		if (!MinecraftClient.getInstance().isOnThread())
 			throw new IllegalStateException();
 		isPassableBlockPos = new BlockPos.Mutable();
@@ -94,6 +125,23 @@ public class BlockStateInterface {
 	}
 
 	public BlockState get0(int x, int y, int z) { // Mickey resigned
+		lookups++;
+		if (neighborhood != null) {
+			int slot = neighborhood.slot(x, y, z);
+			if (slot >= 0) {
+				BlockState state = neighborhood.get(slot);
+				if (state == null) {
+					state = read(x, y, z);
+					neighborhood.put(slot, state);
+				}
+				return state;
+			}
+		}
+		return read(x, y, z);
+	}
+
+	private BlockState read(int x, int y, int z) {
+		reads++;
 
 		// Invalid vertical position
 		if (y < 0 || y >= 256)
@@ -108,17 +156,17 @@ public class BlockStateInterface {
 			// which is a Long2ObjectOpenHashMap.get
 			// see issue #113
 			if (cached != null && cached.getPos().x == x >> 4 && cached.getPos().z == z >> 4)
-				return getFromChunk(cached, x, y, z);
+				return getFromLoadedChunk(cached, x, y, z);
 			WorldChunk chunk = provider.getChunk(x >> 4, z >> 4, ChunkStatus.FULL, false);
 			if (chunk != null && !chunk.isEmpty()) {
 				prev = chunk;
-				return getFromChunk(chunk, x, y, z);
+				return getFromLoadedChunk(chunk, x, y, z);
 			}
 		}
 		// same idea here, skip the Long2ObjectOpenHashMap.get if at all possible
 		// except here, it's 512x512 tiles instead of 16x16, so even better repetition
 		CachedRegion cached = prevCached;
-		if (cached == null || cached.getX() != x >> 9 || cached.getZ() != z >> 9) {
+		if (cached == null || cached.getX() != x >> 9 || cached.getZ() != z >> 9 || cached.isReleased()) {
 			if (worldData == null)
 				return AIR;
 			CachedRegion region = worldData.cache.getRegion(x >> 9, z >> 9);
@@ -126,6 +174,12 @@ public class BlockStateInterface {
 				return AIR;
 			prevCached = region;
 			cached = region;
+			region.touch();
+			untouchedLookups = 0;
+		} else if (++untouchedLookups >= 4096) {
+			// now and then, so that a search that stays in this region the whole time doesn't make it look unused, without reading the clock every lookup
+			cached.touch();
+			untouchedLookups = 0;
 		}
 		BlockState type = cached.getBlock(x & 511, y, z & 511);
 		if (type == null)
@@ -133,6 +187,104 @@ public class BlockStateInterface {
 		return type;
 	}
 
+	private BlockState getFromLoadedChunk(WorldChunk chunk, int x, int y, int z) {
+		if (sections != null) {
+			SectionCache.Section section = sections.get(chunk, x, y, z);
+			if (section != null)
+				return section.getState(x, y, z, AIR);
+		}
+		return getFromChunk(chunk, x, y, z);
+	}
+
+	public boolean usesSectionCache() {
+		return sections != null;
+	}
+
+	/**
+	 * Called by searches before trying the moves out of a node, so that they share the lookups of the blocks around it. Does nothing unless useNeighborhoodCache is on.
+	 */
+	public void centerNeighborhood(int x, int y, int z) {
+		if (neighborhood != null) {
+			neighborhood.center(x, y, z);
+		}
+	}
+
+	/**
+	 * @param state The state at this position, as just returned by {@link #get0(int, int, int)}
+	 * @param flag  {@link #WALK_THROUGH}, {@link #WALK_ON} or {@link #AVOID_BREAKING}
+	 * @return {@link PassabilityTable#YES} or {@link PassabilityTable#NO} if this was already worked out for this block while expanding the current node, {@link PassabilityTable#MAYBE} if the caller has to work it out
+	 */
+	public int rememberedFlag(int x, int y, int z, BlockState state, int flag) {
+		if (neighborhood == null)
+			return PassabilityTable.MAYBE;
+		int slot = neighborhood.slot(x, y, z);
+		if (slot < 0 || neighborhood.get(slot) != state)
+			return PassabilityTable.MAYBE;
+		return neighborhood.flag(slot, flag);
+	}
+
+	/**
+	 * Remember what the caller of {@link #rememberedFlag} worked out, for the rest of the moves out of the current node
+	 */
+	public void rememberFlag(int x, int y, int z, BlockState state, int flag, boolean value) {
+		if (neighborhood == null)
+			return;
+		int slot = neighborhood.slot(x, y, z);
+		if (slot >= 0 && neighborhood.get(slot) == state) {
+			neighborhood.setFlag(slot, flag, value);
+		}
+	}
+
+	/**
+	 * @return How many times {@link #get0(int, int, int)} has been called
+	 */
+	public long getLookups() {
+		return lookups;
+	}
+
+	/**
+	 * @return How many of those weren't answered by the neighborhood around the current node
+	 */
+	public long getReads() {
+		return reads;
+	}
+
+	/**
+	 * {@link PassabilityTable#canWalkThrough} for the block at this position, remembered per position if it's in a cached section
+	 *
+	 * @param state The state at this position, as just returned by {@link #get0(int, int, int)}
+	 */
+	public int canWalkThroughState(int x, int y, int z, BlockState state) {
+		SectionCache.Section section = sectionOf(x, y, z);
+		if (section != null)
+			return section.canWalkThrough(this, x, y, z, state);
+		return PassabilityTable.canWalkThrough(this, x, y, z, state);
+	}
+
+	/**
+	 * {@link PassabilityTable#canWalkOn} for the block at this position, remembered per position if it's in a cached section
+	 *
+	 * @param state The state at this position, as just returned by {@link #get0(int, int, int)}
+	 */
+	public int canWalkOnState(int x, int y, int z, BlockState state) {
+		SectionCache.Section section = sectionOf(x, y, z);
+		if (section != null)
+			return section.canWalkOn(x, y, z, state);
+		return PassabilityTable.canWalkOn(state);
+	}
+
+	/**
+	 * @return The section that the last {@link #get0(int, int, int)} read from, if that was this position's section
+	 */
+	private SectionCache.Section sectionOf(int x, int y, int z) {
+		if (sections == null)
+			return null;
+		SectionCache.Section section = sections.lastSection();
+		if (section != null && section.x == x >> 4 && section.y == y >> 4 && section.z == z >> 4)
+			return section;
+		return null;
+	}
+
 	public boolean isLoaded(int x, int z) {
 		WorldChunk prevChunk = prev;
 		if (prevChunk != null && prevChunk.getPos().x == x >> 4 && prevChunk.getPos().z == z >> 4)
@@ -143,13 +295,16 @@ public class BlockStateInterface {
 			return true;
 		}
 		CachedRegion prevRegion = prevCached;
-		if (prevRegion != null && prevRegion.getX() == x >> 9 && prevRegion.getZ() == z >> 9)
+		if (prevRegion != null && prevRegion.getX() == x >> 9 && prevRegion.getZ() == z >> 9 && !prevRegion.isReleased()) {
+			prevRegion.touch();
 			return prevRegion.isCached(x & 511, z & 511);
+		}
 		if (worldData == null)
 			return false;
 		prevRegion = worldData.cache.getRegion(x >> 9, z >> 9);
 		if (prevRegion == null)
 			return false;
+		prevRegion.touch();
 		prevCached = prevRegion;
 		return prevRegion.isCached(x & 511, z & 511);
 	}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils;
+
+import java.util.Arrays;
+import baritone.pathing.movement.PassabilityTable;
+import net.minecraft.block.BlockState;
+
+/**
+ * The blocks around the node a search is expanding, so that every move out of it shares one lookup per block instead of each move getting the same blocks again. Each block also gets a byte of flags (walk through, walk on,
+ * avoid breaking), 2 bits each for whether it's been worked out and what it is, filled in the first time a move asks. Only the parts that depend on the surroundings are remembered like this, the parts that only depend on the
+ * state are already in {@link PassabilityTable}.
+ * <p>
+ * Reaches 5 out on X and Z (parkour goes 4 out, then checks one past that) and 3 up and down, anything further just goes to the world. Everything is thrown out when the search moves on to the next node, which is just bumping a
+ * counter.
+ * <p>
+ * Owned by one {@link BlockStateInterface}. Only answers on the thread that last centered it, since the search's context also gets used from the main thread to recalculate costs along the current path.
+ */
+final class Neighborhood {
+
+	private static final int REACH = 5;
+	private static final int BELOW = 3;
+	private static final int ABOVE = 3;
+
+	private static final int SIZE_XZ = 2 * REACH + 1;
+	private static final int SIZE_Y = BELOW + ABOVE + 1;
+
+	private final BlockState[] states = new BlockState[SIZE_XZ * SIZE_XZ * SIZE_Y];
+
+	/**
+	 * Per block, for each flag, whether it's known (the low bit) and its value (the high bit)
+	 */
+	private final byte[] flags = new byte[states.length];
+
+	/**
+	 * Which node each block was filled in for, anything not matching {@link #stamp} is left over from an earlier node
+	 */
+	private final int[] stamps = new int[states.length];
+
+	private int stamp;
+
+	private int centerX;
+	private int centerY;
+	private int centerZ;
+
+	private Thread owner;
+
+	/**
+	 * Start over around this node
+	 */
+	void center(int x, int y, int z) {
+		Thread current = Thread.currentThread();
+		if (owner == current && x == centerX && y == centerY && z == centerZ)
+			return; // same place, e.g. a lazy edge out of the node that was just expanded
+		if (++stamp == 0) {
+			// wrapped around, the old stamps could match again
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+		centerX = x;
+		centerY = y;
+		centerZ = z;
+		owner = current;
+	}
+
+	/**
+	 * @return Where this position is in the arrays, or -1 if it's outside (or this isn't the thread using it)
+	 */
+	int slot(int x, int y, int z) {
+		int dx = x - centerX + REACH;
+		int dy = y - centerY + BELOW;
+		int dz = z - centerZ + REACH;
+		if (dx < 0 || dx >= SIZE_XZ || dy < 0 || dy >= SIZE_Y || dz < 0 || dz >= SIZE_XZ || owner != Thread.currentThread())
+			return -1;
+		return (dy * SIZE_XZ + dz) * SIZE_XZ + dx;
+	}
+
+	/**
+	 * @return The state at this slot, or {@code null} if it hasn't been looked up for this node yet
+	 */
+	BlockState get(int slot) {
+		return stamps[slot] == stamp ? states[slot] : null;
+	}
+
+	void put(int slot, BlockState state) {
+		states[slot] = state;
+		stamps[slot] = stamp;
+		flags[slot] = 0;
+	}
+
+	/**
+	 * @return {@link PassabilityTable#YES} or {@link PassabilityTable#NO} if this flag has been worked out for this node, {@link PassabilityTable#MAYBE} if not
+	 */
+	int flag(int slot, int flag) {
+		int bits = flags[slot] >> (flag << 1) & 3;
+		return bits == 0 ? PassabilityTable.MAYBE : bits == 3 ? PassabilityTable.YES : PassabilityTable.NO;
+	}
+
+	void setFlag(int slot, int flag, boolean value) {
+		flags[slot] |= known(flag, value);
+	}
+
+	private static int known(int flag, boolean value) {
+		return (value ? 3 : 1) << (flag << 1);
+	}
+}
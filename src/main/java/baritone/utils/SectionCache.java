@@ -0,0 +1,130 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils;
+
+import baritone.pathing.movement.PassabilityTable;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * Every 16x16x16 section a search touches, copied out of its chunk into a plain array the first time, plus a byte per block remembering the state only passability answers from {@link PassabilityTable} for that position.
+ * <p>
+ * Owned by one {@link BlockStateInterface} and only ever used from the thread that owns that, so nothing here is synchronized. Being a copy, it also means a search sees each section as it was when it first looked at it.
+ */
+final class SectionCache {
+
+	/**
+	 * Stop copying new sections after this many (about 20KiB each), anything past it is read from the chunk like normal
+	 */
+	private static final int MAX_SECTIONS = 2048;
+
+	private static final int WALK_THROUGH_SHIFT = 0;
+	private static final int WALK_ON_SHIFT = 2;
+
+	private final Long2ObjectOpenHashMap<Section> sections = new Long2ObjectOpenHashMap<>();
+
+	/**
+	 * Same trick as {@link BlockStateInterface#get0(int, int, int)} does with the previous chunk, most lookups are in the same section as the one before
+	 */
+	private Section prev;
+
+	/**
+	 * @return The section containing this position, copying it out of the chunk if needed, or {@code null} if the cache is full
+	 */
+	Section get(WorldChunk chunk, int x, int y, int z) {
+		int sectionX = x >> 4;
+		int sectionY = y >> 4;
+		int sectionZ = z >> 4;
+		Section section = prev;
+		if (section != null && section.x == sectionX && section.y == sectionY && section.z == sectionZ)
+			return section;
+		long key = (long) sectionX & 0x3FFFFFFL | ((long) sectionZ & 0x3FFFFFFL) << 26 | (long) sectionY << 52;
+		section = sections.get(key);
+		if (section == null) {
+			if (sections.size() >= MAX_SECTIONS)
+				return null;
+			section = new Section(sectionX, sectionY, sectionZ, chunk.getSectionArray()[sectionY]);
+			sections.put(key, section);
+		}
+		prev = section;
+		return section;
+	}
+
+	/**
+	 * @return The section that the last {@link #get(WorldChunk, int, int, int)} returned
+	 */
+	Section lastSection() {
+		return prev;
+	}
+
+	static final class Section {
+
+		final int x;
+		final int y;
+		final int z;
+
+		/**
+		 * Indexed y << 8 | z << 4 | x, {@code null} if the section is empty (all air)
+		 */
+		private final BlockState[] states;
+
+		/**
+		 * Per block, the {@link PassabilityTable} answers plus one (so that 0 means not worked out yet), 2 bits each
+		 */
+		private final byte[] flags = new byte[4096];
+
+		Section(int x, int y, int z, ChunkSection section) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			if (ChunkSection.isEmpty(section)) {
+				states = null;
+				return;
+			}
+			states = new BlockState[4096];
+			for (int i = 0; i < 4096; i++) {
+				states[i] = section.getBlockState(i & 15, i >> 8, i >> 4 & 15);
+			}
+		}
+
+		BlockState getState(int x, int y, int z, BlockState air) {
+			return states == null ? air : states[(y & 15) << 8 | (z & 15) << 4 | x & 15];
+		}
+
+		/**
+		 * @return The canWalkThrough answer for this block, worked out and remembered if needed
+		 */
+		int canWalkThrough(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+			int index = (y & 15) << 8 | (z & 15) << 4 | x & 15;
+			int known = flags[index] >> WALK_THROUGH_SHIFT & 3;
+			if (known != 0)
+				return known - 1;
+			int result = PassabilityTable.canWalkThrough(bsi, x, y, z, state);
+			flags[index] |= (result + 1) << WALK_THROUGH_SHIFT;
+			return result;
+		}
+
+		/**
+		 * @return The canWalkOn answer for this block, worked out and remembered if needed
+		 */
+		int canWalkOn(int x, int y, int z, BlockState state) {
+			int index = (y & 15) << 8 | (z & 15) << 4 | x & 15;
+			int known = flags[index] >> WALK_ON_SHIFT & 3;
+			if (known != 0)
+				return known - 1;
+			int result = PassabilityTable.canWalkOn(state);
+			flags[index] |= (result + 1) << WALK_ON_SHIFT;
+			return result;
+		}
+	}
+}
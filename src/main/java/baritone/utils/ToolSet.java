@@ -10,9 +10,9 @@
 
 package baritone.utils;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import baritone.Baritone;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
@@ -58,28 +58,61 @@ public class ToolSet {
 	}
 
 	/**
-	 * A cache mapping a {@link Block} to how long it will take to break with this toolset, given the optimum tool is used.
+	 * The table handed to the last ToolSet that was made, reused by the next one if nothing that goes into it changed
 	 */
-	private final Map<Block, Double> breakStrengthCache;
+	private static StrengthTable shared;
 
 	/**
-	 * My buddy leijurv owned me so we have this to not create a new lambda instance.
+	 * How many times the hotbar (or anything else that goes into the table) changed and a fresh one had to be started
 	 */
-	private final Function<Block, Double> backendCalculation;
+	private static int invalidations;
+
+	/**
+	 * How fast each block state can be broken with this toolset, given the optimum tool is used, by raw state id
+	 */
+	private final StrengthTable table;
+
+	private final double amplifier;
 
 	private final ClientPlayerEntity player;
 
+	private long hits;
+	private long misses;
+
 	public ToolSet(ClientPlayerEntity player) {
-		breakStrengthCache = new HashMap<>();
 		this.player = player;
+		amplifier = Baritone.settings().considerPotionEffects.value ? potionAmplifier() : 1;
+		table = tableFor(snapshot());
+	}
 
-		if (Baritone.settings().considerPotionEffects.value) {
-			double amplifier = potionAmplifier();
-			Function<Double, Double> amplify = x -> amplifier * x;
-			backendCalculation = amplify.compose(this::getBestDestructionTime);
-		} else {
-			backendCalculation = this::getBestDestructionTime;
+	/**
+	 * Everything that the strength against a block depends on. Not the durability of the tools, which would change with every block broken.
+	 */
+	private List<Object> snapshot() {
+		List<Object> values = new ArrayList<>();
+		for (int i = 0; i < 9; i++) {
+			ItemStack stack = player.inventory.getInvStack(i);
+			values.add(stack.getItem());
+			values.add(EnchantmentHelper.getEnchantments(stack));
 		}
+		values.add(Baritone.settings().autoTool.value ? -1 : player.inventory.selectedSlot);
+		values.add(amplifier);
+		values.add(new ArrayList<>(Baritone.settings().blocksToAvoidBreaking.value)); // copy, the list is sometimes modified in place
+		return values;
+	}
+
+	private static synchronized StrengthTable tableFor(List<Object> snapshot) {
+		if (shared == null || !shared.snapshot.equals(snapshot)) {
+			if (shared != null) {
+				invalidations++;
+			}
+			shared = new StrengthTable(snapshot);
+		}
+		return shared;
+	}
+
+	public static synchronized int getInvalidations() {
+		return invalidations;
 	}
 
 	private double avoidanceMultiplier(Block b) {
@@ -89,12 +122,12 @@ public class ToolSet {
 	/**
 	 * Calculate how effectively a block can be destroyed
 	 *
-	 * @param b the blockstate to be mined
+	 * @param state the blockstate to be mined
 	 * @return A double containing the destruction ticks with the best tool
 	 */
-	private double getBestDestructionTime(Block b) {
-		ItemStack stack = player.inventory.getInvStack(getBestSlot(b, false));
-		return calculateSpeedVsBlock(stack, b.getDefaultState()) * avoidanceMultiplier(b);
+	private double getBestDestructionTime(BlockState state) {
+		ItemStack stack = player.inventory.getInvStack(getBestSlot(state, false));
+		return amplifier * (calculateSpeedVsBlock(stack, state) * avoidanceMultiplier(state.getBlock()));
 	}
 
 	/**
@@ -104,11 +137,14 @@ public class ToolSet {
 	 * @return An int containing the index in the tools array that worked best
 	 */
 	public int getBestSlot(Block b, boolean preferSilkTouch) {
+		return getBestSlot(b.getDefaultState(), preferSilkTouch);
+	}
+
+	private int getBestSlot(BlockState blockState, boolean preferSilkTouch) {
 		int best = 0;
 		double highestSpeed = Double.NEGATIVE_INFINITY;
 		int lowestCost = Integer.MIN_VALUE;
 		boolean bestSilkTouch = false;
-		BlockState blockState = b.getDefaultState();
 		for (int i = 0; i < 9; i++) {
 			ItemStack itemStack = player.inventory.getInvStack(i);
 			double speed = calculateSpeedVsBlock(itemStack, blockState);
@@ -148,7 +184,27 @@ public class ToolSet {
 	 * @return the speed of how fast we'll mine it. 1/(time in ticks)
 	 */
 	public double getStrVsBlock(BlockState state) {
-		return breakStrengthCache.computeIfAbsent(state.getBlock(), backendCalculation);
+		int id = Block.getRawIdFromState(state);
+		double strength = table.get(id);
+		if (!Double.isNaN(strength)) {
+			hits++;
+			return strength;
+		}
+		misses++;
+		strength = getBestDestructionTime(state);
+		table.put(id, strength);
+		return strength;
+	}
+
+	/**
+	 * @return How many {@link #getStrVsBlock} calls were answered by the table
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
 	}
 
 	public boolean hasSilkTouch(ItemStack stack) {
@@ -183,4 +239,44 @@ public class ToolSet {
 		}
 		return speed;
 	}
+
+	/**
+	 * Strengths by raw state id, NaN where it hasn't been worked out yet. Shared between the ToolSets of searches running at the same time, which can race each other filling it in, but they'd only ever write the same value.
+	 */
+	private static final class StrengthTable {
+
+		final List<Object> snapshot;
+
+		private volatile double[] strengths = newArray(1 << 14); // raw ids go up to about 12k in vanilla, this grows if there are more
+
+		StrengthTable(List<Object> snapshot) {
+			this.snapshot = snapshot;
+		}
+
+		double get(int id) {
+			double[] current = strengths;
+			return id < current.length ? current[id] : Double.NaN;
+		}
+
+		void put(int id, double strength) {
+			double[] current = strengths;
+			if (id >= current.length) {
+				synchronized (this) {
+					current = strengths;
+					if (id >= current.length) {
+						double[] grown = newArray(Integer.highestOneBit(id) << 1);
+						System.arraycopy(current, 0, grown, 0, current.length);
+						strengths = current = grown;
+					}
+				}
+			}
+			current[id] = strength;
+		}
+
+		private static double[] newArray(int length) {
+			double[] array = new double[length];
+			Arrays.fill(array, Double.NaN);
+			return array;
+		}
+	}
 }
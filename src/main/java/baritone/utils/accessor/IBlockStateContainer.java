@@ -17,4 +17,9 @@ public interface IBlockStateContainer {
 	BlockState getAtPalette(int index);
 
 	int[] storageArray();
+
+	/**
+	 * @return The packed storage itself, not a copy, so don't modify it
+	 */
+	long[] storageWords();
 }
@@ -24,12 +24,22 @@ public enum PathingBlockType {
 
 	private final boolean[] bits;
 
+	private final long wordBits;
+
 	PathingBlockType(int bits) {
 		this.bits = new boolean[] { (bits & 0b10) != 0, (bits & 0b01) != 0
 		};
+		this.wordBits = (this.bits[0] ? 1 : 0) | (this.bits[1] ? 2 : 0);
 	}
 
 	public final boolean[] getBits() {
 		return bits;
 	}
+
+	/**
+	 * @return The two bits the way they sit in a word of {@link java.util.BitSet#toLongArray()}, the first one lowest. Shift left by the index into the bit set to place them.
+	 */
+	public final long getWordBits() {
+		return wordBits;
+	}
 }
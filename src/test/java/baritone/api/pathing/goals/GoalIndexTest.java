@@ -0,0 +1,172 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.api.pathing.goals;
+
+import static org.junit.Assert.assertEquals;
+import java.util.Random;
+import net.minecraft.util.math.BlockPos;
+import org.junit.Test;
+
+public class GoalIndexTest {
+
+	/**
+	 * The settings can't be loaded outside of the game, so the goals here use this instead of {@link baritone.api.Settings#costHeuristic}
+	 */
+	private static final double COST_HEURISTIC = 3.563;
+
+	@Test
+	public void sameResultsAsCheckingEveryGoal() {
+		for (int size : new int[] { 1, 10, 100, 1000 }) {
+			Random random = new Random(size);
+			Goal[] goals = new Goal[size];
+			BlockPos[] positions = new BlockPos[size];
+			for (int i = 0; i < size; i++) {
+				positions[i] = new BlockPos(random.nextInt(257) - 128, 5 + random.nextInt(60), random.nextInt(257) - 128);
+				goals[i] = randomGoal(random, positions[i]);
+			}
+			GoalIndex index = new GoalIndex(goals, COST_HEURISTIC);
+			assertEquals(size, index.numIndexed());
+			for (int i = 0; i < 20000; i++) {
+				int x = random.nextInt(385) - 192;
+				int y = random.nextInt(256);
+				int z = random.nextInt(385) - 192;
+				if (i % 4 == 0) {
+					// right next to a goal, so that isInGoal is actually true some of the time
+					BlockPos pos = positions[random.nextInt(size)];
+					x = pos.getX() + random.nextInt(7) - 3;
+					y = pos.getY() + random.nextInt(3) - 1;
+					z = pos.getZ() + random.nextInt(7) - 3;
+				}
+				double heuristic = Double.MAX_VALUE;
+				boolean inGoal = false;
+				for (Goal goal : goals) {
+					heuristic = Math.min(heuristic, goal.heuristic(x, y, z));
+					inGoal |= goal.isInGoal(x, y, z);
+				}
+				String query = size + " goals at " + x + "," + y + "," + z;
+				assertEquals(query, heuristic, index.heuristic(x, y, z), 1e-9);
+				assertEquals(query, inGoal, index.isInGoal(x, y, z));
+			}
+		}
+	}
+
+	@Test
+	public void onlyIndexesSubclassesThatOptIn() {
+		BlockPos pos = new BlockPos(10, 64, 10);
+		Goal[] goals = { new GoalBlock(pos), new GoalGetToBlock(pos), new TestBlock(pos), new GoalBlock(pos) {
+
+			@Override
+			public boolean isInGoal(int x, int y, int z) {
+				return true; // satisfied anywhere, which the index can't know about
+			}
+		} };
+		GoalIndex index = new GoalIndex(goals, COST_HEURISTIC);
+		assertEquals(3, index.numIndexed());
+		assertEquals(true, index.isInGoal(1000, 64, 1000));
+	}
+
+	private static Goal randomGoal(Random random, BlockPos pos) {
+		switch (random.nextInt(5)) {
+			case 0:
+				return new TestBlock(pos);
+			case 1:
+				return new TestTwoBlocks(pos);
+			case 2:
+				return new TestGetToBlock(pos);
+			case 3:
+				return new TestNear(pos, 1 + random.nextInt(5));
+			default:
+				return new TestXZ(pos);
+		}
+	}
+
+	/**
+	 * At least the distance on X and Z, same as the real goals, without needing the settings
+	 */
+	private static double heuristic(BlockPos pos, int x, int y, int z) {
+		return GoalXZ.calculate(x - pos.getX(), z - pos.getZ(), COST_HEURISTIC) + Math.abs(y - pos.getY());
+	}
+
+	private static final class TestBlock extends GoalBlock implements GoalIndex.Indexable {
+
+		final BlockPos pos;
+
+		TestBlock(BlockPos pos) {
+			super(pos);
+			this.pos = pos;
+		}
+
+		@Override
+		public double heuristic(int x, int y, int z) {
+			return GoalIndexTest.heuristic(pos, x, y, z);
+		}
+	}
+
+	private static final class TestTwoBlocks extends GoalTwoBlocks implements GoalIndex.Indexable {
+
+		final BlockPos pos;
+
+		TestTwoBlocks(BlockPos pos) {
+			super(pos);
+			this.pos = pos;
+		}
+
+		@Override
+		public double heuristic(int x, int y, int z) {
+			return GoalIndexTest.heuristic(pos, x, y, z);
+		}
+	}
+
+	private static final class TestGetToBlock extends GoalGetToBlock implements GoalIndex.Indexable {
+
+		final BlockPos pos;
+
+		TestGetToBlock(BlockPos pos) {
+			super(pos);
+			this.pos = pos;
+		}
+
+		@Override
+		public double heuristic(int x, int y, int z) {
+			return GoalIndexTest.heuristic(pos, x, y, z);
+		}
+	}
+
+	private static final class TestNear extends GoalNear implements GoalIndex.Indexable {
+
+		final BlockPos pos;
+
+		TestNear(BlockPos pos, int range) {
+			super(pos, range);
+			this.pos = pos;
+		}
+
+		@Override
+		public double heuristic(int x, int y, int z) {
+			return GoalIndexTest.heuristic(pos, x, y, z);
+		}
+	}
+
+	private static final class TestXZ extends GoalXZ implements GoalIndex.Indexable {
+
+		final BlockPos pos;
+
+		TestXZ(BlockPos pos) {
+			super(pos.getX(), pos.getZ());
+			this.pos = pos;
+		}
+
+		@Override
+		public double heuristic(int x, int y, int z) {
+			return GoalXZ.calculate(x - pos.getX(), z - pos.getZ(), COST_HEURISTIC);
+		}
+	}
+}
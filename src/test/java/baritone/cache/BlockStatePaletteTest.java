@@ -0,0 +1,93 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.minecraft.Bootstrap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.PillarBlock;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.registry.Registry;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BlockStatePaletteTest {
+
+	@BeforeClass
+	public static void bootstrap() {
+		Bootstrap.initialize();
+	}
+
+	@Test
+	public void statesOfTheSameBlockShareANumber() {
+		BlockStatePalette palette = new BlockStatePalette();
+		BlockState sideways = Blocks.OAK_LOG.getDefaultState().with(PillarBlock.AXIS, Direction.Axis.X);
+		int id = palette.idOf(sideways);
+		assertEquals(id, palette.idOf(Blocks.OAK_LOG.getDefaultState()));
+		assertSame(Blocks.OAK_LOG.getDefaultState(), palette.get(id));
+		assertEquals("oak_log", palette.name(id));
+		assertEquals(id + 1, palette.idOf(Blocks.STONE.getDefaultState()));
+		assertFalse(palette.hasDuplicates());
+	}
+
+	@Test
+	public void namesRoundTrip() {
+		List<String> names = Arrays.asList("stone", "not_a_block", "dirt");
+		BlockStatePalette palette = BlockStatePalette.fromNames(names);
+		assertEquals(names, palette.names());
+		assertSame(Blocks.STONE.getDefaultState(), palette.get(0));
+		assertNull(palette.get(1));
+		assertEquals("not_a_block", palette.name(1));
+		assertEquals(2, palette.idOf(Blocks.DIRT.getDefaultState()));
+		assertEquals(3, palette.idOf(Blocks.GRAVEL.getDefaultState()));
+		assertEquals(Arrays.asList("stone", "not_a_block", "dirt", "gravel"), palette.names());
+		assertFalse(palette.hasDuplicates());
+	}
+
+	@Test
+	public void oldPalettesCanHaveDuplicates() {
+		// palettes saved before they were numbered by block had a name per state
+		BlockStatePalette palette = BlockStatePalette.fromNames(Arrays.asList("oak_log", "oak_log", "stone"));
+		assertTrue(palette.hasDuplicates());
+		assertEquals(0, palette.idOf(Blocks.OAK_LOG.getDefaultState()));
+		assertEquals(2, palette.idOf(Blocks.STONE.getDefaultState()));
+	}
+
+	@Test
+	public void growsPastItsInitialCapacity() {
+		BlockStatePalette palette = new BlockStatePalette();
+		List<Block> blocks = new ArrayList<>();
+		for (Block block : Registry.BLOCK) {
+			if (blocks.size() == 200)
+				break;
+			blocks.add(block);
+		}
+		BlockState[] states = new BlockState[blocks.size()];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = blocks.get(i).getDefaultState();
+		}
+		short[] ids = palette.idsOf(states);
+		for (int i = 0; i < states.length; i++) {
+			assertEquals(i, ids[i]);
+			assertSame(states[i], palette.get(i));
+		}
+		assertEquals(states.length, palette.names().size());
+	}
+}
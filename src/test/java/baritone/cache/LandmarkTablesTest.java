@@ -0,0 +1,102 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+
+public class LandmarkTablesTest {
+
+	private static final int RADIUS = LandmarkTables.RADIUS;
+
+	/**
+	 * With no cache every chunk is unknown, which doesn't matter for the lower bounds the tables are built from
+	 */
+	private static ChunkGraph emptyGraph() {
+		return new ChunkGraph(null, true, 3, false);
+	}
+
+	private static LandmarkTables.Table build(int regionX, int regionZ) {
+		int centerX = regionX << 5 | 16;
+		int centerZ = regionZ << 5 | 16;
+		ChunkGraph graph = emptyGraph();
+		return new LandmarkTables.Table(centerX, centerZ, LandmarkTables.dijkstra(graph, centerX, centerZ, false), LandmarkTables.dijkstra(graph, centerX, centerZ, true));
+	}
+
+	@Test
+	public void distancesAreLowerBounds() {
+		LandmarkTables.Table table = build(-3, 5);
+		for (int dx = -RADIUS; dx <= RADIUS; dx += 7) {
+			for (int dz = -RADIUS; dz <= RADIUS; dz += 5) {
+				double expected = (Math.abs(dx) + Math.abs(dz)) * ChunkGraph.CHUNK_COST;
+				int chunkX = table.centerX + dx;
+				int chunkZ = table.centerZ + dz;
+				assertEquals(expected, table.from(chunkX, chunkZ), expected * 1e-5);
+				assertEquals(expected, table.to(chunkX, chunkZ), expected * 1e-5);
+			}
+		}
+		assertEquals(0, table.from(table.centerX, table.centerZ), 0);
+		assertEquals(0, table.to(table.centerX, table.centerZ), 0);
+	}
+
+	@Test
+	public void coversItsRadius() {
+		LandmarkTables.Table table = build(0, -1);
+		assertEquals(16, table.centerX);
+		assertEquals(-16, table.centerZ);
+		assertTrue(table.covers(16 + RADIUS, -16 - RADIUS));
+		assertTrue(table.covers(16 - RADIUS, -16 + RADIUS));
+		assertFalse(table.covers(16 + RADIUS + 1, -16));
+		assertFalse(table.covers(16, -16 - RADIUS - 1));
+	}
+
+	@Test
+	public void savedTablesReadBack() throws IOException {
+		Path directory = Files.createTempDirectory("landmarks");
+		Path file = directory.resolve("landmark.2.-4");
+		try {
+			LandmarkTables.Table table = build(2, -4);
+			LandmarkTables.write(file, table);
+			LandmarkTables.Table read = LandmarkTables.read(file, 2, -4);
+			assertEquals(table.centerX, read.centerX);
+			assertEquals(table.centerZ, read.centerZ);
+			for (int chunkX = table.centerX - RADIUS; chunkX <= table.centerX + RADIUS; chunkX++) {
+				for (int chunkZ = table.centerZ - RADIUS; chunkZ <= table.centerZ + RADIUS; chunkZ++) {
+					assertEquals(table.from(chunkX, chunkZ), read.from(chunkX, chunkZ), 0);
+					assertEquals(table.to(chunkX, chunkZ), read.to(chunkX, chunkZ), 0);
+				}
+			}
+			// a file that ended up under the wrong name
+			assertNull(LandmarkTables.read(file, 2, -3));
+		} finally {
+			Files.deleteIfExists(file);
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void oldFormatIsBuiltAgain() throws IOException {
+		Path file = Files.createTempFile("landmark", null);
+		try {
+			// tables from before they were built from lower bounds had a different magic number
+			Files.write(file, new byte[] { 0x41, 0x4c, 0x54, 0x31, 0, 0, 0, (byte) RADIUS });
+			assertNull(LandmarkTables.read(file, 0, 0));
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class PackedSectionTest {
+
+	private static final long SOLID = 0xFFFFFFFFFFFFFFFFL;
+
+	@Test
+	public void uniformSectionsAreShared() {
+		long[] solid = new long[PackedSection.WORDS * 16];
+		Arrays.fill(solid, SOLID);
+		PackedSection[] sections = PackedSection.split(solid);
+		for (PackedSection section : sections) {
+			assertSame(sections[0], section);
+			assertTrue(section.isUniform());
+		}
+		// a chunk of nothing but air comes out of BitSet.toLongArray as an empty array
+		PackedSection[] air = PackedSection.split(new long[0]);
+		for (PackedSection section : air) {
+			assertSame(air[0], section);
+			assertTrue(section.isUniform());
+			assertEquals(0, section.words[0]);
+		}
+		assertNotSame(sections[0], air[0]);
+	}
+
+	@Test
+	public void trailingZerosArePadded() {
+		long[] words = { SOLID };
+		PackedSection[] sections = PackedSection.split(words);
+		assertFalse(sections[0].isUniform());
+		assertEquals(PackedSection.WORDS, sections[0].words.length);
+		long[] padded = new long[PackedSection.WORDS];
+		padded[0] = SOLID;
+		assertArrayEquals(padded, sections[0].words);
+		for (int i = 1; i < 16; i++) {
+			assertTrue(sections[i].isUniform());
+			assertEquals(0, sections[i].words[0]);
+		}
+	}
+
+	@Test
+	public void equalSectionsAreInterned() {
+		Random random = new Random(42);
+		long[] words = new long[PackedSection.WORDS];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = random.nextLong();
+		}
+		PackedSection first = PackedSection.of(words, 0);
+		PackedSection second = PackedSection.of(words.clone(), 0);
+		assertSame(first, second);
+		assertFalse(first.isUniform());
+
+		long[] shifted = new long[PackedSection.WORDS * 2];
+		System.arraycopy(words, 0, shifted, PackedSection.WORDS, words.length);
+		assertSame(first, PackedSection.of(shifted, PackedSection.WORDS));
+	}
+
+	@Test
+	public void doesNotHoldOnToItsInput() {
+		long[] words = new long[PackedSection.WORDS];
+		words[3] = 12345;
+		PackedSection section = PackedSection.of(words, 0);
+		words[3] = 0;
+		words[4] = 54321;
+		assertEquals(12345, section.words[3]);
+		assertEquals(0, section.words[4]);
+		assertFalse(section.equals(PackedSection.of(words, 0)));
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.calc.openset.NodeStoreBinaryHeapOpenSet;
+import baritone.pathing.movement.Moves;
+import org.junit.Test;
+
+public class PathNodeStoreTest {
+
+	/**
+	 * A goal at the origin whose heuristic is the manhattan distance times {@code scale}
+	 */
+	private static Goal origin(double scale) {
+		return new Goal() {
+
+			@Override
+			public boolean isInGoal(int x, int y, int z) {
+				return x == 0 && y == 0 && z == 0;
+			}
+
+			@Override
+			public double heuristic(int x, int y, int z) {
+				return (Math.abs(x) + Math.abs(y) + Math.abs(z)) * scale;
+			}
+		};
+	}
+
+	private static int getOrCreate(PathNodeStore store, int x, int y, int z) {
+		return store.getOrCreate(x, y, z, BetterBlockPos.longHash(x, y, z));
+	}
+
+	@Test
+	public void newNodes() {
+		PathNodeStore store = new PathNodeStore(origin(1), 16, 0.75F);
+		int id = getOrCreate(store, 3, 64, -5);
+		assertEquals(0, id);
+		assertEquals(1, store.size());
+		assertEquals(3, store.getX(id));
+		assertEquals(64, store.getY(id));
+		assertEquals(-5, store.getZ(id));
+		assertEquals(72, store.getEstimatedCostToGoal(id), 0);
+		assertEquals(ActionCosts.COST_INF, store.getCost(id), 0);
+		assertEquals(PathNodeStore.NONE, store.getPrevious(id));
+		assertFalse(store.isOpen(id));
+		assertEquals(id, getOrCreate(store, 3, 64, -5));
+		assertEquals(1, getOrCreate(store, 3, 65, -5));
+		assertEquals(2, store.size());
+	}
+
+	@Test
+	public void keepsEveryNodeWhileGrowing() {
+		PathNodeStore store = new PathNodeStore(origin(1), 16, 0.75F);
+		int numNodes = 20000;
+		for (int i = 0; i < numNodes; i++) {
+			int id = getOrCreate(store, i % 150 - 75, i / 150, -i % 7);
+			assertEquals(i, id);
+			store.setCost(id, i);
+			store.setPrevious(id, i - 1);
+		}
+		assertEquals(numNodes, store.size());
+		for (int i = numNodes - 1; i >= 0; i--) {
+			int id = getOrCreate(store, i % 150 - 75, i / 150, -i % 7);
+			assertEquals(i, id);
+			assertEquals(i % 150 - 75, store.getX(id));
+			assertEquals(i / 150, store.getY(id));
+			assertEquals(-i % 7, store.getZ(id));
+			assertEquals(i, store.getCost(id), 0);
+			assertEquals(i == 0 ? PathNodeStore.NONE : i - 1, store.getPrevious(id));
+		}
+		assertEquals(numNodes, store.size());
+	}
+
+	@Test
+	public void resetForgetsEverything() {
+		PathNodeStore store = new PathNodeStore(origin(1), 16, 0.75F);
+		for (int i = 0; i < 100; i++) {
+			int id = getOrCreate(store, i, 0, 0);
+			store.setCost(id, 1);
+		}
+		store.reset(origin(2));
+		assertEquals(0, store.size());
+		int id = getOrCreate(store, 50, 0, 0);
+		assertEquals(0, id);
+		assertEquals(100, store.getEstimatedCostToGoal(id), 0);
+		assertEquals(ActionCosts.COST_INF, store.getCost(id), 0);
+		assertEquals(1, getOrCreate(store, 0, 0, 0));
+	}
+
+	@Test
+	public void lazyEdgesStayOutOfTheIndex() {
+		PathNodeStore store = new PathNodeStore(origin(1), 16, 0.75F);
+		int from = getOrCreate(store, 0, 0, 0);
+		int target = getOrCreate(store, 0, 0, -1);
+		int edge = store.createLazyEdge(target, from, Moves.TRAVERSE_NORTH);
+		assertEquals(3, store.size());
+		assertEquals(Moves.TRAVERSE_NORTH, store.getLazyMove(edge));
+		assertNull(store.getLazyMove(target));
+		assertEquals(from, store.getPrevious(edge));
+		assertEquals(-1, store.getZ(edge));
+		assertEquals(store.getEstimatedCostToGoal(target), store.getEstimatedCostToGoal(edge), 0);
+		assertEquals(target, getOrCreate(store, 0, 0, -1));
+		for (int i = 0; i < 100; i++) {
+			store.createLazyEdge(target, from, Moves.TRAVERSE_NORTH);
+			assertEquals(target, getOrCreate(store, 0, 0, -1));
+		}
+		store.reset(origin(1));
+		assertNull(store.getLazyMove(getOrCreate(store, 5, 0, 0)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsNaNHeuristics() {
+		PathNodeStore store = new PathNodeStore(origin(Double.NaN), 16, 0.75F);
+		getOrCreate(store, 1, 2, 3);
+	}
+
+	@Test
+	public void heapRemovesInOrder() {
+		Random random = new Random(1);
+		PathNodeStore store = new PathNodeStore(origin(0), 16, 0.75F);
+		NodeStoreBinaryHeapOpenSet openSet = new NodeStoreBinaryHeapOpenSet(store, 16);
+		List<Integer> open = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			int id = getOrCreate(store, i, 0, 0);
+			store.setCombinedCost(id, random.nextInt(400) / 8D);
+			openSet.insert(id);
+			open.add(id);
+			if (i % 3 == 0) {
+				int decreased = open.get(random.nextInt(open.size()));
+				store.setCombinedCost(decreased, store.getCombinedCost(decreased) / 2);
+				openSet.update(decreased);
+			}
+		}
+		double last = Double.NEGATIVE_INFINITY;
+		while (!openSet.isEmpty()) {
+			assertEquals(open.size(), openSet.size());
+			int id = openSet.removeLowest();
+			assertTrue(store.getCombinedCost(id) >= last);
+			assertFalse(store.isOpen(id));
+			assertTrue(open.remove((Integer) id));
+			last = store.getCombinedCost(id);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with Baritone. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import baritone.api.pathing.goals.Goal;
+import baritone.pathing.calc.PathNode;
+import org.junit.Test;
+
+public class OpenSetsTest {
+
+	private static final Goal NOWHERE = new Goal() {
+
+		@Override
+		public boolean isInGoal(int x, int y, int z) {
+			return false;
+		}
+
+		@Override
+		public double heuristic(int x, int y, int z) {
+			return 0;
+		}
+	};
+
+	/**
+	 * Random costs, but in multiples of an eighth of a tick so that the radix heap, which rounds to a 64th, orders them exactly
+	 */
+	private static double randomCost(Random random, double atLeast) {
+		return atLeast + random.nextInt(400) / 8D;
+	}
+
+	@Test
+	public void removesInOrder() {
+		for (OpenSetType type : OpenSetType.values()) {
+			for (int seed = 0; seed < 5; seed++) {
+				testMonotoneWorkload(type, new Random(seed), 500);
+			}
+			testMonotoneWorkload(type, new Random(type.ordinal()), 20000); // past the initial capacity
+		}
+	}
+
+	/**
+	 * Inserts, decreases and removes the way A* does, never going below the last removed cost since the radix heap needs that
+	 */
+	private static void testMonotoneWorkload(OpenSetType type, Random random, int numNodes) {
+		IOpenSet openSet = type.create();
+		List<PathNode> open = new ArrayList<>();
+		double lastRemoved = 0;
+		int created = 0;
+		while (created < numNodes || !open.isEmpty()) {
+			int op = random.nextInt(10);
+			if (created < numNodes && (op < 5 || open.isEmpty())) {
+				PathNode node = new PathNode(created++, 0, 0, NOWHERE);
+				node.combinedCost = randomCost(random, lastRemoved);
+				openSet.insert(node);
+				open.add(node);
+				assertTrue(type.settingName, node.isOpen());
+			} else if (op < 7 && !open.isEmpty()) {
+				PathNode node = open.get(random.nextInt(open.size()));
+				node.combinedCost = lastRemoved + random.nextInt((int) ((node.combinedCost - lastRemoved) * 8) + 1) / 8D; // anywhere down to the last removed cost
+				openSet.update(node);
+			} else {
+				double lowest = Double.POSITIVE_INFINITY;
+				for (PathNode node : open) {
+					lowest = Math.min(lowest, node.combinedCost);
+				}
+				PathNode removed = openSet.removeLowest();
+				assertEquals(type.settingName, lowest, removed.combinedCost, 0);
+				assertFalse(type.settingName, removed.isOpen());
+				assertTrue(type.settingName, open.remove(removed));
+				lastRemoved = removed.combinedCost;
+			}
+			assertEquals(type.settingName, open.size(), openSet.size());
+			assertEquals(type.settingName, open.isEmpty(), openSet.isEmpty());
+		}
+	}
+
+	@Test
+	public void clearKeepsItUsable() {
+		for (OpenSetType type : OpenSetType.values()) {
+			IOpenSet openSet = type.create();
+			for (int i = 0; i < 100; i++) {
+				PathNode node = new PathNode(i, 0, 0, NOWHERE);
+				node.combinedCost = i;
+				openSet.insert(node);
+			}
+			openSet.removeLowest();
+			openSet.clear();
+			assertTrue(type.settingName, openSet.isEmpty());
+			assertEquals(type.settingName, 0, openSet.size());
+			PathNode node = new PathNode(0, 1, 0, NOWHERE);
+			node.combinedCost = 50;
+			openSet.insert(node);
+			assertEquals(type.settingName, node, openSet.removeLowest());
+			assertTrue(type.settingName, openSet.isEmpty());
+		}
+	}
+}